@@ -2,12 +2,16 @@ package br.ada.caixa;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+//O R2DBC e so para leitura (LeituraReativaConfiguration): um ConnectionFactory no contexto
+//desligaria o DataSource do JPA e o gerenciador de transacoes reativo disputaria com o JPA
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
 public class Main {
 
     public static void main(String[] args) {
         SpringApplication.run(Main.class, args);
     }
 
-}
\ No newline at end of file
+}
@@ -7,10 +7,15 @@ import br.ada.caixa.dto.response.ClientePJResponseDto;
 import br.ada.caixa.entity.Cliente;
 import br.ada.caixa.entity.TipoCliente;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.transaction.PlatformTransactionManagerCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
 
 @Configuration
+@EnableScheduling
 public class AppConfiguration {
 
     @Bean
@@ -33,4 +38,11 @@ public class AppConfiguration {
         return modelMapper;
     }
 
+    //Teto de duracao de toda transacao: a compactacao de lancamentos conta com ele (LancamentoService.compactar)
+    @Bean
+    public PlatformTransactionManagerCustomizer<AbstractPlatformTransactionManager> timeoutTransacoes(
+            @Value("${caixa.transacao.timeout-segundos:30}") int timeoutSegundos) {
+        return transactionManager -> transactionManager.setDefaultTimeout(timeoutSegundos);
+    }
+
 }
@@ -1,10 +1,13 @@
 package br.ada.caixa.config;
 
 import br.ada.caixa.dto.error.ErrorResponseDto;
+import br.ada.caixa.exceptions.OperacaoEmAndamentoException;
 import br.ada.caixa.exceptions.ValidacaoException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -37,6 +40,30 @@ public class RestControllerExceptionAdvice {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(validacaoException.getMessage());
     }
 
+    //Dinheiro recusado no @JsonCreator chega embrulhado pelo Jackson: devolve 400 como as demais validacoes
+    @ExceptionHandler( HttpMessageNotReadableException.class )
+    public ResponseEntity<String> handlerHttpMessageNotReadableException(HttpMessageNotReadableException ex) {
+        for (Throwable causa = ex.getCause(); causa != null; causa = causa.getCause()) {
+            if (causa instanceof ValidacaoException) {
+                return handlerValidacaoException((ValidacaoException) causa);
+            }
+        }
+        return handlerException(ex);
+    }
+
+    @ExceptionHandler( ConcurrencyFailureException.class )
+    public ResponseEntity<String> handlerConcurrencyFailureException(ConcurrencyFailureException ex) {
+        log.warn(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Conta em uso por outra operacao, tente novamente!");
+    }
+
+    //A mesma Idempotency-Key ainda esta rodando: o cliente repete depois e recebe a resposta gravada
+    @ExceptionHandler( OperacaoEmAndamentoException.class )
+    public ResponseEntity<String> handlerOperacaoEmAndamentoException(OperacaoEmAndamentoException ex) {
+        log.info(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
     @ExceptionHandler( Exception.class )
     public ResponseEntity<String> handlerException(Exception ex) {
         log.error(ex.getMessage(), ex);
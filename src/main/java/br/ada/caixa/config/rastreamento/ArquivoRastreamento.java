@@ -0,0 +1,70 @@
+package br.ada.caixa.config.rastreamento;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.SizeAndTimeBasedRollingPolicy;
+import ch.qos.logback.core.util.FileSize;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Liga o logger "caixa.rastreamento" a um arquivo rotativo proprio, com escrita assincrona
+ * que descarta em vez de bloquear a requisicao. So existe com o rastreamento ligado:
+ * desligado, nenhum arquivo de spans e criado.
+ */
+public class ArquivoRastreamento implements DisposableBean {
+
+    static final String LOGGER = "caixa.rastreamento";
+
+    private final ch.qos.logback.classic.Logger logger;
+    private final AsyncAppender assincrono;
+
+    public ArquivoRastreamento(String arquivo) {
+        var contexto = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+        var encoder = new PatternLayoutEncoder();
+        encoder.setContext(contexto);
+        encoder.setPattern("%msg%n");
+        encoder.start();
+
+        var rolante = new RollingFileAppender<ILoggingEvent>();
+        rolante.setContext(contexto);
+        rolante.setName("RASTREAMENTO_ARQUIVO");
+        rolante.setFile(arquivo);
+        rolante.setEncoder(encoder);
+        var politica = new SizeAndTimeBasedRollingPolicy<ILoggingEvent>();
+        politica.setContext(contexto);
+        politica.setParent(rolante);
+        politica.setFileNamePattern(arquivo + ".%d{yyyy-MM-dd}.%i");
+        politica.setMaxFileSize(FileSize.valueOf("50MB"));
+        politica.setMaxHistory(3);
+        politica.start();
+        rolante.setRollingPolicy(politica);
+        rolante.start();
+
+        assincrono = new AsyncAppender();
+        assincrono.setContext(contexto);
+        assincrono.setName("RASTREAMENTO");
+        assincrono.setNeverBlock(true);
+        assincrono.addAppender(rolante);
+        assincrono.start();
+
+        logger = contexto.getLogger(LOGGER);
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(assincrono);
+    }
+
+    @Override
+    public void destroy() {
+        logger.detachAppender(assincrono);
+        logger.setAdditive(true);
+        logger.setLevel(null);
+        assincrono.stop();
+    }
+
+}
@@ -0,0 +1,114 @@
+package br.ada.caixa.config.rastreamento;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Spans por statement JDBC: espera no pool, cada execute/executeBatch com o SQL, commit e rollback.
+ * Herdar de DelegatingDataSource mantem as metricas do Hikari, que desembrulham o delegate.
+ */
+public class DataSourceRastreado extends DelegatingDataSource {
+
+    private final Rastreador rastreador;
+
+    public DataSourceRastreado(DataSource alvo, Rastreador rastreador) {
+        super(alvo);
+        this.rastreador = rastreador;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        //Fora de um trace amostrado a conexao vai sem proxy nenhum
+        if (!rastreador.isAtivo()) {
+            return super.getConnection();
+        }
+        try (var ignored = rastreador.iniciar("jdbc.getConnection")) {
+            return rastrear(super.getConnection());
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        var conexao = super.getConnection(username, password);
+        return rastreador.isAtivo() ? rastrear(conexao) : conexao;
+    }
+
+    private Connection rastrear(Connection conexao) {
+        return proxy(Connection.class, conexao, (alvo, metodo, args) -> {
+            switch (metodo.getName()) {
+                case "commit":
+                case "rollback":
+                    return executarComSpan("jdbc." + metodo.getName(), null, alvo, metodo, args);
+                case "prepareStatement":
+                    return proxyStatement(PreparedStatement.class, (Statement) chamar(alvo, metodo, args), (String) args[0]);
+                case "prepareCall":
+                    return proxyStatement(CallableStatement.class, (Statement) chamar(alvo, metodo, args), (String) args[0]);
+                case "createStatement":
+                    return proxyStatement(Statement.class, (Statement) chamar(alvo, metodo, args), null);
+                default:
+                    return chamar(alvo, metodo, args);
+            }
+        });
+    }
+
+    private <S extends Statement> S proxyStatement(Class<S> tipo, Statement statement, String sql) {
+        return proxy(tipo, tipo.cast(statement), (alvo, metodo, args) -> {
+            var nome = metodo.getName();
+            if (nome.startsWith("execute")) {
+                var sqlExecutado = sql != null ? sql : args != null && args.length > 0 ? (String) args[0] : null;
+                return executarComSpan("jdbc." + nome, sqlExecutado, alvo, metodo, args);
+            }
+            return chamar(alvo, metodo, args);
+        });
+    }
+
+    private Object executarComSpan(String nome, String sql, Object alvo, Method metodo, Object[] args) throws Throwable {
+        if (!rastreador.isAtivo()) {
+            return chamar(alvo, metodo, args);
+        }
+        try (var escopo = rastreador.iniciar(nome)) {
+            escopo.tag("sql.query", sql);
+            try {
+                return chamar(alvo, metodo, args);
+            } catch (Throwable e) {
+                escopo.erro(e);
+                throw e;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Chamada {
+        Object invocar(Object alvo, Method metodo, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> tipo, T alvo, Chamada chamada) {
+        InvocationHandler handler = (proxy, metodo, args) -> {
+            if (metodo.getName().equals("unwrap") || metodo.getName().equals("isWrapperFor")) {
+                return chamar(alvo, metodo, args);
+            }
+            return chamada.invocar(alvo, metodo, args);
+        };
+        return (T) Proxy.newProxyInstance(DataSourceRastreado.class.getClassLoader(), new Class<?>[]{tipo}, handler);
+    }
+
+    private static Object chamar(Object alvo, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(alvo, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+}
@@ -0,0 +1,78 @@
+package br.ada.caixa.config.rastreamento;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Escreve cada trace finalizado como uma linha com o array JSON do formato Zipkin v2,
+ * pronto para um POST em /api/v2/spans. O destino e o logger "caixa.rastreamento",
+ * ligado ao arquivo de caixa.rastreamento.arquivo pelo {@link ArquivoRastreamento}.
+ */
+public class ExportadorZipkin {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArquivoRastreamento.LOGGER);
+
+    private final String nomeServico;
+
+    public ExportadorZipkin(String nomeServico) {
+        this.nomeServico = nomeServico;
+    }
+
+    void exportar(List<Span> spans) {
+        if (!LOG.isInfoEnabled()) {
+            return;
+        }
+        var json = new StringBuilder(256 * spans.size()).append('[');
+        for (int i = 0; i < spans.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            escrever(json, spans.get(i));
+        }
+        LOG.info(json.append(']').toString());
+    }
+
+    private void escrever(StringBuilder json, Span span) {
+        json.append("{\"traceId\":\"").append(span.traceId)
+                .append("\",\"id\":\"").append(span.id).append('"');
+        if (span.parentId != null) {
+            json.append(",\"parentId\":\"").append(span.parentId).append('"');
+        }
+        if (span.kind != null) {
+            json.append(",\"kind\":\"").append(span.kind).append('"');
+        }
+        json.append(",\"name\":");
+        texto(json, span.nome);
+        json.append(",\"timestamp\":").append(span.timestampMicros)
+                .append(",\"duration\":").append(span.duracaoMicros)
+                .append(",\"localEndpoint\":{\"serviceName\":");
+        texto(json, nomeServico);
+        json.append('}');
+        if (!span.tags.isEmpty()) {
+            json.append(",\"tags\":{");
+            boolean primeira = true;
+            for (Map.Entry<String, String> tag : span.tags.entrySet()) {
+                if (!primeira) {
+                    json.append(',');
+                }
+                texto(json, tag.getKey());
+                json.append(':');
+                texto(json, tag.getValue());
+                primeira = false;
+            }
+            json.append('}');
+        }
+        json.append('}');
+    }
+
+    private static void texto(StringBuilder json, String valor) {
+        json.append('"');
+        JsonStringEncoder.getInstance().quoteAsString(valor, json);
+        json.append('"');
+    }
+
+}
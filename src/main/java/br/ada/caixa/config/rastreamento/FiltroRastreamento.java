@@ -0,0 +1,46 @@
+package br.ada.caixa.config.rastreamento;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Span raiz da requisicao: cobre leitura do JSON, controller, commit e escrita da resposta.
+ */
+public class FiltroRastreamento extends OncePerRequestFilter {
+
+    private final Rastreador rastreador;
+
+    public FiltroRastreamento(Rastreador rastreador) {
+        this.rastreador = rastreador;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws IOException, ServletException {
+        try (var escopo = rastreador.iniciarRaiz(request.getMethod() + " " + request.getRequestURI(), "SERVER")) {
+            escopo.tag("http.method", request.getMethod())
+                    .tag("http.path", request.getRequestURI());
+            try {
+                chain.doFilter(request, response);
+            } catch (IOException | ServletException | RuntimeException e) {
+                escopo.erro(e);
+                throw e;
+            } finally {
+                //Nome pelo padrao da rota, assim /operacoes/saldo/1 e /operacoes/saldo/2 agrupam juntos
+                var padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                if (padrao != null) {
+                    escopo.renomear(request.getMethod() + " " + padrao);
+                }
+                escopo.tag("http.status_code", response.getStatus());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package br.ada.caixa.config.rastreamento;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Spans das camadas da aplicacao: o metodo do controller (incluindo o binding do corpo)
+ * e as chamadas de services e repositorios.
+ */
+public class InterceptadorRastreamento implements AsyncHandlerInterceptor, MethodInterceptor {
+
+    private static final String ATRIBUTO_ESCOPO = InterceptadorRastreamento.class.getName() + ".escopo";
+
+    private final Rastreador rastreador;
+
+    public InterceptadorRastreamento(Rastreador rastreador) {
+        this.rastreador = rastreador;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (rastreador.isAtivo() && handler instanceof HandlerMethod) {
+            var metodo = (HandlerMethod) handler;
+            request.setAttribute(ATRIBUTO_ESCOPO, rastreador.iniciar(
+                    metodo.getBeanType().getSimpleName() + "." + metodo.getMethod().getName()));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        var escopo = (Rastreador.Escopo) request.getAttribute(ATRIBUTO_ESCOPO);
+        if (escopo != null) {
+            request.removeAttribute(ATRIBUTO_ESCOPO);
+            if (ex != null) {
+                escopo.erro(ex);
+            }
+            escopo.close();
+        }
+    }
+
+    //Respostas assincronas (ex.: /clientes em NDJSON) continuam em outra thread, o span do controller termina aqui
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        afterCompletion(request, response, handler, null);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (!rastreador.isAtivo()) {
+            return invocation.proceed();
+        }
+        var classe = AopUtils.getTargetClass(invocation.getThis());
+        var tipo = invocation.getMethod().getDeclaringClass();
+        //Em repositorios o alvo e o SimpleJpaRepository, o nome util e o da interface
+        var nome = (tipo.isInterface() ? tipo : classe).getSimpleName() + "." + invocation.getMethod().getName();
+        try (var escopo = rastreador.iniciar(nome)) {
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                escopo.erro(e);
+                throw e;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+package br.ada.caixa.config.rastreamento;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Rastreamento em processo: a requisicao amostrada ganha um span raiz e cada camada abre
+ * spans filhos na mesma thread. Fora de uma requisicao amostrada todo span e um no-op.
+ * Desligado por padrao (caixa.rastreamento.habilitado): ligado, todo JDBC passa pelo proxy.
+ */
+public class Rastreador {
+
+    private static final Escopo NOOP = new Escopo(null, null);
+
+    private final ThreadLocal<Trace> traceAtual = new ThreadLocal<>();
+    private final double taxaAmostragem;
+    private final ExportadorZipkin exportador;
+
+    public Rastreador(double taxaAmostragem, ExportadorZipkin exportador) {
+        this.taxaAmostragem = taxaAmostragem;
+        this.exportador = exportador;
+    }
+
+    public Escopo iniciarRaiz(String nome, String kind) {
+        if (traceAtual.get() != null || ThreadLocalRandom.current().nextDouble() >= taxaAmostragem) {
+            return NOOP;
+        }
+        var trace = new Trace(novoId() + novoId());
+        traceAtual.set(trace);
+        return trace.abrir(nome, kind);
+    }
+
+    public Escopo iniciar(String nome) {
+        var trace = traceAtual.get();
+        return trace == null ? NOOP : trace.abrir(nome, null);
+    }
+
+    public boolean isAtivo() {
+        return traceAtual.get() != null;
+    }
+
+    private static String novoId() {
+        return String.format("%016x", ThreadLocalRandom.current().nextLong());
+    }
+
+    private final class Trace {
+
+        private final String traceId;
+        private final Deque<Span> pilha = new ArrayDeque<>();
+        private final List<Span> finalizados = new ArrayList<>();
+
+        private Trace(String traceId) {
+            this.traceId = traceId;
+        }
+
+        private Escopo abrir(String nome, String kind) {
+            var pai = pilha.peek();
+            var span = new Span(traceId, novoId(), pai == null ? null : pai.id, nome, kind);
+            pilha.push(span);
+            return new Escopo(this, span);
+        }
+
+        private void fechar(Span span) {
+            if (!pilha.contains(span)) {
+                return;
+            }
+            span.finalizar();
+            //Desempilha ate o proprio span: filhos esquecidos abertos saem junto e nao ficam pendurados nele
+            Span topo;
+            do {
+                topo = pilha.pop();
+            } while (topo != span);
+            finalizados.add(span);
+            if (pilha.isEmpty()) {
+                traceAtual.remove();
+                exportador.exportar(finalizados);
+            }
+        }
+    }
+
+    public static final class Escopo implements AutoCloseable {
+
+        private final Trace trace;
+        private final Span span;
+
+        private Escopo(Trace trace, Span span) {
+            this.trace = trace;
+            this.span = span;
+        }
+
+        public Escopo tag(String chave, Object valor) {
+            if (span != null && valor != null) {
+                span.tags.put(chave, String.valueOf(valor));
+            }
+            return this;
+        }
+
+        public Escopo renomear(String nome) {
+            if (span != null) {
+                span.nome = nome;
+            }
+            return this;
+        }
+
+        public Escopo erro(Throwable erro) {
+            return tag("error", erro.getClass().getSimpleName());
+        }
+
+        @Override
+        public void close() {
+            if (span != null) {
+                trace.fechar(span);
+            }
+        }
+    }
+
+}
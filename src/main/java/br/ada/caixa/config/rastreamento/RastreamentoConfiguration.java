@@ -0,0 +1,89 @@
+package br.ada.caixa.config.rastreamento;
+
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "caixa.rastreamento.habilitado", havingValue = "true")
+public class RastreamentoConfiguration {
+
+    //Beans estaticos: os post processors sobem antes do resto do contexto
+    @Bean
+    public static Rastreador rastreador(Environment environment) {
+        var taxa = environment.getProperty("caixa.rastreamento.taxa-amostragem", Double.class, 0.01);
+        var servico = environment.getProperty("spring.application.name", "banco-web");
+        return new Rastreador(taxa, new ExportadorZipkin(servico));
+    }
+
+    //Arquivo de spans so com o rastreamento ligado: fora dele o logger nem tem appender
+    @Bean
+    public static ArquivoRastreamento arquivoRastreamento(Environment environment) {
+        return new ArquivoRastreamento(environment.getProperty("caixa.rastreamento.arquivo", "rastreamento/spans.json"));
+    }
+
+    @Bean
+    public static InterceptadorRastreamento interceptadorRastreamento(Rastreador rastreador) {
+        return new InterceptadorRastreamento(rastreador);
+    }
+
+    @Bean
+    public static BeanPostProcessor rastreamentoDataSourcePostProcessor(Rastreador rastreador) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource && !(bean instanceof DataSourceRastreado)
+                        ? new DataSourceRastreado((DataSource) bean, rastreador)
+                        : bean;
+            }
+        };
+    }
+
+    @Bean
+    public static AbstractBeanFactoryAwareAdvisingPostProcessor rastreamentoServicosPostProcessor(
+            InterceptadorRastreamento interceptador) {
+        var pointcut = new ComposablePointcut(new AnnotationMatchingPointcut(Service.class, true))
+                .union(new RootClassFilter(Repository.class));
+        var postProcessor = new AbstractBeanFactoryAwareAdvisingPostProcessor() {
+            {
+                this.advisor = new DefaultPointcutAdvisor(pointcut, interceptador);
+            }
+        };
+        postProcessor.setBeforeExistingAdvisors(true);
+        postProcessor.setProxyTargetClass(true);
+        return postProcessor;
+    }
+
+    @Bean
+    public FilterRegistrationBean<FiltroRastreamento> filtroRastreamento(Rastreador rastreador) {
+        var registro = new FilterRegistrationBean<>(new FiltroRastreamento(rastreador));
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registro;
+    }
+
+    @Bean
+    public WebMvcConfigurer rastreamentoWebMvcConfigurer(InterceptadorRastreamento interceptador) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptador);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,35 @@
+package br.ada.caixa.config.rastreamento;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Um trecho cronometrado de uma requisicao, no modelo de span do Zipkin v2.
+ */
+final class Span {
+
+    final String traceId;
+    final String id;
+    final String parentId;
+    final String kind;
+    final long timestampMicros;
+    private final long inicioNanos;
+    String nome;
+    long duracaoMicros;
+    final Map<String, String> tags = new LinkedHashMap<>();
+
+    Span(String traceId, String id, String parentId, String nome, String kind) {
+        this.traceId = traceId;
+        this.id = id;
+        this.parentId = parentId;
+        this.nome = nome;
+        this.kind = kind;
+        this.timestampMicros = System.currentTimeMillis() * 1_000;
+        this.inicioNanos = System.nanoTime();
+    }
+
+    void finalizar() {
+        duracaoMicros = Math.max(1, (System.nanoTime() - inicioNanos) / 1_000);
+    }
+
+}
@@ -0,0 +1,77 @@
+package br.ada.caixa.config.reativo;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * DatabaseClient reativo apontando para o mesmo H2 do JPA. O pool R2DBC fica fora
+ * do contexto de proposito: um bean ConnectionFactory desligaria o DataSource do Boot.
+ * E um extra so de leitura: com caixa.reativo.habilitado=false ou banco que nao e H2
+ * a aplicacao sobe sem ele (e sem o ReativoController).
+ */
+@Configuration
+@Conditional(LeituraReativaConfiguration.Disponivel.class)
+public class LeituraReativaConfiguration implements DisposableBean {
+
+    private static final String PREFIXO_JDBC_H2 = "jdbc:h2:";
+
+    private final ConnectionPool pool;
+
+    //DataSourceProperties resolve a URL como o DataSource do Boot, inclusive o H2 embarcado padrao
+    public LeituraReativaConfiguration(Environment environment, DataSourceProperties dataSourceProperties) {
+        var url = environment.getProperty("caixa.reativo.url", dataSourceProperties.determineUrl());
+        var fabrica = new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .url(url.substring(PREFIXO_JDBC_H2.length()))
+                .username(Objects.requireNonNullElse(dataSourceProperties.determineUsername(), "sa"))
+                .password(Objects.requireNonNullElse(dataSourceProperties.determinePassword(), ""))
+                .build());
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(fabrica)
+                .initialSize(environment.getProperty("caixa.reativo.pool.inicial", Integer.class, 2))
+                .maxSize(environment.getProperty("caixa.reativo.pool.maximo", Integer.class, 10))
+                .maxAcquireTime(Duration.ofMillis(environment.getProperty("caixa.reativo.pool.espera-ms", Long.class, 3000L)))
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClientLeitura() {
+        return DatabaseClient.create(pool);
+    }
+
+    @Override
+    public void destroy() {
+        pool.dispose();
+    }
+
+    /**
+     * Ligado por padrao, desde que a URL seja de H2. Sem spring.datasource.url o Boot
+     * sobe o H2 embarcado, entao URL vazia tambem conta como H2.
+     */
+    public static class Disponivel implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            var environment = context.getEnvironment();
+            if (!environment.getProperty("caixa.reativo.habilitado", Boolean.class, true)) {
+                return false;
+            }
+            var url = environment.getProperty("caixa.reativo.url", environment.getProperty("spring.datasource.url", ""));
+            return url.isEmpty() || url.startsWith(PREFIXO_JDBC_H2);
+        }
+    }
+
+}
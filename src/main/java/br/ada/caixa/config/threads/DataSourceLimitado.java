@@ -0,0 +1,94 @@
+package br.ada.caixa.config.threads;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limita quantas threads usam JDBC ao mesmo tempo. Com threads virtuais nao ha
+ * pool de threads segurando a concorrencia: sem o semaforo milhares de requisicoes
+ * disputariam o pool do Hikari e ficariam presas (pinned) nos synchronized do driver.
+ * A permissao e obtida no getConnection e devolvida no close da conexao.
+ */
+public class DataSourceLimitado extends DelegatingDataSource {
+
+    private final Semaphore permissoes;
+    private final int limite;
+    private final long esperaMaximaMs;
+
+    public DataSourceLimitado(DataSource alvo, int limite, long esperaMaximaMs) {
+        super(alvo);
+        //Justo: quem espera ha mais tempo recebe a proxima conexao, a cauda de latencia nao explode
+        this.permissoes = new Semaphore(limite, true);
+        this.limite = limite;
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+
+    public int getPermissoesDisponiveis() {
+        return permissoes.availablePermits();
+    }
+
+    public int getAguardando() {
+        return permissoes.getQueueLength();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        adquirir();
+        try {
+            return liberarAoFechar(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        adquirir();
+        try {
+            return liberarAoFechar(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    private void adquirir() throws SQLException {
+        try {
+            if (!permissoes.tryAcquire(esperaMaximaMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Limite de " + limite
+                        + " conexoes JDBC simultaneas atingido apos " + esperaMaximaMs + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrompido aguardando conexao JDBC", e);
+        }
+    }
+
+    private Connection liberarAoFechar(Connection conexao) {
+        var fechada = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(DataSourceLimitado.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, metodo, args) -> {
+                    try {
+                        return metodo.invoke(conexao, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        //close pode ser chamado mais de uma vez, a permissao volta so uma
+                        if (metodo.getName().equals("close") && fechada.compareAndSet(false, true)) {
+                            permissoes.release();
+                        }
+                    }
+                });
+    }
+
+}
@@ -0,0 +1,60 @@
+package br.ada.caixa.config.threads;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.util.concurrent.Executors;
+
+/**
+ * Modo de execucao em threads virtuais (Java 21): cada requisicao do Tomcat, e as
+ * tarefas assincronas do Spring MVC, rodam em uma thread virtual propria. Quem
+ * segura a concorrencia passa a ser o semaforo do {@link DataSourceLimitado}.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "caixa.threads-virtuais.habilitado", havingValue = "true")
+public class ThreadsVirtuaisConfiguration {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> threadsVirtuaisTomcat() {
+        log.info("Requisicoes HTTP em threads virtuais");
+        return protocolHandler -> protocolHandler.setExecutor(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-virtual-", 0).factory()));
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("tarefa-virtual-", 0).factory()));
+    }
+
+    //Bean estatico: o post processor precisa existir antes do DataSource
+    @Bean
+    public static BeanPostProcessor limiteJdbcPostProcessor(Environment environment) {
+        var limite = environment.getProperty("caixa.threads-virtuais.limite-jdbc", Integer.class,
+                environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        var esperaMs = environment.getProperty("caixa.threads-virtuais.espera-jdbc-ms", Long.class, 30_000L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof DataSourceLimitado) {
+                    return bean;
+                }
+                log.info("JDBC limitado a {} conexoes simultaneas no DataSource {}", limite, beanName);
+                return new DataSourceLimitado((DataSource) bean, limite, esperaMs);
+            }
+        };
+    }
+
+}
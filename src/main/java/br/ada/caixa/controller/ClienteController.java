@@ -3,12 +3,18 @@ package br.ada.caixa.controller;
 import br.ada.caixa.dto.request.RegistrarClientePFRequestDto;
 import br.ada.caixa.dto.request.RegistrarClientePJRequestDto;
 import br.ada.caixa.dto.response.ClienteResponseDto;
+import br.ada.caixa.dto.response.ImportacaoClientesResponseDto;
+import br.ada.caixa.dto.response.PaginaResponseDto;
 import br.ada.caixa.dto.response.RegistrarClienteResponseDto;
 import br.ada.caixa.dto.response.SaldoResponseDto;
 import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.enums.FormatoImportacao;
 import br.ada.caixa.service.cliente.ClienteService;
+import br.ada.caixa.service.cliente.ImportacaoClientesService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -16,8 +22,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Objects;
 
 @RestController
@@ -26,15 +35,35 @@ import java.util.Objects;
 public class ClienteController {
 
     private final ClienteService clienteService;
+    private final ImportacaoClientesService importacaoClientesService;
+    private final ObjectMapper objectMapper;
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final String TEXT_CSV = "text/csv";
+
+    //Paginado por chave e limitado por padrao: a lista inteira so sai em NDJSON, sem montar em memoria
     @GetMapping
-    public ResponseEntity<List<ClienteResponseDto>> listarTodos(
+    public ResponseEntity<PaginaResponseDto<ClienteResponseDto>> listarPagina(
+            @RequestParam(required = false) String tipoCliente,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limite) {
+        return ResponseEntity.ok(clienteService.listarPagina(
+                Objects.isNull(tipoCliente) ? null : TipoCliente.valueOf(tipoCliente), cursor, limite));
+    }
+
+    @GetMapping(produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> transmitirTodos(
             @RequestParam(required = false) String tipoCliente) {
-        if (Objects.isNull(tipoCliente)) {
-            return ResponseEntity.ok(clienteService.listarTodos());
-        } else {
-            return ResponseEntity.ok(clienteService.listarTodos(TipoCliente.valueOf(tipoCliente)));
-        }
+        var tipo = Objects.isNull(tipoCliente) ? null : TipoCliente.valueOf(tipoCliente);
+        StreamingResponseBody corpo = saida -> clienteService.transmitirTodos(tipo, cliente -> {
+            try {
+                saida.write(objectMapper.writeValueAsBytes(cliente));
+                saida.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON)).body(corpo);
     }
 
     @PostMapping("/pf")
@@ -48,4 +77,15 @@ public class ClienteController {
         var response = clienteService.registrarPJ(clienteDto);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
+
+    //O corpo e lido direto da requisicao, sem carregar o arquivo inteiro em memoria
+    @PostMapping(value = "/importar", consumes = TEXT_CSV)
+    public ResponseEntity<ImportacaoClientesResponseDto> importarCsv(InputStream corpo) {
+        return ResponseEntity.ok(importacaoClientesService.importar(corpo, FormatoImportacao.CSV));
+    }
+
+    @PostMapping(value = "/importar", consumes = APPLICATION_NDJSON)
+    public ResponseEntity<ImportacaoClientesResponseDto> importarNdjson(InputStream corpo) {
+        return ResponseEntity.ok(importacaoClientesService.importar(corpo, FormatoImportacao.NDJSON));
+    }
 }
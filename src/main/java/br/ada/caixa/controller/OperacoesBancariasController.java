@@ -2,54 +2,100 @@ package br.ada.caixa.controller;
 
 import br.ada.caixa.dto.request.DepositoRequestDto;
 import br.ada.caixa.dto.request.InvestimentoRequestDto;
+import br.ada.caixa.dto.request.OperacaoLoteRequestDto;
 import br.ada.caixa.dto.request.SaqueRequestDto;
 import br.ada.caixa.dto.request.TransferenciaRequestDto;
+import br.ada.caixa.dto.response.ExtratoItemResponseDto;
+import br.ada.caixa.dto.response.OperacaoLoteResponseDto;
+import br.ada.caixa.dto.response.PaginaResponseDto;
 import br.ada.caixa.dto.response.SaldoResponseDto;
 import br.ada.caixa.service.conta.ContaService;
 import br.ada.caixa.service.operacoesbancarias.deposito.DepositoService;
+import br.ada.caixa.service.operacoesbancarias.extrato.ExtratoService;
+import br.ada.caixa.service.operacoesbancarias.idempotencia.IdempotenciaService;
 import br.ada.caixa.service.operacoesbancarias.investimento.InvestimentoService;
+import br.ada.caixa.service.operacoesbancarias.lote.LoteOperacoesService;
 import br.ada.caixa.service.operacoesbancarias.saldo.SaldoService;
 import br.ada.caixa.service.operacoesbancarias.saque.SaqueService;
 import br.ada.caixa.service.operacoesbancarias.transferencia.TransferenciaService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/operacoes")
 @RequiredArgsConstructor
 public class OperacoesBancariasController {
 
+    private static final TypeReference<Void> SEM_CORPO = new TypeReference<>() {};
+    private static final TypeReference<SaldoResponseDto> SALDO = new TypeReference<>() {};
+    private static final TypeReference<List<OperacaoLoteResponseDto>> LOTE = new TypeReference<>() {};
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     private final DepositoService depositoService;
     private final SaqueService saqueService;
     private final TransferenciaService transferenciaService;
     private final SaldoService saldoService;
     private final InvestimentoService investimentoService;
     private final ContaService contaService;
+    private final LoteOperacoesService loteOperacoesService;
+    private final IdempotenciaService idempotenciaService;
+    private final ExtratoService extratoService;
+    private final ObjectMapper objectMapper;
 
+    //Operacoes que alteram saldo aceitam Idempotency-Key: repetir a chave devolve a resposta gravada
     @PostMapping("/depositar")
-    public ResponseEntity<Void> depositar(@RequestBody DepositoRequestDto depositoRequestDto) {
-        depositoService.depositar(depositoRequestDto.getNumeroConta(), depositoRequestDto.getValor());
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Void> depositar(@RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chaveIdempotencia,
+                                          @RequestBody DepositoRequestDto depositoRequestDto) {
+        return idempotenciaService.executar(chaveIdempotencia, "deposito", depositoRequestDto, SEM_CORPO, () -> {
+            depositoService.depositar(depositoRequestDto.getNumeroConta(), depositoRequestDto.getValor());
+            return ResponseEntity.ok().build();
+        });
     }
 
     @PostMapping("/sacar")
-    public ResponseEntity<Void> sacar(@RequestBody SaqueRequestDto saqueRequestDto) {
-        saqueService.sacar(saqueRequestDto.getNumeroConta(), saqueRequestDto.getValor());
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Void> sacar(@RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chaveIdempotencia,
+                                      @RequestBody SaqueRequestDto saqueRequestDto) {
+        return idempotenciaService.executar(chaveIdempotencia, "saque", saqueRequestDto, SEM_CORPO, () -> {
+            saqueService.sacar(saqueRequestDto.getNumeroConta(), saqueRequestDto.getValor());
+            return ResponseEntity.ok().build();
+        });
+    }
+
+    @PostMapping("/lote")
+    public ResponseEntity<List<OperacaoLoteResponseDto>> processarLote(@RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chaveIdempotencia,
+                                                                       @RequestBody List<OperacaoLoteRequestDto> operacoes) {
+        return idempotenciaService.executar(chaveIdempotencia, "lote", operacoes, LOTE,
+                () -> ResponseEntity.ok(loteOperacoesService.processar(operacoes)));
     }
 
     @PostMapping("/transferir")
-    public void transferencia(@RequestBody TransferenciaRequestDto transferenciaRequestDto) {
-        transferenciaService.transferir(transferenciaRequestDto.getNumeroContaOrigem(),
-                transferenciaRequestDto.getNumeroContaDestino(),
-                transferenciaRequestDto.getValor());
+    public ResponseEntity<Void> transferencia(@RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chaveIdempotencia,
+                                              @RequestBody TransferenciaRequestDto transferenciaRequestDto) {
+        return idempotenciaService.executar(chaveIdempotencia, "transferencia", transferenciaRequestDto, SEM_CORPO, () -> {
+            transferenciaService.transferir(transferenciaRequestDto.getNumeroContaOrigem(),
+                    transferenciaRequestDto.getNumeroContaDestino(),
+                    transferenciaRequestDto.getValor());
+            return ResponseEntity.ok().build();
+        });
     }
 
     @GetMapping("/saldo/{numeroConta}")
@@ -60,26 +106,61 @@ public class OperacoesBancariasController {
         return ResponseEntity.status(HttpStatus.OK).body(saldoResponseDto);
     }
 
+    //Periodo por dia, de e ate inclusivos; sem filtro vai do primeiro lancamento ate hoje
+    @GetMapping("/extrato/{numeroConta}")
+    public ResponseEntity<PaginaResponseDto<ExtratoItemResponseDto>> consultarExtrato(
+            @PathVariable Long numeroConta,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limite) {
+        return ResponseEntity.ok(extratoService.listarPagina(numeroConta, de, ate, cursor, limite));
+    }
+
+    //Extrato completo do periodo, um lancamento por linha, sem montar a lista em memoria
+    @GetMapping(value = "/extrato/{numeroConta}", produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> transmitirExtrato(
+            @PathVariable Long numeroConta,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+        extratoService.validar(numeroConta, de, ate);
+        StreamingResponseBody corpo = saida -> extratoService.transmitir(numeroConta, de, ate, item -> {
+            try {
+                saida.write(objectMapper.writeValueAsBytes(item));
+                saida.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON)).body(corpo);
+    }
+
     @PostMapping("/investimento")
     public ResponseEntity<SaldoResponseDto> investir
-            (@RequestBody InvestimentoRequestDto investimentoRequestDto) {
+            (@RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chaveIdempotencia,
+             @RequestBody InvestimentoRequestDto investimentoRequestDto) {
 
-        var contaInvestimento = investimentoService.investir(investimentoRequestDto.getDocumentoCliente(), investimentoRequestDto.getValor());
-        var saldoResponseDto = new SaldoResponseDto();
-        saldoResponseDto.setNumeroConta(contaInvestimento.getNumero());
-        saldoResponseDto.setSaldo(contaInvestimento.getSaldo());
-        return ResponseEntity.status(HttpStatus.OK).body(saldoResponseDto);
+        return idempotenciaService.executar(chaveIdempotencia, "investimento", investimentoRequestDto, SALDO, () -> {
+            var contaInvestimento = investimentoService.investir(investimentoRequestDto.getDocumentoCliente(), investimentoRequestDto.getValor());
+            var saldoResponseDto = new SaldoResponseDto();
+            saldoResponseDto.setNumeroConta(contaInvestimento.getNumero());
+            saldoResponseDto.setSaldo(contaInvestimento.getSaldo());
+            return ResponseEntity.status(HttpStatus.OK).body(saldoResponseDto);
+        });
     }
 
     //Regra: cliente PJ nao pode ter conta poupanca
-    @GetMapping("/abrir-conta-poupanca/{cpf}")
-    public ResponseEntity<SaldoResponseDto> abrirContaPoupanca(@PathVariable String cpf) {
-        var contaPoupanca = contaService.abrirContaPoupanca(cpf);
+    @PostMapping("/abrir-conta-poupanca/{cpf}")
+    public ResponseEntity<SaldoResponseDto> abrirContaPoupanca(@RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chaveIdempotencia,
+                                                               @PathVariable String cpf) {
+        return idempotenciaService.executar(chaveIdempotencia, "conta-poupanca", cpf, SALDO, () -> {
+            var contaPoupanca = contaService.abrirContaPoupanca(cpf);
 
-        var saldoResponseDto = new SaldoResponseDto();
-        saldoResponseDto.setNumeroConta(contaPoupanca.getNumero());
-        saldoResponseDto.setSaldo(contaPoupanca.getSaldo());
-        return ResponseEntity.status(HttpStatus.OK).body(saldoResponseDto);
+            var saldoResponseDto = new SaldoResponseDto();
+            saldoResponseDto.setNumeroConta(contaPoupanca.getNumero());
+            saldoResponseDto.setSaldo(contaPoupanca.getSaldo());
+            return ResponseEntity.status(HttpStatus.OK).body(saldoResponseDto);
+        });
     }
 
 }
@@ -0,0 +1,40 @@
+package br.ada.caixa.controller;
+
+import br.ada.caixa.config.reativo.LeituraReativaConfiguration;
+import br.ada.caixa.dto.response.ClienteResponseDto;
+import br.ada.caixa.dto.response.SaldoResponseDto;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.service.reativo.LeituraReativaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+
+//Mono/Flux no Spring MVC viram requisicoes assincronas: a thread do Tomcat volta pro pool
+@RestController
+@Conditional(LeituraReativaConfiguration.Disponivel.class)
+@RequiredArgsConstructor
+@RequestMapping("/reativo")
+public class ReativoController {
+
+    private final LeituraReativaService leituraReativaService;
+
+    @GetMapping("/operacoes/saldo/{numeroConta}")
+    public Mono<SaldoResponseDto> saldo(@PathVariable Long numeroConta) {
+        return leituraReativaService.consultarSaldo(numeroConta);
+    }
+
+    @GetMapping("/clientes")
+    public Flux<ClienteResponseDto> listarTodos(@RequestParam(required = false) String tipoCliente) {
+        return leituraReativaService.listarClientes(
+                Objects.isNull(tipoCliente) ? null : TipoCliente.valueOf(tipoCliente));
+    }
+
+}
@@ -1,9 +1,9 @@
 package br.ada.caixa.dto.request;
 
+import br.ada.caixa.entity.Dinheiro;
 import lombok.*;
 
 import javax.validation.constraints.NotNull;
-import java.math.BigDecimal;
 
 @Data
 @Builder
@@ -14,8 +14,7 @@ public class DepositoRequestDto {
     @NotNull
     private Long numeroConta;
     @NotNull
-    private BigDecimal valor;
-
+    private Dinheiro valor;
 
     @Override
     public String toString() {
@@ -0,0 +1,25 @@
+package br.ada.caixa.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+//Uma linha da importacao; aceita tambem os nomes de campo de /clientes/pf e /clientes/pj
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportarClienteRequestDto {
+
+    private String tipo;
+    @JsonAlias({"cpf", "cnpj"})
+    private String documento;
+    @JsonAlias("nomeFantasia")
+    private String nome;
+    private LocalDate dataNascimento;
+
+}
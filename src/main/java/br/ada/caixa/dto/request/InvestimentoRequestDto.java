@@ -1,9 +1,8 @@
 package br.ada.caixa.dto.request;
 
+import br.ada.caixa.entity.Dinheiro;
 import lombok.*;
 
-import java.math.BigDecimal;
-
 @Data
 @Builder
 @NoArgsConstructor
@@ -11,6 +10,6 @@ import java.math.BigDecimal;
 public class InvestimentoRequestDto {
 
     private String documentoCliente;
-    private BigDecimal valor;
+    private Dinheiro valor;
 
 }
@@ -0,0 +1,17 @@
+package br.ada.caixa.dto.request;
+
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.enums.TipoOperacaoLote;
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperacaoLoteRequestDto {
+
+    private TipoOperacaoLote tipo;
+    private Long numeroConta;
+    private Dinheiro valor;
+
+}
@@ -1,9 +1,8 @@
 package br.ada.caixa.dto.request;
 
+import br.ada.caixa.entity.Dinheiro;
 import lombok.*;
 
-import java.math.BigDecimal;
-
 @Data
 @Builder
 @NoArgsConstructor
@@ -12,7 +11,7 @@ public class TransferenciaRequestDto {
 
     private Long numeroContaOrigem;
     private Long numeroContaDestino;
-    private BigDecimal valor;
+    private Dinheiro valor;
 
     @Override
     public String toString() {
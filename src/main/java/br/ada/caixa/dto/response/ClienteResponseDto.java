@@ -1,14 +1,22 @@
 package br.ada.caixa.dto.response;
 
-import lombok.Builder;
+import br.ada.caixa.entity.TipoCliente;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Getter
 @Setter
+@NoArgsConstructor
 public class ClienteResponseDto {
 
     private String documento;
     private String tipo;
 
+    //Usado pelas projecoes "select new" do ClienteRepository
+    public ClienteResponseDto(String documento, TipoCliente tipo) {
+        this.documento = documento;
+        this.tipo = tipo.name();
+    }
+
 }
@@ -1,16 +1,15 @@
 package br.ada.caixa.dto.response;
 
+import br.ada.caixa.entity.Dinheiro;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.math.BigDecimal;
-
 @Getter
 @Setter
 public class ContaResponseDto {
 
     private String numero;
-    private BigDecimal saldo;
+    private Dinheiro saldo;
     private String tipo;
 
 }
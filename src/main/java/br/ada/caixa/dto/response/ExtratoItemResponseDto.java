@@ -0,0 +1,32 @@
+package br.ada.caixa.dto.response;
+
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoLancamento;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExtratoItemResponseDto {
+
+    private Long id;
+    private String tipo;
+    private Dinheiro valor;
+    private LocalDateTime dataHora;
+
+    //Usado pelas projecoes "select new" do LancamentoRepository
+    public ExtratoItemResponseDto(Long id, TipoLancamento tipo, BigDecimal valor, LocalDateTime dataHora) {
+        this.id = id;
+        this.tipo = tipo.name();
+        this.valor = Dinheiro.de(valor);
+        this.dataHora = dataHora;
+    }
+
+}
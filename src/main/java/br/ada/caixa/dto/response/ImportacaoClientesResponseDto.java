@@ -0,0 +1,23 @@
+package br.ada.caixa.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportacaoClientesResponseDto {
+
+    private long linhas;
+    private long importados;
+    private long rejeitados;
+    private List<ErroImportacaoResponseDto> erros;
+    //Rejeicoes alem do limite de caixa.importacao.maximo-erros entram so na contagem
+    private long errosOmitidos;
+
+}
@@ -0,0 +1,18 @@
+package br.ada.caixa.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OperacaoLoteResponseDto {
+
+    private int indice;
+    private boolean sucesso;
+    private String erro;
+
+}
@@ -0,0 +1,20 @@
+package br.ada.caixa.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaginaResponseDto<T> {
+
+    private List<T> itens;
+    //Token opaco para a proxima pagina, nulo quando nao ha mais itens
+    private String proximoCursor;
+
+}
@@ -1,5 +1,6 @@
 package br.ada.caixa.dto.response;
 
+import br.ada.caixa.entity.Dinheiro;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -7,8 +8,6 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.math.BigDecimal;
-
 @Data
 @Builder
 @AllArgsConstructor
@@ -16,6 +15,6 @@ import java.math.BigDecimal;
 public class SaldoResponseDto {
 
     private Long numeroConta;
-    private BigDecimal saldo;
+    private Dinheiro saldo;
 
 }
@@ -12,12 +12,13 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.Version;
 import java.io.Serializable;
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.UUID;
 
@@ -26,6 +27,8 @@ import java.util.UUID;
 @NoArgsConstructor
 @Builder
 @Entity
+//Indice por tipo e numero: o job de rendimento percorre as contas de um tipo em ordem de numero
+@Table(indexes = @Index(name = "idx_conta_tipo_numero", columnList = "tipo, numero"))
 public class Conta  implements Serializable {
 
     @Id
@@ -34,13 +37,13 @@ public class Conta  implements Serializable {
     @Column(columnDefinition = "uuid")
     private UUID id;
 
-
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
-    @Column(unique = true)
+    //Atribuido pelo AlocadorNumeroConta antes do insert
+    @Column(unique = true, nullable = false)
     private long numero;
 
-    @Column(nullable = false)
-    private BigDecimal saldo;
+    //Escala fixa de centavos, convertido por DinheiroConverter
+    @Column(nullable = false, precision = 19, scale = Dinheiro.ESCALA)
+    private Dinheiro saldo;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -53,4 +56,7 @@ public class Conta  implements Serializable {
     @CreationTimestamp
     private LocalDate createdAt;
 
+    @Version
+    private Long versao;
+
 }
@@ -0,0 +1,117 @@
+package br.ada.caixa.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import br.ada.caixa.exceptions.ValidacaoException;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+/**
+ * Valor monetario em centavos. A escala e sempre 2: valor que entra de fora (requisicao,
+ * banco) com mais casas ou fora da faixa de long e recusado com ValidacaoException; so o
+ * resultado de taxas e rendimentos e arredondado com HALF_EVEN. Assim o saldo nao ganha
+ * casas decimais com o tempo e soma/subtracao sao operacoes sobre long.
+ */
+public final class Dinheiro implements Comparable<Dinheiro>, Serializable {
+
+    public static final int ESCALA = 2;
+    public static final RoundingMode ARREDONDAMENTO = RoundingMode.HALF_EVEN;
+    public static final Dinheiro ZERO = new Dinheiro(0);
+
+    private final long centavos;
+
+    private Dinheiro(long centavos) {
+        this.centavos = centavos;
+    }
+
+    public static Dinheiro deCentavos(long centavos) {
+        return centavos == 0 ? ZERO : new Dinheiro(centavos);
+    }
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Dinheiro de(BigDecimal valor) {
+        if (valor == null) {
+            return null;
+        }
+        //stripTrailingZeros so quando precisa: 10.500 ainda e um valor exato em centavos
+        if (valor.scale() > ESCALA && valor.stripTrailingZeros().scale() > ESCALA) {
+            throw new ValidacaoException("Valor com mais de " + ESCALA + " casas decimais: " + valor.toPlainString());
+        }
+        return deEscalado(valor.setScale(ESCALA));
+    }
+
+    public static Dinheiro de(String valor) {
+        return de(new BigDecimal(valor));
+    }
+
+    public static Dinheiro de(long reais) {
+        return deCentavos(Math.multiplyExact(reais, 100L));
+    }
+
+    public long getCentavos() {
+        return centavos;
+    }
+
+    public Dinheiro somar(Dinheiro outro) {
+        return deCentavos(Math.addExact(centavos, outro.centavos));
+    }
+
+    public Dinheiro subtrair(Dinheiro outro) {
+        return deCentavos(Math.subtractExact(centavos, outro.centavos));
+    }
+
+    public Dinheiro negar() {
+        return deCentavos(Math.negateExact(centavos));
+    }
+
+    //Taxas e rendimentos: o resultado volta para centavos na hora
+    public Dinheiro multiplicar(BigDecimal fator) {
+        return deEscalado(toBigDecimal().multiply(fator).setScale(ESCALA, ARREDONDAMENTO));
+    }
+
+    private static Dinheiro deEscalado(BigDecimal valor) {
+        var centavos = valor.unscaledValue();
+        if (centavos.bitLength() >= Long.SIZE) {
+            throw new ValidacaoException("Valor fora da faixa suportada: " + valor.toPlainString());
+        }
+        return deCentavos(centavos.longValue());
+    }
+
+    public int signum() {
+        return Long.signum(centavos);
+    }
+
+    public boolean maiorQue(Dinheiro outro) {
+        return centavos > outro.centavos;
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(centavos, ESCALA);
+    }
+
+    @Override
+    public int compareTo(Dinheiro outro) {
+        return Long.compare(centavos, outro.centavos);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Dinheiro && centavos == ((Dinheiro) o).centavos);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centavos);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+}
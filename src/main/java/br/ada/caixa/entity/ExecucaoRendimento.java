@@ -0,0 +1,51 @@
+package br.ada.caixa.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint do job de rendimento de um dia. Avanca na mesma transacao que
+ * credita cada bloco de contas: depois de um restart o job continua da
+ * proxima conta, sem creditar nenhuma duas vezes.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+public class ExecucaoRendimento {
+
+    @Id
+    private LocalDate dataReferencia;
+
+    //Tipo sendo percorrido e ultima conta ja creditada dele
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TipoConta tipoConta;
+
+    @Column(nullable = false)
+    private long ultimaConta;
+
+    @Column(nullable = false)
+    private long contasProcessadas;
+
+    @Column(nullable = false, precision = 19, scale = Dinheiro.ESCALA)
+    private Dinheiro totalCreditado;
+
+    @Column(nullable = false)
+    private boolean concluida;
+
+    @Column(nullable = false)
+    private LocalDateTime atualizadoEm;
+
+}
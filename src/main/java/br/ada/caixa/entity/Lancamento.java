@@ -0,0 +1,56 @@
+package br.ada.caixa.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Movimento imutavel de uma conta. Creditos tem valor positivo e debitos
+ * valor negativo, entao o saldo e a soma dos lancamentos.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+//O id no indice desempata lancamentos no mesmo instante: o extrato pagina por (dataHora, id) sem ler a conta toda
+@Table(indexes = @Index(name = "idx_lancamento_conta_data_id", columnList = "numeroConta, dataHora, id"))
+public class Lancamento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lancamento_seq")
+    @SequenceGenerator(name = "lancamento_seq", sequenceName = "lancamento_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, updatable = false)
+    private long numeroConta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private TipoLancamento tipo;
+
+    @Column(nullable = false, updatable = false, precision = 19, scale = Dinheiro.ESCALA)
+    private BigDecimal valor;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime dataHora;
+
+    //Sequencia do registro no journal: depois de uma queda, diz se a transacao do movimento commitou
+    @Column(updatable = false)
+    private Long sequenciaJournal;
+
+}
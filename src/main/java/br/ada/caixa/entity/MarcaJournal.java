@@ -0,0 +1,38 @@
+package br.ada.caixa.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+/**
+ * Ate onde o banco acompanha o journal de operacoes: linha unica com a epoca
+ * (tambem gravada no diretorio do journal) e a ultima sequencia conhecida.
+ * Sem ela, ou com epoca diferente, o banco nao e o mesmo que o journal seguia
+ * e o replay daria saldos de outras contas.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+public class MarcaJournal {
+
+    @Id
+    private int id;
+
+    @Column(nullable = false, length = 36)
+    private String epoca;
+
+    @Column(nullable = false)
+    private long sequencia;
+
+    @Column(nullable = false)
+    private LocalDateTime atualizadoEm;
+
+}
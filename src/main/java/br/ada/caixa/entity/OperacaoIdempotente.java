@@ -0,0 +1,74 @@
+package br.ada.caixa.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.time.LocalDateTime;
+
+/**
+ * Resposta ja entregue para uma Idempotency-Key. A reserva e gravada antes da
+ * operacao, com status 0, e a resposta quando a operacao termina; se a operacao
+ * falha a linha e apagada.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(indexes = @Index(name = "idx_operacao_idempotente_data", columnList = "dataHora"))
+public class OperacaoIdempotente implements Persistable<String> {
+
+    @Id
+    @Column(length = 100)
+    private String chave;
+
+    @Column(nullable = false, length = 30)
+    private String operacao;
+
+    //Impressao digital da requisicao, para recusar a mesma chave com outro corpo
+    @Column(nullable = false, length = 64)
+    private String hashRequisicao;
+
+    @Column(nullable = false)
+    private int status;
+
+    @Lob
+    private String corpo;
+
+    @Column(nullable = false)
+    private LocalDateTime dataHora;
+
+    //Chave vem do cliente: sem isso o save faria merge e sobrescreveria uma linha ja commitada
+    @Transient
+    @Builder.Default
+    private boolean nova = true;
+
+    @Override
+    public String getId() {
+        return chave;
+    }
+
+    @Override
+    public boolean isNew() {
+        return nova;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marcarPersistida() {
+        nova = false;
+    }
+
+}
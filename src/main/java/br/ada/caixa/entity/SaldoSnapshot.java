@@ -0,0 +1,33 @@
+package br.ada.caixa.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Saldo consolidado de uma conta com todos os lancamentos ate dataCorte.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+public class SaldoSnapshot {
+
+    @Id
+    private Long numeroConta;
+
+    @Column(nullable = false, precision = 19, scale = Dinheiro.ESCALA)
+    private BigDecimal saldo;
+
+    @Column(nullable = false)
+    private LocalDateTime dataCorte;
+
+}
@@ -0,0 +1,5 @@
+package br.ada.caixa.entity;
+
+public enum TipoLancamento {
+    DEPOSITO, SAQUE, TARIFA, TRANSFERENCIA, INVESTIMENTO, RENDIMENTO
+}
@@ -0,0 +1,8 @@
+package br.ada.caixa.enums;
+
+public enum TipoOperacaoLote {
+
+    DEPOSITO,
+    SAQUE
+
+}
@@ -0,0 +1,9 @@
+package br.ada.caixa.exceptions;
+
+public class OperacaoEmAndamentoException extends RuntimeException {
+
+    public OperacaoEmAndamentoException(String msg) {
+        super(msg);
+    }
+
+}
@@ -1,19 +1,55 @@
 package br.ada.caixa.respository;
 
+import br.ada.caixa.dto.response.ClienteResponseDto;
 import br.ada.caixa.entity.Cliente;
 import br.ada.caixa.entity.TipoCliente;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface ClienteRepository extends JpaRepository<Cliente, UUID> {
 
+    String FETCH_SIZE = "500";
+
+    String PROJECAO_RESPONSE = "select new br.ada.caixa.dto.response.ClienteResponseDto(c.documento, c.tipo) from Cliente c ";
+
     Optional<Cliente> findByDocumento(String documento);
 
     List<Cliente> findAllByTipo(TipoCliente tipoCliente);
 
+    //Projecoes: so documento e tipo saem do banco, sem entidade gerenciada nem snapshot para dirty checking
+    @Query(PROJECAO_RESPONSE)
+    List<ClienteResponseDto> listarResumo();
+
+    @Query(PROJECAO_RESPONSE + "where c.tipo = :tipoCliente")
+    List<ClienteResponseDto> listarResumoPorTipo(@Param("tipoCliente") TipoCliente tipoCliente);
+
+    @Query(PROJECAO_RESPONSE + "where c.documento > :documento order by c.documento")
+    List<ClienteResponseDto> listarResumoDepoisDe(@Param("documento") String documento, Pageable pageable);
+
+    @Query(PROJECAO_RESPONSE + "where c.tipo = :tipoCliente and c.documento > :documento order by c.documento")
+    List<ClienteResponseDto> listarResumoPorTipoDepoisDe(@Param("tipoCliente") TipoCliente tipoCliente,
+                                                         @Param("documento") String documento,
+                                                         Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = FETCH_SIZE))
+    @Query(PROJECAO_RESPONSE + "order by c.documento")
+    Stream<ClienteResponseDto> transmitirResumo();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = FETCH_SIZE))
+    @Query(PROJECAO_RESPONSE + "where c.tipo = :tipoCliente order by c.documento")
+    Stream<ClienteResponseDto> transmitirResumoPorTipo(@Param("tipoCliente") TipoCliente tipoCliente);
+
 }
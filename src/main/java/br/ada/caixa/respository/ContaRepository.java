@@ -2,12 +2,20 @@ package br.ada.caixa.respository;
 
 import br.ada.caixa.entity.Cliente;
 import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
 import br.ada.caixa.entity.TipoConta;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,8 +23,42 @@ import java.util.UUID;
 @Repository
 public interface ContaRepository extends JpaRepository<Conta, UUID> {
 
+    String LOCK_TIMEOUT_MS = "3000";
+
     List<Conta> findContasByClienteAndTipo(Cliente cliente, TipoConta tipoConta);
 
     Optional<Conta> findByNumero(Long numero);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = LOCK_TIMEOUT_MS))
+    @Query("select c from Conta c where c.numero = :numero")
+    Optional<Conta> findByNumeroForUpdate(@Param("numero") Long numero);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = LOCK_TIMEOUT_MS))
+    @Query("select c from Conta c where c.cliente = :cliente and c.tipo = :tipoConta")
+    List<Conta> findContasByClienteAndTipoForUpdate(@Param("cliente") Cliente cliente, @Param("tipoConta") TipoConta tipoConta);
+
+    @Query("select c.saldo from Conta c where c.numero = :numero")
+    Optional<Dinheiro> findSaldoByNumero(@Param("numero") Long numero);
+
+    //Tipos que definem a cadeia de regras de saque da conta
+    @Query("select c.cliente.tipo as tipoCliente, c.tipo as tipoConta from Conta c where c.numero = :numero")
+    Optional<PerfilConta> findPerfilByNumero(@Param("numero") Long numero);
+
+    //coalesce: contas gravadas antes da coluna versao tem versao nula, e nulo + 1 continuaria nulo
+    @Modifying
+    @Query(value = "update conta set saldo = saldo + :valor, versao = coalesce(versao, 0) + 1 where numero = :numero", nativeQuery = true)
+    int creditar(@Param("numero") Long numero, @Param("valor") BigDecimal valor);
+
+    @Modifying
+    @Query(value = "update conta set saldo = saldo - :valor, versao = coalesce(versao, 0) + 1 where numero = :numero and saldo >= :valor", nativeQuery = true)
+    int debitar(@Param("numero") Long numero, @Param("valor") BigDecimal valor);
+
+    interface PerfilConta {
+        TipoCliente getTipoCliente();
+
+        TipoConta getTipoConta();
+    }
+
 }
@@ -0,0 +1,15 @@
+package br.ada.caixa.respository;
+
+import br.ada.caixa.entity.ExecucaoRendimento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ExecucaoRendimentoRepository extends JpaRepository<ExecucaoRendimento, LocalDate> {
+
+    List<ExecucaoRendimento> findByConcluidaFalseOrderByDataReferencia();
+
+}
@@ -0,0 +1,51 @@
+package br.ada.caixa.respository;
+
+import br.ada.caixa.dto.response.ExtratoItemResponseDto;
+import br.ada.caixa.entity.Lancamento;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+@Repository
+public interface LancamentoRepository extends JpaRepository<Lancamento, Long> {
+
+    String FETCH_SIZE = "500";
+
+    //Range scan em idx_lancamento_conta_data_id: conta fixa e dataHora a partir do inicio
+    String PROJECAO_EXTRATO = "select new br.ada.caixa.dto.response.ExtratoItemResponseDto(l.id, l.tipo, l.valor, l.dataHora) "
+            + "from Lancamento l where l.numeroConta = :numeroConta and l.dataHora >= :inicio and l.dataHora < :fim ";
+
+    @Query("select coalesce(sum(l.valor), 0) from Lancamento l " +
+            "where l.numeroConta = :numeroConta and l.dataHora > :desde")
+    BigDecimal somarDesde(@Param("numeroConta") long numeroConta, @Param("desde") LocalDateTime desde);
+
+    @Query("select l.numeroConta, sum(l.valor) from Lancamento l " +
+            "where l.dataHora > :desde and l.dataHora <= :ate group by l.numeroConta")
+    List<Object[]> somarPorContaEntre(@Param("desde") LocalDateTime desde, @Param("ate") LocalDateTime ate);
+
+    //Pagina seguinte a (dataHora, id): o inicio ja vem com a dataHora do cursor, o id so desempata o mesmo instante
+    @Query(PROJECAO_EXTRATO + "and (l.dataHora > :inicio or l.id > :depoisDoId) order by l.dataHora, l.id")
+    List<ExtratoItemResponseDto> listarExtrato(@Param("numeroConta") long numeroConta,
+                                               @Param("inicio") LocalDateTime inicio,
+                                               @Param("fim") LocalDateTime fim,
+                                               @Param("depoisDoId") long depoisDoId,
+                                               Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = FETCH_SIZE))
+    @Query(PROJECAO_EXTRATO + "order by l.dataHora, l.id")
+    Stream<ExtratoItemResponseDto> transmitirExtrato(@Param("numeroConta") long numeroConta,
+                                                     @Param("inicio") LocalDateTime inicio,
+                                                     @Param("fim") LocalDateTime fim);
+
+}
@@ -0,0 +1,27 @@
+package br.ada.caixa.respository;
+
+import br.ada.caixa.entity.OperacaoIdempotente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OperacaoIdempotenteRepository extends JpaRepository<OperacaoIdempotente, String> {
+
+    @Modifying
+    @Query("delete from OperacaoIdempotente o where o.dataHora < :limite")
+    int removerAnterioresA(@Param("limite") LocalDateTime limite);
+
+    //Status 0 e reserva sem resposta: so assume se ninguem a renovou depois do limite
+    @Modifying
+    @Query("update OperacaoIdempotente o set o.dataHora = :agora " +
+            "where o.chave = :chave and o.status = 0 and o.dataHora < :limite")
+    int assumirReservaVencida(@Param("chave") String chave,
+                              @Param("agora") LocalDateTime agora,
+                              @Param("limite") LocalDateTime limite);
+
+}
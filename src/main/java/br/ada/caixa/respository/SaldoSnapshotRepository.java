@@ -0,0 +1,17 @@
+package br.ada.caixa.respository;
+
+import br.ada.caixa.entity.SaldoSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface SaldoSnapshotRepository extends JpaRepository<SaldoSnapshot, Long> {
+
+    @Query("select max(s.dataCorte) from SaldoSnapshot s")
+    Optional<LocalDateTime> findUltimoCorte();
+
+}
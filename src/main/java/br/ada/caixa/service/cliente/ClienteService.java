@@ -3,22 +3,33 @@ package br.ada.caixa.service.cliente;
 import br.ada.caixa.dto.request.RegistrarClientePFRequestDto;
 import br.ada.caixa.dto.request.RegistrarClientePJRequestDto;
 import br.ada.caixa.dto.response.ClienteResponseDto;
+import br.ada.caixa.dto.response.PaginaResponseDto;
 import br.ada.caixa.dto.response.RegistrarClienteResponseDto;
 import br.ada.caixa.dto.response.SaldoResponseDto;
 import br.ada.caixa.entity.Cliente;
 import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
 import br.ada.caixa.entity.TipoCliente;
 import br.ada.caixa.entity.TipoConta;
 import br.ada.caixa.enums.StatusCliente;
+import br.ada.caixa.exceptions.ValidacaoException;
 import br.ada.caixa.respository.ClienteRepository;
 import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.service.conta.AlocadorNumeroConta;
+import br.ada.caixa.service.metricas.MetricasOperacoes;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -26,6 +37,11 @@ public class ClienteService {
     private final ClienteRepository clienteRepository;
     private final ContaRepository contaRepository;
     private final ModelMapper modelMapper;
+    private final MetricasOperacoes metricasOperacoes;
+    private final AlocadorNumeroConta alocadorNumeroConta;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final int LIMITE_MAXIMO_PAGINA = 1000;
 
     public RegistrarClienteResponseDto registrarPF(RegistrarClientePFRequestDto clienteDto) {
         final var cliente = modelMapper.map(clienteDto, Cliente.class);
@@ -41,46 +57,99 @@ public class ClienteService {
         return registrar(cliente);
     }
 
-    public RegistrarClienteResponseDto registrar(Cliente cliente) {
-        cliente = clienteRepository.save(cliente);
-        var conta = criarConta(cliente);
-        conta = contaRepository.save(conta);
-        final SaldoResponseDto saldoResponseDto = SaldoResponseDto.builder()
-                .saldo(conta.getSaldo())
-                .numeroConta(conta.getNumero())
-                .build();
+    public RegistrarClienteResponseDto registrar(Cliente novoCliente) {
+        return metricasOperacoes.medir("registrar_cliente", medicao -> {
+            medicao.tipoCliente(novoCliente.getTipo()).tipoConta(TipoConta.CONTA_CORRENTE);
+            return transactionTemplate.execute(status -> persistir(List.of(novoCliente))).get(0);
+        });
+    }
 
-        return RegistrarClienteResponseDto.builder()
-                .documento(cliente.getDocumento())
-                .saldoResponseDto(saldoResponseDto)
-                .build();
+    //Varios cadastros na mesma transacao: com order_inserts os inserts de cliente e de conta saem em batches
+    public List<RegistrarClienteResponseDto> registrarTodos(List<Cliente> novosClientes) {
+        return metricasOperacoes.medir("registrar_clientes", medicao -> {
+            medicao.tipoConta(TipoConta.CONTA_CORRENTE);
+            return transactionTemplate.execute(status -> persistir(novosClientes));
+        });
     }
 
-    private static Conta criarConta(final Cliente cliente) {
+    //Ids (UUID) e numeros de conta sao gerados em memoria: nada vai ao banco antes do flush do commit,
+    //e a resposta sai das proprias entidades, sem reler nada
+    private List<RegistrarClienteResponseDto> persistir(List<Cliente> novosClientes) {
+        var clientes = clienteRepository.saveAll(novosClientes);
+        var contas = contaRepository.saveAll(clientes.stream().map(this::criarConta).toList());
+        List<RegistrarClienteResponseDto> respostas = new ArrayList<>(contas.size());
+        for (var conta : contas) {
+            respostas.add(RegistrarClienteResponseDto.builder()
+                    .documento(conta.getCliente().getDocumento())
+                    .saldoResponseDto(SaldoResponseDto.builder()
+                            .saldo(conta.getSaldo())
+                            .numeroConta(conta.getNumero())
+                            .build())
+                    .build());
+        }
+        return respostas;
+    }
+
+    private Conta criarConta(final Cliente cliente) {
         final var contaCorrente = new Conta();
+        contaCorrente.setNumero(alocadorNumeroConta.proximo());
         contaCorrente.setCliente(cliente);
-        contaCorrente.setSaldo(BigDecimal.ZERO);
+        contaCorrente.setSaldo(Dinheiro.ZERO);
         contaCorrente.setTipo(TipoConta.CONTA_CORRENTE);
         return contaCorrente;
     }
 
     public List<ClienteResponseDto> listarTodos(TipoCliente tipoCliente) {
-        List<Cliente> clientes = clienteRepository.findAllByTipo(tipoCliente);
-        return clientes.stream().map(cliente -> {
-            ClienteResponseDto clienteResponseDto = new ClienteResponseDto();
-            clienteResponseDto.setDocumento(cliente.getDocumento());
-            clienteResponseDto.setTipo(cliente.getTipo().name());
-            return clienteResponseDto;
-        }).collect(Collectors.toList());
+        return metricasOperacoes.medir("listar_clientes", medicao ->
+                clienteRepository.listarResumoPorTipo(tipoCliente));
     }
 
     public List<ClienteResponseDto> listarTodos() {
-        List<Cliente> clientes = clienteRepository.findAll();
-        return clientes.stream().map(cliente -> {
-            ClienteResponseDto response = new ClienteResponseDto();
-            response.setDocumento(cliente.getDocumento());
-            response.setTipo(cliente.getTipo().name());
-            return response;
-        }).collect(Collectors.toList());
+        return metricasOperacoes.medir("listar_clientes", medicao -> clienteRepository.listarResumo());
+    }
+
+    //Paginacao por chave (documento e unico): cada pagina e um range scan no indice, sem OFFSET
+    public PaginaResponseDto<ClienteResponseDto> listarPagina(TipoCliente tipoCliente, String cursor, int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO_PAGINA) {
+            throw new ValidacaoException("Limite deve estar entre 1 e " + LIMITE_MAXIMO_PAGINA + "!");
+        }
+        var depoisDe = decodificarCursor(cursor);
+        var pagina = PageRequest.of(0, limite);
+        List<ClienteResponseDto> itens = Objects.isNull(tipoCliente)
+                ? clienteRepository.listarResumoDepoisDe(depoisDe, pagina)
+                : clienteRepository.listarResumoPorTipoDepoisDe(tipoCliente, depoisDe, pagina);
+
+        var proximoCursor = itens.size() < limite
+                ? null
+                : codificarCursor(itens.get(itens.size() - 1).getDocumento());
+        return PaginaResponseDto.<ClienteResponseDto>builder()
+                .itens(itens)
+                .proximoCursor(proximoCursor)
+                .build();
+    }
+
+    //Percorre a tabela por cursor do banco; a projecao nao entra no contexto de persistencia, entao a memoria fica constante
+    @Transactional(readOnly = true)
+    public void transmitirTodos(TipoCliente tipoCliente, Consumer<ClienteResponseDto> consumidor) {
+        try (var clientes = Objects.isNull(tipoCliente)
+                ? clienteRepository.transmitirResumo()
+                : clienteRepository.transmitirResumoPorTipo(tipoCliente)) {
+            clientes.forEach(consumidor);
+        }
+    }
+
+    private static String codificarCursor(String documento) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(documento.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodificarCursor(String cursor) {
+        if (Objects.isNull(cursor) || cursor.isEmpty()) {
+            return "";
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ValidacaoException("Cursor inválido!");
+        }
     }
 }
@@ -0,0 +1,318 @@
+package br.ada.caixa.service.cliente;
+
+import br.ada.caixa.dto.request.ImportarClienteRequestDto;
+import br.ada.caixa.dto.response.ErroImportacaoResponseDto;
+import br.ada.caixa.dto.response.ImportacaoClientesResponseDto;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.enums.FormatoImportacao;
+import br.ada.caixa.enums.StatusCliente;
+import br.ada.caixa.exceptions.ValidacaoException;
+import br.ada.caixa.service.conta.AlocadorNumeroConta;
+import br.ada.caixa.service.metricas.MetricasOperacoes;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Importacao de clientes PF/PJ em CSV ou NDJSON. O arquivo e lido linha a linha:
+ * so o bloco atual fica em memoria. Cada bloco valido vira dois batches JDBC
+ * (clientes e contas correntes) em uma transacao; linhas invalidas ou ja
+ * cadastradas sao rejeitadas sem derrubar o resto do arquivo.
+ */
+@Slf4j
+@Service
+public class ImportacaoClientesService {
+
+    private static final String SQL_DOCUMENTOS_EXISTENTES = "select documento from cliente where documento in (:documentos)";
+    private static final String SQL_INSERIR_CLIENTE = "insert into cliente (id, documento, nome, data_nascimento, status, tipo, created_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SQL_INSERIR_CONTA = "insert into conta (id, numero, saldo, tipo, cliente_id, created_at, versao) "
+            + "values (?, ?, ?, ?, ?, ?, 0)";
+    private static final Pattern DOCUMENTO = Pattern.compile("[0-9]{1,20}");
+    private static final List<String> COLUNAS_CSV = List.of("tipo", "documento", "nome", "dataNascimento");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MetricasOperacoes metricasOperacoes;
+    private final AlocadorNumeroConta alocadorNumeroConta;
+    private final int tamanhoBloco;
+    private final int maximoErros;
+
+    public ImportacaoClientesService(NamedParameterJdbcTemplate jdbcTemplate,
+                                     TransactionTemplate transactionTemplate,
+                                     ObjectMapper objectMapper,
+                                     MetricasOperacoes metricasOperacoes,
+                                     AlocadorNumeroConta alocadorNumeroConta,
+                                     @Value("${caixa.importacao.tamanho-bloco:1000}") int tamanhoBloco,
+                                     @Value("${caixa.importacao.maximo-erros:1000}") int maximoErros) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.metricasOperacoes = metricasOperacoes;
+        this.alocadorNumeroConta = alocadorNumeroConta;
+        this.tamanhoBloco = tamanhoBloco;
+        this.maximoErros = maximoErros;
+    }
+
+    public ImportacaoClientesResponseDto importar(InputStream entrada, FormatoImportacao formato) {
+        return metricasOperacoes.medir("importar_clientes", medicao -> {
+            var relatorio = new Relatorio();
+            try (var leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+                long numeroLinha = 0;
+                Map<String, Integer> colunas = null;
+                if (formato == FormatoImportacao.CSV) {
+                    colunas = lerCabecalho(leitor.readLine());
+                    numeroLinha++;
+                }
+                List<LinhaImportacao> bloco = new ArrayList<>(tamanhoBloco);
+                String texto;
+                while ((texto = leitor.readLine()) != null) {
+                    numeroLinha++;
+                    if (texto.isBlank()) {
+                        continue;
+                    }
+                    relatorio.linhas++;
+                    ImportarClienteRequestDto dto = null;
+                    try {
+                        dto = formato == FormatoImportacao.CSV ? lerCsv(texto, colunas) : lerNdjson(texto);
+                        bloco.add(new LinhaImportacao(numeroLinha, validar(dto)));
+                    } catch (ValidacaoException e) {
+                        relatorio.rejeitar(numeroLinha, Objects.isNull(dto) ? null : dto.getDocumento(), e.getMessage());
+                    }
+                    if (bloco.size() == tamanhoBloco) {
+                        gravar(bloco, relatorio);
+                        bloco.clear();
+                    }
+                }
+                gravar(bloco, relatorio);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            log.info("Importacao de clientes: {} linhas, {} importados, {} rejeitados",
+                    relatorio.linhas, relatorio.importados, relatorio.rejeitados);
+            return relatorio.resposta();
+        });
+    }
+
+    private void gravar(List<LinhaImportacao> bloco, Relatorio relatorio) {
+        if (bloco.isEmpty()) {
+            return;
+        }
+        //Repetidos no proprio bloco e ja gravados (inclusive por blocos anteriores do arquivo)
+        var existentes = new HashSet<>(jdbcTemplate.queryForList(SQL_DOCUMENTOS_EXISTENTES,
+                Map.of("documentos", bloco.stream().map(linha -> linha.cliente.documento).toList()), String.class));
+        List<LinhaImportacao> novas = new ArrayList<>(bloco.size());
+        for (var linha : bloco) {
+            if (!existentes.add(linha.cliente.documento)) {
+                relatorio.rejeitar(linha.numero, linha.cliente.documento, "Cliente já cadastrado!");
+            } else {
+                novas.add(linha);
+            }
+        }
+        if (novas.isEmpty()) {
+            return;
+        }
+
+        try {
+            inserir(novas);
+            relatorio.importados += novas.size();
+        } catch (DataIntegrityViolationException e) {
+            //Outro cadastro gravou o mesmo documento no meio do caminho: refaz linha a linha
+            log.debug("Bloco de importacao com conflito, gravando linha a linha", e);
+            for (var linha : novas) {
+                try {
+                    inserir(List.of(linha));
+                    relatorio.importados++;
+                } catch (DataIntegrityViolationException conflito) {
+                    relatorio.rejeitar(linha.numero, linha.cliente.documento, "Cliente já cadastrado!");
+                }
+            }
+        }
+    }
+
+    private void inserir(List<LinhaImportacao> linhas) {
+        var hoje = LocalDate.now();
+        List<Object[]> clientes = new ArrayList<>(linhas.size());
+        List<Object[]> contas = new ArrayList<>(linhas.size());
+        for (int i = 0; i < linhas.size(); i++) {
+            var cliente = linhas.get(i).cliente;
+            var idCliente = UUID.randomUUID();
+            clientes.add(new Object[]{idCliente, cliente.documento, cliente.nome, cliente.dataNascimento,
+                    StatusCliente.ATIVO.name(), cliente.tipo.name(), hoje});
+            contas.add(new Object[]{UUID.randomUUID(), alocadorNumeroConta.proximo(), Dinheiro.ZERO.toBigDecimal(),
+                    TipoConta.CONTA_CORRENTE.name(), idCliente, hoje});
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.getJdbcTemplate().batchUpdate(SQL_INSERIR_CLIENTE, clientes);
+            jdbcTemplate.getJdbcTemplate().batchUpdate(SQL_INSERIR_CONTA, contas);
+        });
+    }
+
+    private ClienteImportado validar(ImportarClienteRequestDto dto) {
+        TipoCliente tipo;
+        try {
+            tipo = TipoCliente.valueOf(Objects.requireNonNullElse(dto.getTipo(), "").trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ValidacaoException("Tipo de cliente inválido!");
+        }
+        var documento = Objects.requireNonNullElse(dto.getDocumento(), "").trim();
+        if (!DOCUMENTO.matcher(documento).matches()) {
+            throw new ValidacaoException("Documento inválido!");
+        }
+        var nome = Objects.requireNonNullElse(dto.getNome(), "").trim();
+        if (nome.isEmpty()) {
+            throw new ValidacaoException("Nome obrigatório!");
+        }
+        var dataNascimento = tipo == TipoCliente.PF ? dto.getDataNascimento() : null;
+        return new ClienteImportado(tipo, documento, nome, dataNascimento);
+    }
+
+    private ImportarClienteRequestDto lerNdjson(String texto) {
+        try {
+            return objectMapper.readValue(texto, ImportarClienteRequestDto.class);
+        } catch (JsonProcessingException e) {
+            throw new ValidacaoException("Linha JSON inválida!");
+        }
+    }
+
+    private static Map<String, Integer> lerCabecalho(String cabecalho) {
+        if (Objects.isNull(cabecalho)) {
+            throw new ValidacaoException("Arquivo CSV sem cabeçalho!");
+        }
+        var nomes = separarCsv(cabecalho.replace("\uFEFF", ""));
+        Map<String, Integer> colunas = new HashMap<>();
+        for (int i = 0; i < nomes.size(); i++) {
+            colunas.put(nomes.get(i).trim(), i);
+        }
+        if (!colunas.keySet().containsAll(COLUNAS_CSV.subList(0, 3))) {
+            throw new ValidacaoException("Cabeçalho CSV deve conter " + String.join(",", COLUNAS_CSV) + "!");
+        }
+        return colunas;
+    }
+
+    private static ImportarClienteRequestDto lerCsv(String texto, Map<String, Integer> colunas) {
+        var valores = separarCsv(texto);
+        var dto = ImportarClienteRequestDto.builder()
+                .tipo(coluna(valores, colunas, "tipo"))
+                .documento(coluna(valores, colunas, "documento"))
+                .nome(coluna(valores, colunas, "nome"))
+                .build();
+        var dataNascimento = coluna(valores, colunas, "dataNascimento");
+        if (Objects.nonNull(dataNascimento) && !dataNascimento.isBlank()) {
+            try {
+                dto.setDataNascimento(LocalDate.parse(dataNascimento.trim()));
+            } catch (DateTimeParseException e) {
+                throw new ValidacaoException("Data de nascimento inválida!");
+            }
+        }
+        return dto;
+    }
+
+    private static String coluna(List<String> valores, Map<String, Integer> colunas, String nome) {
+        var indice = colunas.get(nome);
+        return Objects.isNull(indice) || indice >= valores.size() ? null : valores.get(indice);
+    }
+
+    //CSV de uma linha por registro: virgula separa, aspas duplas protegem virgulas e "" escapa aspas
+    static List<String> separarCsv(String linha) {
+        List<String> valores = new ArrayList<>();
+        var atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreAspas = false;
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == ',') {
+                valores.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        valores.add(atual.toString());
+        return valores;
+    }
+
+    private static final class ClienteImportado {
+        private final TipoCliente tipo;
+        private final String documento;
+        private final String nome;
+        private final LocalDate dataNascimento;
+
+        private ClienteImportado(TipoCliente tipo, String documento, String nome, LocalDate dataNascimento) {
+            this.tipo = tipo;
+            this.documento = documento;
+            this.nome = nome;
+            this.dataNascimento = dataNascimento;
+        }
+    }
+
+    private static final class LinhaImportacao {
+        private final long numero;
+        private final ClienteImportado cliente;
+
+        private LinhaImportacao(long numero, ClienteImportado cliente) {
+            this.numero = numero;
+            this.cliente = cliente;
+        }
+    }
+
+    private final class Relatorio {
+        private long linhas;
+        private long importados;
+        private long rejeitados;
+        private final List<ErroImportacaoResponseDto> erros = new ArrayList<>();
+
+        private void rejeitar(long linha, String documento, String erro) {
+            rejeitados++;
+            if (erros.size() < maximoErros) {
+                erros.add(new ErroImportacaoResponseDto(linha, documento, erro));
+            }
+        }
+
+        private ImportacaoClientesResponseDto resposta() {
+            return ImportacaoClientesResponseDto.builder()
+                    .linhas(linhas)
+                    .importados(importados)
+                    .rejeitados(rejeitados)
+                    .erros(erros)
+                    .errosOmitidos(rejeitados - erros.size())
+                    .build();
+        }
+    }
+
+}
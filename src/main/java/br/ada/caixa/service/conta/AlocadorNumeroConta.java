@@ -0,0 +1,84 @@
+package br.ada.caixa.service.conta;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Numeros de conta em blocos (hi/lo no formato pooled): cada valor da sequence
+ * conta_numero_seq reserva os numeros [valor, valor + incremento) para esta
+ * instancia, entao varias instancias nunca repetem numero. Dentro do bloco o
+ * numero sai de um AtomicLong, sem lock e sem ir ao banco; so a troca de bloco
+ * e serializada. O tamanho do bloco vem de caixa.conta.bloco-numeros e e aplicado
+ * como incremento da sequence na subida: todas as instancias precisam do mesmo valor.
+ */
+@Slf4j
+@Component
+public class AlocadorNumeroConta implements InitializingBean {
+
+    private static final String SQL_INCREMENTO = "alter sequence conta_numero_seq increment by ";
+    private static final String SQL_PROXIMO_BLOCO = "select next value for conta_numero_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicReference<Bloco> blocoAtual = new AtomicReference<>(new Bloco(0, 0));
+    private final ReentrantLock trocaBloco = new ReentrantLock();
+    private final long tamanhoBloco;
+
+    public AlocadorNumeroConta(JdbcTemplate jdbcTemplate,
+                               @Value("${caixa.conta.bloco-numeros:100}") long tamanhoBloco) {
+        if (tamanhoBloco < 1) {
+            throw new IllegalArgumentException("caixa.conta.bloco-numeros deve ser positivo: " + tamanhoBloco);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.tamanhoBloco = tamanhoBloco;
+    }
+
+    //Na subida e nao na troca de bloco: DDL no meio de uma transacao de cadastro faria commit dela
+    @Override
+    public void afterPropertiesSet() {
+        jdbcTemplate.execute(SQL_INCREMENTO + tamanhoBloco);
+    }
+
+    public long proximo() {
+        while (true) {
+            var bloco = blocoAtual.get();
+            long numero = bloco.proximo.getAndIncrement();
+            if (numero < bloco.fim) {
+                return numero;
+            }
+            reservarBloco(bloco);
+        }
+    }
+
+    private void reservarBloco(Bloco esgotado) {
+        trocaBloco.lock();
+        try {
+            //Outra thread pode ter trocado o bloco enquanto esta esperava o lock
+            if (blocoAtual.get() != esgotado) {
+                return;
+            }
+            long inicio = jdbcTemplate.queryForObject(SQL_PROXIMO_BLOCO, Long.class);
+            blocoAtual.set(new Bloco(inicio, inicio + tamanhoBloco));
+            log.debug("Reservado bloco de numeros de conta [{}, {})", inicio, inicio + tamanhoBloco);
+        } finally {
+            trocaBloco.unlock();
+        }
+    }
+
+    private static final class Bloco {
+        private final AtomicLong proximo;
+        private final long fim;
+
+        private Bloco(long inicio, long fim) {
+            this.proximo = new AtomicLong(inicio);
+            this.fim = fim;
+        }
+    }
+
+}
@@ -1,14 +1,15 @@
 package br.ada.caixa.service.conta;
 
 import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
 import br.ada.caixa.entity.TipoConta;
 import br.ada.caixa.exceptions.ValidacaoException;
 import br.ada.caixa.respository.ClienteRepository;
 import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.service.metricas.MetricasOperacoes;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 
 @Service
 @RequiredArgsConstructor
@@ -16,18 +17,22 @@ public class ContaService {
 
     private final ContaRepository contaRepository;
     private final ClienteRepository clienteRepository;
+    private final MetricasOperacoes metricasOperacoes;
+    private final AlocadorNumeroConta alocadorNumeroConta;
 
     public Conta abrirContaPoupanca(String cpf) {
         //Regra: cliente PJ nao pode ter conta poupanca
-        return clienteRepository.findByDocumento(cpf)
+        return metricasOperacoes.medir("abrir_conta", medicao -> clienteRepository.findByDocumento(cpf)
                 .map(clientePF -> {
+                    medicao.tipoCliente(clientePF.getTipo()).tipoConta(TipoConta.CONTA_POUPANCA);
                     var contaPoupanca = new Conta();
+                    contaPoupanca.setNumero(alocadorNumeroConta.proximo());
                     contaPoupanca.setTipo(TipoConta.CONTA_POUPANCA);
                     contaPoupanca.setCliente(clientePF);
-                    contaPoupanca.setSaldo(BigDecimal.ZERO);
+                    contaPoupanca.setSaldo(Dinheiro.ZERO);
                     return contaRepository.save(contaPoupanca);
                 })
-                .orElseThrow(() -> new ValidacaoException("Cliente nao encontrado com o CPF informado!"));
+                .orElseThrow(() -> new ValidacaoException("Cliente nao encontrado com o CPF informado!")));
     }
 
 }
@@ -0,0 +1,147 @@
+package br.ada.caixa.service.metricas;
+
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.exceptions.ValidacaoException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Timer, contagem e valor movimentado de cada operacao bancaria, com tags de operacao,
+ * tipo de cliente, tipo de conta e resultado. O motivo de uma ValidacaoException vira tag,
+ * o que e seguro porque todas as mensagens da aplicacao sao constantes.
+ */
+@Component
+public class MetricasOperacoes {
+
+    public static final String TIMER = "caixa.operacoes";
+    public static final String VALOR = "caixa.operacoes.valor";
+    static final String NAO_INFORMADO = "NA";
+
+    private final MeterRegistry meterRegistry;
+
+    public MetricasOperacoes(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Medicao iniciar(String operacao) {
+        return new Medicao(operacao, Timer.start(meterRegistry));
+    }
+
+    public <T> T medir(String operacao, Function<Medicao, T> acao) {
+        var medicao = iniciar(operacao);
+        try {
+            T resultado = acao.apply(medicao);
+            medicao.finalizar("sucesso", NAO_INFORMADO);
+            return resultado;
+        } catch (RuntimeException e) {
+            finalizarComErro(medicao, e);
+            throw e;
+        }
+    }
+
+    //Versoes reativas: o timer para quando o publisher termina, nao quando ele e montado
+    public <T> Mono<T> medirReativo(String operacao, Mono<T> acao) {
+        return Mono.defer(() -> {
+            var medicao = iniciar(operacao);
+            return acao.doOnSuccess(resultado -> medicao.finalizar("sucesso", NAO_INFORMADO))
+                    .doOnError(e -> finalizarComErro(medicao, e));
+        });
+    }
+
+    public <T> Flux<T> medirReativo(String operacao, Flux<T> acao) {
+        return Flux.defer(() -> {
+            var medicao = iniciar(operacao);
+            return acao.doOnComplete(() -> medicao.finalizar("sucesso", NAO_INFORMADO))
+                    .doOnError(e -> finalizarComErro(medicao, e));
+        });
+    }
+
+    public void medirSemResultado(String operacao, Consumer<Medicao> acao) {
+        medir(operacao, medicao -> {
+            acao.accept(medicao);
+            return null;
+        });
+    }
+
+    private static void finalizarComErro(Medicao medicao, Throwable e) {
+        if (e instanceof ValidacaoException) {
+            medicao.finalizar("validacao", motivo(e.getMessage()));
+        } else if (e instanceof ConcurrencyFailureException) {
+            medicao.finalizar("conflito", e.getClass().getSimpleName());
+        } else {
+            medicao.finalizar("erro", e.getClass().getSimpleName());
+        }
+    }
+
+    //"Conta inválida!" -> "conta_invalida"
+    static String motivo(String mensagem) {
+        if (Objects.isNull(mensagem)) {
+            return NAO_INFORMADO;
+        }
+        var semAcento = Normalizer.normalize(mensagem, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return semAcento.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_").replaceAll("^_|_$", "");
+    }
+
+    public final class Medicao {
+
+        private final String operacao;
+        private final Timer.Sample amostra;
+        private String tipoCliente = NAO_INFORMADO;
+        private String tipoConta = NAO_INFORMADO;
+        private Dinheiro valor;
+
+        private Medicao(String operacao, Timer.Sample amostra) {
+            this.operacao = operacao;
+            this.amostra = amostra;
+        }
+
+        public Medicao tipoCliente(TipoCliente tipoCliente) {
+            this.tipoCliente = Objects.isNull(tipoCliente) ? NAO_INFORMADO : tipoCliente.name();
+            return this;
+        }
+
+        public Medicao tipoConta(TipoConta tipoConta) {
+            this.tipoConta = Objects.isNull(tipoConta) ? NAO_INFORMADO : tipoConta.name();
+            return this;
+        }
+
+        public Medicao valor(Dinheiro valor) {
+            this.valor = valor;
+            return this;
+        }
+
+        private void finalizar(String resultado, String motivo) {
+            var tags = Tags.of("operacao", operacao,
+                    "tipoCliente", tipoCliente,
+                    "tipoConta", tipoConta,
+                    "resultado", resultado,
+                    "motivo", motivo);
+            amostra.stop(Timer.builder(TIMER)
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            if (Objects.nonNull(valor)) {
+                DistributionSummary.builder(VALOR)
+                        .baseUnit("reais")
+                        .tags(tags)
+                        .register(meterRegistry)
+                        .record(valor.toBigDecimal().doubleValue());
+            }
+        }
+    }
+
+}
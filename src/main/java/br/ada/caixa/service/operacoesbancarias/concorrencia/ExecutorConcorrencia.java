@@ -0,0 +1,101 @@
+package br.ada.caixa.service.operacoesbancarias.concorrencia;
+
+import br.ada.caixa.entity.Conta;
+import br.ada.caixa.respository.ContaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class ExecutorConcorrencia {
+
+    private final ContaRepository contaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ModoConcorrencia modo;
+    private final int maximoTentativas;
+    private final long backoffInicialMs;
+    private final long backoffMaximoMs;
+
+    public ExecutorConcorrencia(ContaRepository contaRepository,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${caixa.concorrencia.modo:ATOMICO}") ModoConcorrencia modo,
+                                @Value("${caixa.concorrencia.maximo-tentativas:5}") int maximoTentativas,
+                                @Value("${caixa.concorrencia.backoff-inicial-ms:5}") long backoffInicialMs,
+                                @Value("${caixa.concorrencia.backoff-maximo-ms:200}") long backoffMaximoMs) {
+        this.contaRepository = contaRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.modo = modo;
+        this.maximoTentativas = maximoTentativas;
+        this.backoffInicialMs = backoffInicialMs;
+        this.backoffMaximoMs = backoffMaximoMs;
+    }
+
+    public ModoConcorrencia getModo() {
+        return modo;
+    }
+
+    public boolean isAtomico() {
+        return modo == ModoConcorrencia.ATOMICO;
+    }
+
+    public Optional<Conta> carregarConta(Long numeroConta) {
+        return modo == ModoConcorrencia.OTIMISTA
+                ? contaRepository.findByNumero(numeroConta)
+                : contaRepository.findByNumeroForUpdate(numeroConta);
+    }
+
+    public void executarSemResultado(String operacao, Runnable acao) {
+        executar(operacao, () -> {
+            acao.run();
+            return null;
+        });
+    }
+
+    public <T> T executar(String operacao, Supplier<T> acao) {
+        //Dentro de uma transacao externa nao da para refazer, o conflito sobe para quem a abriu
+        if (modo != ModoConcorrencia.OTIMISTA || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactionTemplate.execute(status -> acao.get());
+        }
+
+        for (int tentativa = 1; ; tentativa++) {
+            meterRegistry.counter("caixa.concorrencia.tentativas", "operacao", operacao).increment();
+            try {
+                T resultado = transactionTemplate.execute(status -> acao.get());
+                meterRegistry.summary("caixa.concorrencia.retentativas", "operacao", operacao).record(tentativa - 1);
+                return resultado;
+            } catch (OptimisticLockingFailureException e) {
+                meterRegistry.counter("caixa.concorrencia.conflitos", "operacao", operacao).increment();
+                if (tentativa >= maximoTentativas) {
+                    meterRegistry.counter("caixa.concorrencia.esgotadas", "operacao", operacao).increment();
+                    log.warn("Operacao {} desistiu apos {} tentativas", operacao, tentativa);
+                    throw e;
+                }
+                aguardar(tentativa);
+            }
+        }
+    }
+
+    private void aguardar(int tentativa) {
+        //Backoff exponencial com jitter completo: espera aleatoria entre 0 e o teto da tentativa
+        long teto = Math.min(backoffMaximoMs, backoffInicialMs << Math.min(tentativa - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(teto + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando nova tentativa", e);
+        }
+    }
+
+}
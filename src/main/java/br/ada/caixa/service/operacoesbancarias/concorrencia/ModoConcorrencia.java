@@ -0,0 +1,12 @@
+package br.ada.caixa.service.operacoesbancarias.concorrencia;
+
+public enum ModoConcorrencia {
+
+    //Update condicionado direto no banco (saldo = saldo + :valor)
+    ATOMICO,
+    //Le a conta com SELECT ... FOR UPDATE e segura o lock ate o commit
+    PESSIMISTA,
+    //Le a conta sem lock e valida a @Version no commit, refazendo em caso de conflito
+    OTIMISTA
+
+}
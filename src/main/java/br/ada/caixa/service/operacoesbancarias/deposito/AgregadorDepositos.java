@@ -0,0 +1,175 @@
+package br.ada.caixa.service.operacoesbancarias.deposito;
+
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.exceptions.ValidacaoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+/**
+ * Junta depositos concorrentes na mesma conta em um unico update de saldo e um
+ * unico commit. O primeiro deposito de uma conta abre o lote e espera a janela;
+ * quem chega nesse intervalo entra no lote e espera o resultado dele. O lote roda
+ * na thread de quem o abriu, ao fim da janela ou assim que atinge o maximo de
+ * depositos. Cada deposito continua com o proprio lancamento, e se o lote falhar
+ * cada um e refeito sozinho para que cada chamador receba o proprio resultado.
+ */
+class AgregadorDepositos {
+
+    private final ConcurrentHashMap<Long, Lote> abertos = new ConcurrentHashMap<>();
+    private final BiConsumer<Long, List<Dinheiro>> creditar;
+    private final long janelaNanos;
+    private final int maximoLote;
+    private final DistributionSummary tamanhoLote;
+    private final Counter refeitos;
+
+    AgregadorDepositos(BiConsumer<Long, List<Dinheiro>> creditar,
+                       MeterRegistry meterRegistry,
+                       long janelaMicros,
+                       int maximoLote) {
+        this.creditar = creditar;
+        this.janelaNanos = TimeUnit.MICROSECONDS.toNanos(janelaMicros);
+        this.maximoLote = Math.max(1, maximoLote);
+        //count = commits, total = depositos: total/count e o fator de agregacao
+        this.tamanhoLote = DistributionSummary.builder("caixa.deposito.agregacao.lote")
+                .baseUnit("depositos")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.refeitos = meterRegistry.counter("caixa.deposito.agregacao.refeitos");
+    }
+
+    void depositar(Long numeroConta, Dinheiro valor) {
+        var pedido = new Pedido(valor);
+        Lote lote;
+        boolean lider;
+        while (true) {
+            var novo = new Lote(Thread.currentThread());
+            lote = abertos.computeIfAbsent(numeroConta, numero -> novo);
+            lider = lote == novo;
+            if (lote.adicionar(pedido, maximoLote)) {
+                break;
+            }
+            //Lote cheio que ainda nao saiu do mapa: tira e tenta de novo
+            abertos.remove(numeroConta, lote);
+        }
+
+        if (lote.isFechado()) {
+            abertos.remove(numeroConta, lote);
+            if (!lider) {
+                LockSupport.unpark(lote.lider);
+            }
+        }
+        if (lider) {
+            aguardarJanela(lote);
+            abertos.remove(numeroConta, lote);
+            executar(numeroConta, lote.fechar());
+        }
+        aguardar(pedido);
+    }
+
+    private void aguardarJanela(Lote lote) {
+        var prazo = System.nanoTime() + janelaNanos;
+        long restante;
+        while (!lote.isFechado() && (restante = prazo - System.nanoTime()) > 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            LockSupport.parkNanos(lote, restante);
+        }
+    }
+
+    private void executar(Long numeroConta, List<Pedido> pedidos) {
+        try {
+            creditar.accept(numeroConta, pedidos.stream().map(Pedido::getValor).toList());
+            tamanhoLote.record(pedidos.size());
+            pedidos.forEach(pedido -> pedido.resultado.complete(null));
+        } catch (ValidacaoException e) {
+            //Conta invalida vale para todos os depositos do lote
+            pedidos.forEach(pedido -> pedido.resultado.completeExceptionally(e));
+        } catch (RuntimeException e) {
+            if (pedidos.size() > 1) {
+                refeitos.increment(pedidos.size());
+                pedidos.forEach(pedido -> executarSozinho(numeroConta, pedido));
+            } else {
+                pedidos.get(0).resultado.completeExceptionally(e);
+            }
+        } finally {
+            //Nenhum chamador fica esperando para sempre, nem com Error no meio do lote
+            pedidos.forEach(pedido -> pedido.resultado.completeExceptionally(
+                    new IllegalStateException("Lote de depositos interrompido")));
+        }
+    }
+
+    private void executarSozinho(Long numeroConta, Pedido pedido) {
+        try {
+            creditar.accept(numeroConta, List.of(pedido.valor));
+            tamanhoLote.record(1);
+            pedido.resultado.complete(null);
+        } catch (RuntimeException e) {
+            pedido.resultado.completeExceptionally(e);
+        }
+    }
+
+    private static void aguardar(Pedido pedido) {
+        try {
+            pedido.resultado.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class Pedido {
+        private final Dinheiro valor;
+        private final CompletableFuture<Void> resultado = new CompletableFuture<>();
+
+        private Pedido(Dinheiro valor) {
+            this.valor = valor;
+        }
+
+        private Dinheiro getValor() {
+            return valor;
+        }
+    }
+
+    private static final class Lote {
+        private final Thread lider;
+        private final List<Pedido> pedidos = new ArrayList<>();
+        private boolean fechado;
+
+        private Lote(Thread lider) {
+            this.lider = lider;
+        }
+
+        //Fecha sozinho ao atingir o maximo; false se ja estava fechado
+        private synchronized boolean adicionar(Pedido pedido, int maximo) {
+            if (fechado) {
+                return false;
+            }
+            pedidos.add(pedido);
+            fechado = pedidos.size() >= maximo;
+            return true;
+        }
+
+        private synchronized boolean isFechado() {
+            return fechado;
+        }
+
+        private synchronized List<Pedido> fechar() {
+            fechado = true;
+            return pedidos;
+        }
+    }
+
+}
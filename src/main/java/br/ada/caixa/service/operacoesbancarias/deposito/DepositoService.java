@@ -1,26 +1,94 @@
 package br.ada.caixa.service.operacoesbancarias.deposito;
 
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoLancamento;
 import br.ada.caixa.exceptions.ValidacaoException;
 import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.service.metricas.MetricasOperacoes;
+import br.ada.caixa.service.operacoesbancarias.concorrencia.ExecutorConcorrencia;
+import br.ada.caixa.service.operacoesbancarias.lancamento.LancamentoService;
+import br.ada.caixa.service.operacoesbancarias.memoria.MotorContasMemoria;
+import br.ada.caixa.service.operacoesbancarias.saldo.SaldoCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
 
 @Service
 public class DepositoService {
 
     private final ContaRepository contaRepository;
+    private final ExecutorConcorrencia executorConcorrencia;
+    private final MotorContasMemoria motorContasMemoria;
+    private final LancamentoService lancamentoService;
+    private final SaldoCache saldoCache;
+    private final MetricasOperacoes metricasOperacoes;
+    private final AgregadorDepositos agregadorDepositos;
 
-    public DepositoService(ContaRepository contaRepository) {
+    public DepositoService(ContaRepository contaRepository,
+                           ExecutorConcorrencia executorConcorrencia,
+                           MotorContasMemoria motorContasMemoria,
+                           LancamentoService lancamentoService,
+                           SaldoCache saldoCache,
+                           MetricasOperacoes metricasOperacoes,
+                           MeterRegistry meterRegistry,
+                           @Value("${caixa.deposito.agregacao.habilitado:false}") boolean agregacaoHabilitada,
+                           @Value("${caixa.deposito.agregacao.janela-us:200}") long janelaAgregacaoMicros,
+                           @Value("${caixa.deposito.agregacao.maximo-lote:100}") int maximoLoteAgregacao) {
         this.contaRepository = contaRepository;
+        this.executorConcorrencia = executorConcorrencia;
+        this.motorContasMemoria = motorContasMemoria;
+        this.lancamentoService = lancamentoService;
+        this.saldoCache = saldoCache;
+        this.metricasOperacoes = metricasOperacoes;
+        this.agregadorDepositos = agregacaoHabilitada
+                ? new AgregadorDepositos(this::creditar, meterRegistry, janelaAgregacaoMicros, maximoLoteAgregacao)
+                : null;
     }
 
-    public void depositar(Long numeroConta, BigDecimal valor) {
-        contaRepository.findByNumero(numeroConta)
-                .ifPresentOrElse(conta -> {
-                    conta.setSaldo(conta.getSaldo().add(valor));
-                    contaRepository.save(conta);
-                }, () -> { throw new ValidacaoException("Conta inválida!"); });
+    public void depositar(Long numeroConta, Dinheiro valor) {
+        metricasOperacoes.medirSemResultado("deposito", medicao -> {
+            medicao.valor(valor);
+            executarDeposito(numeroConta, valor);
+        });
+    }
+
+    private void executarDeposito(Long numeroConta, Dinheiro valor) {
+        if (motorContasMemoria.isHabilitado()) {
+            motorContasMemoria.depositar(numeroConta, valor);
+            lancamentoService.registrar(numeroConta, TipoLancamento.DEPOSITO, valor);
+            return;
+        }
+        //Dentro de uma transacao externa o deposito tem que ficar nela, nao no commit de um lote
+        if (Objects.nonNull(agregadorDepositos) && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            agregadorDepositos.depositar(numeroConta, valor);
+            return;
+        }
+        creditar(numeroConta, List.of(valor));
+    }
+
+    //Um update de saldo e um commit para todos os valores, com um lancamento por valor
+    private void creditar(Long numeroConta, List<Dinheiro> valores) {
+        var total = valores.stream().reduce(Dinheiro.ZERO, Dinheiro::somar);
+        executorConcorrencia.executarSemResultado("deposito", () -> {
+            if (executorConcorrencia.isAtomico()) {
+                if (contaRepository.creditar(numeroConta, total.toBigDecimal()) == 0) {
+                    throw new ValidacaoException("Conta inválida!");
+                }
+            } else {
+                var conta = executorConcorrencia.carregarConta(numeroConta)
+                        .orElseThrow(() -> new ValidacaoException("Conta inválida!"));
+                conta.setSaldo(conta.getSaldo().somar(total));
+                contaRepository.saveAndFlush(conta);
+            }
+            lancamentoService.registrarTodos(valores.stream()
+                    .map(valor -> LancamentoService.credito(numeroConta, TipoLancamento.DEPOSITO, valor))
+                    .toList());
+            saldoCache.invalidar(numeroConta);
+        });
     }
 
 }
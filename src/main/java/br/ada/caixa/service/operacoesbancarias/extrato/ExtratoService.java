@@ -0,0 +1,130 @@
+package br.ada.caixa.service.operacoesbancarias.extrato;
+
+import br.ada.caixa.dto.response.ExtratoItemResponseDto;
+import br.ada.caixa.dto.response.PaginaResponseDto;
+import br.ada.caixa.exceptions.ValidacaoException;
+import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.respository.LancamentoRepository;
+import br.ada.caixa.service.metricas.MetricasOperacoes;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Extrato da conta a partir dos lancamentos, em ordem cronologica. O periodo
+ * e por dia (de/ate inclusivos); a paginacao e por chave (dataHora, id), entao
+ * cada pagina custa uma busca no indice, nao importa quantos lancamentos a conta tenha.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExtratoService {
+
+    private static final int LIMITE_MAXIMO_PAGINA = 1000;
+    private static final LocalDate PRIMEIRO_DIA = LocalDate.of(2000, 1, 1);
+    private static final long ANTES_DO_PRIMEIRO_ID = Long.MIN_VALUE;
+
+    private final LancamentoRepository lancamentoRepository;
+    private final ContaRepository contaRepository;
+    private final MetricasOperacoes metricasOperacoes;
+
+    public PaginaResponseDto<ExtratoItemResponseDto> listarPagina(Long numeroConta, LocalDate de, LocalDate ate,
+                                                                  String cursor, int limite) {
+        return metricasOperacoes.medir("extrato", medicao -> {
+            if (limite < 1 || limite > LIMITE_MAXIMO_PAGINA) {
+                throw new ValidacaoException("Limite deve estar entre 1 e " + LIMITE_MAXIMO_PAGINA + "!");
+            }
+            validarConta(numeroConta);
+            var periodo = new Periodo(de, ate);
+            var inicio = periodo.inicio;
+            var depoisDoId = ANTES_DO_PRIMEIRO_ID;
+            if (Objects.nonNull(cursor) && !cursor.isEmpty()) {
+                //Cursor de antes do periodo (outro filtro) nao restringe nada
+                var posicao = decodificarCursor(cursor);
+                if (!posicao.dataHora.isBefore(inicio)) {
+                    inicio = posicao.dataHora;
+                    depoisDoId = posicao.id;
+                }
+            }
+
+            List<ExtratoItemResponseDto> itens = lancamentoRepository.listarExtrato(numeroConta, inicio, periodo.fim,
+                    depoisDoId, PageRequest.of(0, limite));
+            var proximoCursor = itens.size() < limite ? null : codificarCursor(itens.get(itens.size() - 1));
+            return PaginaResponseDto.<ExtratoItemResponseDto>builder()
+                    .itens(itens)
+                    .proximoCursor(proximoCursor)
+                    .build();
+        });
+    }
+
+    //Chamado antes de abrir a resposta em streaming, enquanto ainda da para devolver 400
+    public void validar(Long numeroConta, LocalDate de, LocalDate ate) {
+        validarConta(numeroConta);
+        new Periodo(de, ate);
+    }
+
+    //Cursor do banco com fetch size: so os lancamentos em transito ficam em memoria
+    @Transactional(readOnly = true)
+    public void transmitir(Long numeroConta, LocalDate de, LocalDate ate, Consumer<ExtratoItemResponseDto> consumidor) {
+        var periodo = new Periodo(de, ate);
+        try (var itens = lancamentoRepository.transmitirExtrato(numeroConta, periodo.inicio, periodo.fim)) {
+            itens.forEach(consumidor);
+        }
+    }
+
+    private void validarConta(Long numeroConta) {
+        if (Objects.isNull(numeroConta) || contaRepository.findSaldoByNumero(numeroConta).isEmpty()) {
+            throw new ValidacaoException("Conta inexistente!");
+        }
+    }
+
+    //"2024-01-10T12:00:00.123|42", sem padding
+    private static String codificarCursor(ExtratoItemResponseDto ultimo) {
+        var posicao = ultimo.getDataHora() + "|" + ultimo.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(posicao.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Posicao decodificarCursor(String cursor) {
+        try {
+            var partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            return new Posicao(LocalDateTime.parse(partes[0]), Long.parseLong(partes[1]));
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new ValidacaoException("Cursor inválido!");
+        }
+    }
+
+    private static final class Periodo {
+        private final LocalDateTime inicio;
+        private final LocalDateTime fim;
+
+        private Periodo(LocalDate de, LocalDate ate) {
+            var primeiroDia = Objects.requireNonNullElse(de, PRIMEIRO_DIA);
+            var ultimoDia = Objects.requireNonNullElse(ate, LocalDate.now());
+            if (ultimoDia.isBefore(primeiroDia)) {
+                throw new ValidacaoException("Período inválido!");
+            }
+            this.inicio = primeiroDia.atStartOfDay();
+            this.fim = ultimoDia.plusDays(1).atStartOfDay();
+        }
+    }
+
+    private static final class Posicao {
+        private final LocalDateTime dataHora;
+        private final long id;
+
+        private Posicao(LocalDateTime dataHora, long id) {
+            this.dataHora = dataHora;
+            this.id = id;
+        }
+    }
+
+}
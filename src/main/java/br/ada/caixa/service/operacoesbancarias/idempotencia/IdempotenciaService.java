@@ -0,0 +1,222 @@
+package br.ada.caixa.service.operacoesbancarias.idempotencia;
+
+import br.ada.caixa.entity.OperacaoIdempotente;
+import br.ada.caixa.exceptions.OperacaoEmAndamentoException;
+import br.ada.caixa.exceptions.ValidacaoException;
+import br.ada.caixa.respository.OperacaoIdempotenteRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicacao das operacoes pelo cabecalho Idempotency-Key. A chave e reservada
+ * com um insert em uma transacao curta, que commita antes da acao: a acao roda
+ * com as proprias transacoes (retentativas do modo OTIMISTA, agregacao de
+ * depositos) e a resposta e gravada depois, em outra. Uma segunda requisicao com
+ * a mesma chave recebe a resposta gravada ou, se a primeira ainda roda, 409.
+ * Reserva sem resposta por mais de reserva-segundos (processo que caiu no meio)
+ * pode ser assumida por uma repeticao. Chaves ja conhecidas saem do cache em
+ * memoria, sem ir ao banco nem abrir transacao.
+ */
+@Slf4j
+@Service
+public class IdempotenciaService {
+
+    public static final String CABECALHO = "Idempotency-Key";
+    public static final String CABECALHO_REPETIDA = "Idempotent-Replayed";
+    private static final int TAMANHO_MAXIMO_CHAVE = 100;
+    //Reserva ainda sem resposta: nenhum status HTTP vale 0
+    private static final int STATUS_EM_PROCESSAMENTO = 0;
+
+    private final OperacaoIdempotenteRepository operacaoIdempotenteRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, RespostaArmazenada> cache;
+    private final long retencaoHoras;
+    private final long reservaSegundos;
+
+    public IdempotenciaService(OperacaoIdempotenteRepository operacaoIdempotenteRepository,
+                               TransactionTemplate transactionTemplate,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${caixa.idempotencia.cache.tamanho-maximo:100000}") long tamanhoMaximo,
+                               @Value("${caixa.idempotencia.cache.ttl-segundos:600}") long ttlSegundos,
+                               @Value("${caixa.idempotencia.retencao-horas:24}") long retencaoHoras,
+                               @Value("${caixa.idempotencia.reserva-segundos:120}") long reservaSegundos) {
+        this.operacaoIdempotenteRepository = operacaoIdempotenteRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.retencaoHoras = retencaoHoras;
+        this.reservaSegundos = reservaSegundos;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotencia");
+    }
+
+    /**
+     * Executa a acao uma unica vez por chave. Sem chave a acao roda normalmente;
+     * se a acao falhar a reserva e apagada e a mesma chave pode ser usada de novo.
+     */
+    public <T> ResponseEntity<T> executar(String chave,
+                                          String operacao,
+                                          Object requisicao,
+                                          TypeReference<T> tipoCorpo,
+                                          Supplier<ResponseEntity<T>> acao) {
+        if (chave == null) {
+            return acao.get();
+        }
+        validar(chave);
+        var hashRequisicao = hash(operacao, requisicao);
+
+        //Caminho rapido: leitura sem lock no cache
+        var armazenada = cache.getIfPresent(chave);
+        if (armazenada != null) {
+            return repetir(operacao, armazenada, hashRequisicao, tipoCorpo);
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> operacaoIdempotenteRepository.saveAndFlush(
+                    novoRegistro(chave, operacao, hashRequisicao)));
+        } catch (DataIntegrityViolationException e) {
+            //Chave ja gravada por outra requisicao: o insert esperou ela commitar
+            var gravada = operacaoIdempotenteRepository.findById(chave).orElseThrow(() -> e);
+            if (gravada.getStatus() != STATUS_EM_PROCESSAMENTO) {
+                return repetirGravada(chave, operacao, gravada, hashRequisicao, tipoCorpo);
+            }
+            assumirReservaVencida(chave, gravada, hashRequisicao);
+        }
+
+        ResponseEntity<T> resposta;
+        try {
+            resposta = acao.get();
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> operacaoIdempotenteRepository.deleteById(chave));
+            throw e;
+        }
+
+        var gravada = new RespostaArmazenada(hashRequisicao, resposta.getStatusCodeValue(),
+                resposta.hasBody() ? serializar(resposta.getBody()) : null);
+        transactionTemplate.executeWithoutResult(status -> {
+            var registro = operacaoIdempotenteRepository.findById(chave).orElseThrow();
+            registro.setStatus(gravada.getStatus());
+            registro.setCorpo(gravada.getCorpo());
+        });
+        cache.put(chave, gravada);
+        return resposta;
+    }
+
+    @Scheduled(fixedDelayString = "${caixa.idempotencia.intervalo-limpeza-ms:3600000}")
+    @Transactional
+    public void limpar() {
+        var removidas = operacaoIdempotenteRepository.removerAnterioresA(LocalDateTime.now().minusHours(retencaoHoras));
+        log.debug("Removidas {} chaves de idempotencia com mais de {} horas", removidas, retencaoHoras);
+    }
+
+    private static OperacaoIdempotente novoRegistro(String chave, String operacao, String hashRequisicao) {
+        return OperacaoIdempotente.builder()
+                .chave(chave)
+                .operacao(operacao)
+                .hashRequisicao(hashRequisicao)
+                .status(STATUS_EM_PROCESSAMENTO)
+                .dataHora(LocalDateTime.now())
+                .build();
+    }
+
+    private static void validar(String chave) {
+        if (chave.isBlank() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new ValidacaoException("Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres!");
+        }
+    }
+
+    //Reserva de quem ainda roda da 409; vencida (processo caiu antes de gravar a resposta) e assumida
+    private void assumirReservaVencida(String chave, OperacaoIdempotente reserva, String hashRequisicao) {
+        if (!reserva.getHashRequisicao().equals(hashRequisicao)) {
+            throw new ValidacaoException("Idempotency-Key já usada em outra requisição!");
+        }
+        var agora = LocalDateTime.now();
+        var assumida = transactionTemplate.execute(status -> operacaoIdempotenteRepository
+                .assumirReservaVencida(chave, agora, agora.minusSeconds(reservaSegundos)));
+        if (assumida == null || assumida == 0) {
+            throw new OperacaoEmAndamentoException("Operação com esta Idempotency-Key ainda em processamento, tente novamente!");
+        }
+        log.warn("Reserva vencida da Idempotency-Key {} assumida para a operacao {}", chave, reserva.getOperacao());
+    }
+
+    private <T> ResponseEntity<T> repetirGravada(String chave, String operacao, OperacaoIdempotente gravada,
+                                                 String hashRequisicao, TypeReference<T> tipoCorpo) {
+        var armazenada = new RespostaArmazenada(gravada.getHashRequisicao(), gravada.getStatus(), gravada.getCorpo());
+        cache.put(chave, armazenada);
+        return repetir(operacao, armazenada, hashRequisicao, tipoCorpo);
+    }
+
+    private <T> ResponseEntity<T> repetir(String operacao, RespostaArmazenada armazenada, String hashRequisicao,
+                                          TypeReference<T> tipoCorpo) {
+        if (!armazenada.getHashRequisicao().equals(hashRequisicao)) {
+            throw new ValidacaoException("Idempotency-Key já usada em outra requisição!");
+        }
+        meterRegistry.counter("caixa.idempotencia.repeticoes", "operacao", operacao).increment();
+        try {
+            T corpo = armazenada.getCorpo() == null ? null : objectMapper.readValue(armazenada.getCorpo(), tipoCorpo);
+            return ResponseEntity.status(armazenada.getStatus())
+                    .header(CABECALHO_REPETIDA, "true")
+                    .body(corpo);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Resposta gravada invalida para a operacao " + operacao, e);
+        }
+    }
+
+    private String hash(String operacao, Object requisicao) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operacao.getBytes(StandardCharsets.UTF_8));
+            digest.update(objectMapper.writeValueAsBytes(requisicao));
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao calcular hash da requisicao", e);
+        }
+    }
+
+    private String serializar(Object corpo) {
+        try {
+            return objectMapper.writeValueAsString(corpo);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao gravar resposta idempotente", e);
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static final class RespostaArmazenada {
+        private final String hashRequisicao;
+        private final int status;
+        private final String corpo;
+    }
+
+}
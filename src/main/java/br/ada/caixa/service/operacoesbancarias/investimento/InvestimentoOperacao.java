@@ -1,11 +1,14 @@
 package br.ada.caixa.service.operacoesbancarias.investimento;
 
 import br.ada.caixa.entity.Conta;
-
-import java.math.BigDecimal;
+import br.ada.caixa.entity.Dinheiro;
 
 public interface InvestimentoOperacao {
 
-    void executar(Conta contaInvestimento, BigDecimal valor);
+    Dinheiro calcularValorInvestido(Dinheiro valor);
+
+    default void executar(Conta contaInvestimento, Dinheiro valor) {
+        contaInvestimento.setSaldo(contaInvestimento.getSaldo().somar(calcularValorInvestido(valor)));
+    }
 
 }
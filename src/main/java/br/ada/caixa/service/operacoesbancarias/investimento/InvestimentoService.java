@@ -2,17 +2,23 @@ package br.ada.caixa.service.operacoesbancarias.investimento;
 
 import br.ada.caixa.entity.Cliente;
 import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
 import br.ada.caixa.entity.TipoCliente;
 import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.entity.TipoLancamento;
 import br.ada.caixa.exceptions.ValidacaoException;
 import br.ada.caixa.respository.ClienteRepository;
 import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.service.conta.AlocadorNumeroConta;
+import br.ada.caixa.service.metricas.MetricasOperacoes;
+import br.ada.caixa.service.operacoesbancarias.concorrencia.ExecutorConcorrencia;
+import br.ada.caixa.service.operacoesbancarias.concorrencia.ModoConcorrencia;
+import br.ada.caixa.service.operacoesbancarias.lancamento.LancamentoService;
+import br.ada.caixa.service.operacoesbancarias.memoria.MotorContasMemoria;
+import br.ada.caixa.service.operacoesbancarias.saldo.SaldoCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
-import java.math.BigDecimal;
 
 @Service
 @RequiredArgsConstructor
@@ -25,19 +31,59 @@ public class InvestimentoService {
 
     private final ContaRepository contaRepository;
     private final ClienteRepository clienteRepository;
+    private final ExecutorConcorrencia executorConcorrencia;
+    private final MotorContasMemoria motorContasMemoria;
+    private final LancamentoService lancamentoService;
+    private final SaldoCache saldoCache;
+    private final MetricasOperacoes metricasOperacoes;
+    private final AlocadorNumeroConta alocadorNumeroConta;
+
+    public Conta investir(String documentoCliente, Dinheiro valor) {
+        return metricasOperacoes.medir("investimento", medicao -> {
+            medicao.valor(valor).tipoConta(TipoConta.CONTA_INVESTIMENTO);
+            return executarInvestimento(documentoCliente, valor, medicao);
+        });
+    }
 
-    public Conta investir(String documentoCliente, BigDecimal valor) {
-        var clienteOptional = clienteRepository.findByDocumento(documentoCliente);
-        var cliente = clienteOptional.orElseThrow(() -> new ValidacaoException("Cliente nao existe"));
-        var contaInvestimento = getSingleContaInvestimento(cliente);
-        getOperacaoTipoCliente(cliente).executar(contaInvestimento, valor);
-        return contaRepository.save(contaInvestimento);
+    private Conta executarInvestimento(String documentoCliente, Dinheiro valor, MetricasOperacoes.Medicao medicao) {
+        if (motorContasMemoria.isHabilitado()) {
+            return investirEmMemoria(documentoCliente, valor, medicao);
+        }
+        return executorConcorrencia.executar("investimento", () -> {
+            var clienteOptional = clienteRepository.findByDocumento(documentoCliente);
+            var cliente = clienteOptional.orElseThrow(() -> new ValidacaoException("Cliente nao existe"));
+            medicao.tipoCliente(cliente.getTipo());
+            var contaInvestimento = getSingleContaInvestimento(cliente);
+            var operacao = getOperacaoTipoCliente(cliente);
+            operacao.executar(contaInvestimento, valor);
+            contaInvestimento = contaRepository.saveAndFlush(contaInvestimento);
+            lancamentoService.registrar(contaInvestimento.getNumero(), TipoLancamento.INVESTIMENTO,
+                    operacao.calcularValorInvestido(valor));
+            saldoCache.invalidar(contaInvestimento.getNumero());
+            return contaInvestimento;
+        });
+    }
+
+    //Com o motor em memoria o banco so cria a conta, o saldo e do motor
+    private Conta investirEmMemoria(String documentoCliente, Dinheiro valor, MetricasOperacoes.Medicao medicao) {
+        var cliente = clienteRepository.findByDocumento(documentoCliente)
+                .orElseThrow(() -> new ValidacaoException("Cliente nao existe"));
+        medicao.tipoCliente(cliente.getTipo());
+        var contaInvestimento = executorConcorrencia.executar("investimento", () -> {
+            var conta = getSingleContaInvestimento(cliente);
+            return conta.getId() == null ? contaRepository.saveAndFlush(conta) : conta;
+        });
+        var valorInvestido = getOperacaoTipoCliente(cliente).calcularValorInvestido(valor);
+        contaInvestimento.setSaldo(motorContasMemoria.depositar(contaInvestimento.getNumero(), valorInvestido));
+        lancamentoService.registrar(contaInvestimento.getNumero(), TipoLancamento.INVESTIMENTO, valorInvestido);
+        return contaInvestimento;
     }
 
     private Conta getSingleContaInvestimento(final Cliente cliente) {
-        var contas =
-                contaRepository
-                        .findContasByClienteAndTipo(cliente, TipoConta.CONTA_INVESTIMENTO);
+        //Sem update atomico para investimento: fora do modo OTIMISTA a conta e lida com lock
+        var contas = executorConcorrencia.getModo() == ModoConcorrencia.OTIMISTA
+                ? contaRepository.findContasByClienteAndTipo(cliente, TipoConta.CONTA_INVESTIMENTO)
+                : contaRepository.findContasByClienteAndTipoForUpdate(cliente, TipoConta.CONTA_INVESTIMENTO);
 
         if (contas.size() > 1) {
             throw new ValidacaoException("Cliente possui mais de uma conta investimento");
@@ -45,9 +91,10 @@ public class InvestimentoService {
         Conta contaInvestimento;
         if (contas.isEmpty()) {
             contaInvestimento = new Conta();
+            contaInvestimento.setNumero(alocadorNumeroConta.proximo());
             contaInvestimento.setTipo(TipoConta.CONTA_INVESTIMENTO);
             contaInvestimento.setCliente(cliente);
-            contaInvestimento.setSaldo(BigDecimal.ZERO);
+            contaInvestimento.setSaldo(Dinheiro.ZERO);
         } else {
             contaInvestimento = contas.get(0);
         }
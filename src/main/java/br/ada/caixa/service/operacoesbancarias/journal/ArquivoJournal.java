@@ -0,0 +1,469 @@
+package br.ada.caixa.service.operacoesbancarias.journal;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal em segmentos de tamanho fixo mapeados em memoria. Os registros tambem
+ * tem tamanho fixo (sequencia, tipo, conta, centavos, instante e CRC32C), entao a
+ * recuperacao le os segmentos em ordem e para no primeiro registro invalido: uma
+ * escrita rasgada no fim ou paginas que nao chegaram ao disco antes da queda.
+ * O fsync roda em uma thread propria e cada fsync cobre tudo o que foi anexado
+ * desde o anterior (group commit); a politica diz se quem anexa espera por ele.
+ */
+@Slf4j
+public class ArquivoJournal implements Closeable {
+
+    public static final int TAMANHO_REGISTRO = 37;
+    //sequencia(8) tipo(1) conta(8) centavos(8) instante(8), seguidos do crc(4)
+    private static final int TAMANHO_DADOS = TAMANHO_REGISTRO - Integer.BYTES;
+    private static final String PREFIXO = "segmento-";
+    private static final String SUFIXO = ".journal";
+    private static final byte[] ZEROS = new byte[64 * 1024];
+
+    public enum TipoRegistro {
+        //Credito (positivo) ou debito (negativo) ja efetivado no saldo
+        MOVIMENTO(1),
+        //Descarta um MOVIMENTO_PENDENTE cuja transacao foi desfeita; no lugar da conta vai a sequencia dele
+        ESTORNO(2),
+        //Saldo absoluto da conta, gravado quando o journal comeca em um banco que ja tem saldos
+        SALDO(3),
+        //Movimento de uma transacao ainda aberta no banco: so entra no saldo com a CONFIRMACAO
+        MOVIMENTO_PENDENTE(4),
+        //A transacao do MOVIMENTO_PENDENTE commitou; no lugar da conta vai a sequencia dele
+        CONFIRMACAO(5);
+
+        private final byte codigo;
+
+        TipoRegistro(int codigo) {
+            this.codigo = (byte) codigo;
+        }
+
+        private static TipoRegistro deCodigo(byte codigo) {
+            for (var tipo : values()) {
+                if (tipo.codigo == codigo) {
+                    return tipo;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Path diretorio;
+    private final int tamanhoSegmento;
+    private final PoliticaFsync politica;
+    private final long intervaloFsyncMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pendente = lock.newCondition();
+    private final Condition duravel = lock.newCondition();
+    private final byte[] registro = new byte[TAMANHO_REGISTRO];
+    private final ByteBuffer escrita = ByteBuffer.wrap(registro);
+    private final CRC32C crc = new CRC32C();
+
+    private Map<Long, Long> saldosRecuperados = new HashMap<>();
+    private Map<Long, Movimento> movimentosPendentes = new HashMap<>();
+    private final long registrosRecuperados;
+
+    //Estado de escrita, sempre alterado com o lock
+    private Segmento atual;
+    private int posicao;
+    private int posicaoForcada;
+    private volatile long ultimaSequencia;
+    private volatile long sequenciaDuravel;
+    private boolean fechado;
+
+    private final Thread fsync;
+
+    public ArquivoJournal(Path diretorio, int tamanhoSegmento, PoliticaFsync politica, long intervaloFsyncMs) throws IOException {
+        if (tamanhoSegmento < TAMANHO_REGISTRO) {
+            throw new IllegalArgumentException("Segmento do journal menor que um registro: " + tamanhoSegmento);
+        }
+        this.diretorio = diretorio;
+        this.tamanhoSegmento = tamanhoSegmento - tamanhoSegmento % TAMANHO_REGISTRO;
+        this.politica = politica;
+        this.intervaloFsyncMs = intervaloFsyncMs;
+        Files.createDirectories(diretorio);
+        this.registrosRecuperados = recuperar();
+        this.sequenciaDuravel = ultimaSequencia;
+
+        if (politica == PoliticaFsync.SISTEMA_OPERACIONAL) {
+            this.fsync = null;
+        } else {
+            this.fsync = new Thread(this::executarFsync, "journal-fsync");
+            this.fsync.setDaemon(true);
+            this.fsync.start();
+        }
+    }
+
+    /**
+     * @return sequencia do registro, para esperar por ele em {@link #confirmar(long)}
+     */
+    public long anexar(TipoRegistro tipo, long numeroConta, long centavos) {
+        lock.lock();
+        try {
+            if (fechado) {
+                throw new IllegalStateException("Journal fechado");
+            }
+            if (posicao + TAMANHO_REGISTRO > atual.tamanho) {
+                rolar();
+            }
+            var sequencia = ultimaSequencia + 1;
+            escrita.putLong(0, sequencia)
+                    .put(8, tipo.codigo)
+                    .putLong(9, numeroConta)
+                    .putLong(17, centavos)
+                    .putLong(25, System.currentTimeMillis());
+            crc.reset();
+            crc.update(registro, 0, TAMANHO_DADOS);
+            escrita.putInt(TAMANHO_DADOS, (int) crc.getValue());
+            atual.buffer.put(posicao, registro);
+            posicao += TAMANHO_REGISTRO;
+            ultimaSequencia = sequencia;
+            pendente.signal();
+            return sequencia;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao criar segmento do journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Na politica SINCRONO espera o fsync que cobre a sequencia; nas outras retorna na hora
+    public void confirmar(long sequencia) {
+        if (politica != PoliticaFsync.SINCRONO || sequencia <= sequenciaDuravel) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (sequencia > sequenciaDuravel) {
+                duravel.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Espera pelo fsync do journal interrompida", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //fsync imediato de tudo o que ja foi anexado, independente da politica
+    public void sincronizar() {
+        Segmento segmento;
+        int inicio;
+        int fim;
+        long sequencia;
+        lock.lock();
+        try {
+            segmento = atual;
+            inicio = posicaoForcada;
+            fim = posicao;
+            sequencia = ultimaSequencia;
+        } finally {
+            lock.unlock();
+        }
+        if (sequencia <= sequenciaDuravel) {
+            return;
+        }
+        //Fora do lock: os registros continuam sendo anexados durante o fsync e entram no proximo
+        segmento.buffer.force(inicio, fim - inicio);
+        lock.lock();
+        try {
+            if (segmento == atual) {
+                posicaoForcada = Math.max(posicaoForcada, fim);
+            }
+            if (sequencia > sequenciaDuravel) {
+                sequenciaDuravel = sequencia;
+            }
+            duravel.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Saldo em centavos de cada conta presente no journal, calculado na abertura.
+     * Entregue uma unica vez, para nao segurar o mapa durante toda a execucao.
+     */
+    public Map<Long, Long> retirarSaldosRecuperados() {
+        var saldos = saldosRecuperados;
+        saldosRecuperados = Map.of();
+        return saldos;
+    }
+
+    /**
+     * Movimentos pendentes sem CONFIRMACAO nem ESTORNO, por sequencia: transacoes que
+     * estavam abertas quando o processo parou. Quem abre o journal decide pelo banco.
+     */
+    public Map<Long, Movimento> retirarMovimentosPendentes() {
+        var pendentes = movimentosPendentes;
+        movimentosPendentes = Map.of();
+        return pendentes;
+    }
+
+    public long getRegistrosRecuperados() {
+        return registrosRecuperados;
+    }
+
+    public boolean isVazio() {
+        return registrosRecuperados == 0;
+    }
+
+    public long getUltimaSequencia() {
+        return ultimaSequencia;
+    }
+
+    public long getSequenciaDuravel() {
+        return sequenciaDuravel;
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (fechado) {
+                return;
+            }
+            fechado = true;
+            pendente.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (fsync != null) {
+            fsync.interrupt();
+            try {
+                fsync.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        sincronizar();
+        atual.fechar();
+    }
+
+    private void executarFsync() {
+        while (true) {
+            try {
+                if (politica == PoliticaFsync.SINCRONO) {
+                    aguardarPendente();
+                } else {
+                    Thread.sleep(intervaloFsyncMs);
+                }
+                if (isFechado()) {
+                    return;
+                }
+                sincronizar();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                //Quem espera continua esperando: o proximo fsync cobre os mesmos registros
+                log.error("Falha no fsync do journal", e);
+            }
+        }
+    }
+
+    private void aguardarPendente() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!fechado && ultimaSequencia == sequenciaDuravel) {
+                pendente.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isFechado() {
+        lock.lock();
+        try {
+            return fechado;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Chamado com o lock: o fsync do segmento cheio segura os anexos, mas acontece uma vez por segmento
+    private void rolar() throws IOException {
+        atual.buffer.force();
+        atual.fechar();
+        atual = Segmento.criar(arquivo(ultimaSequencia + 1), tamanhoSegmento);
+        sincronizarDiretorio();
+        posicao = 0;
+        posicaoForcada = 0;
+        sequenciaDuravel = ultimaSequencia;
+        duravel.signalAll();
+    }
+
+    private long recuperar() throws IOException {
+        List<Path> segmentos;
+        try (var arquivos = Files.list(diretorio)) {
+            segmentos = arquivos
+                    .filter(arquivo -> arquivo.getFileName().toString().startsWith(PREFIXO)
+                            && arquivo.getFileName().toString().endsWith(SUFIXO))
+                    .sorted()
+                    .toList();
+        }
+
+        long proxima = 1;
+        for (int i = 0; i < segmentos.size(); i++) {
+            var arquivo = segmentos.get(i);
+            if (primeiraSequencia(arquivo) != proxima) {
+                descartar(segmentos.subList(i, segmentos.size()));
+                break;
+            }
+            var segmento = Segmento.abrir(arquivo);
+            if (segmento.tamanho < TAMANHO_REGISTRO) {
+                //Queda durante a criacao do segmento: o arquivo existe, o map ainda nao
+                segmento.fechar();
+                descartar(segmentos.subList(i, segmentos.size()));
+                break;
+            }
+            var lidos = ler(segmento, proxima);
+            proxima += lidos;
+            if ((long) lidos * TAMANHO_REGISTRO + TAMANHO_REGISTRO <= segmento.tamanho) {
+                //Fim dos dados validos: o resto deste segmento e os seguintes nunca foram confirmados
+                descartar(segmentos.subList(i + 1, segmentos.size()));
+                atual = segmento;
+                posicao = lidos * TAMANHO_REGISTRO;
+                limparRestante();
+                posicaoForcada = posicao;
+                ultimaSequencia = proxima - 1;
+                return ultimaSequencia;
+            }
+            segmento.fechar();
+        }
+        ultimaSequencia = proxima - 1;
+        atual = Segmento.criar(arquivo(proxima), tamanhoSegmento);
+        sincronizarDiretorio();
+        return ultimaSequencia;
+    }
+
+    private int ler(Segmento segmento, long primeira) {
+        var leitura = ByteBuffer.wrap(registro);
+        int lidos = 0;
+        for (int inicio = 0; inicio + TAMANHO_REGISTRO <= segmento.tamanho; inicio += TAMANHO_REGISTRO, lidos++) {
+            segmento.buffer.get(inicio, registro);
+            if (leitura.getLong(0) != primeira + lidos) {
+                break;
+            }
+            crc.reset();
+            crc.update(registro, 0, TAMANHO_DADOS);
+            var tipo = TipoRegistro.deCodigo(leitura.get(8));
+            if ((int) crc.getValue() != leitura.getInt(TAMANHO_DADOS) || tipo == null) {
+                break;
+            }
+            var numeroConta = leitura.getLong(9);
+            var centavos = leitura.getLong(17);
+            if (tipo == TipoRegistro.SALDO) {
+                saldosRecuperados.put(numeroConta, centavos);
+            } else if (tipo == TipoRegistro.MOVIMENTO) {
+                saldosRecuperados.merge(numeroConta, centavos, Math::addExact);
+            } else if (tipo == TipoRegistro.MOVIMENTO_PENDENTE) {
+                movimentosPendentes.put(primeira + lidos, new Movimento(numeroConta, centavos));
+            } else {
+                //CONFIRMACAO ou ESTORNO: o campo da conta traz a sequencia do pendente
+                var movimento = movimentosPendentes.remove(numeroConta);
+                if (movimento != null && tipo == TipoRegistro.CONFIRMACAO) {
+                    saldosRecuperados.merge(movimento.getNumeroConta(), movimento.getCentavos(), Math::addExact);
+                }
+            }
+        }
+        return lidos;
+    }
+
+    //Registros antigos depois do fim valido poderiam ser lidos como novos numa proxima recuperacao
+    private void limparRestante() {
+        for (int inicio = posicao; inicio < atual.tamanho; inicio += ZEROS.length) {
+            atual.buffer.put(inicio, ZEROS, 0, Math.min(ZEROS.length, atual.tamanho - inicio));
+        }
+        atual.buffer.force();
+    }
+
+    private void descartar(List<Path> arquivos) throws IOException {
+        for (var arquivo : arquivos) {
+            log.warn("Segmento do journal fora da sequencia valida, renomeado para .descartado: {}", arquivo);
+            Files.move(arquivo, arquivo.resolveSibling(arquivo.getFileName() + ".descartado"));
+        }
+    }
+
+    //A entrada do segmento novo no diretorio tambem precisa chegar ao disco
+    private void sincronizarDiretorio() {
+        try (var canal = FileChannel.open(diretorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            log.debug("Sistema de arquivos nao permite fsync do diretorio {}", diretorio);
+        }
+    }
+
+    private Path arquivo(long primeiraSequencia) {
+        return diretorio.resolve(String.format("%s%020d%s", PREFIXO, primeiraSequencia, SUFIXO));
+    }
+
+    private static long primeiraSequencia(Path arquivo) {
+        var nome = arquivo.getFileName().toString();
+        try {
+            return Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - SUFIXO.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Movimento {
+        private final long numeroConta;
+        private final long centavos;
+    }
+
+    private static final class Segmento {
+        private final FileChannel canal;
+        private final MappedByteBuffer buffer;
+        private final int tamanho;
+
+        private Segmento(FileChannel canal, int tamanho) throws IOException {
+            this.canal = canal;
+            this.tamanho = tamanho;
+            this.buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanho);
+        }
+
+        //O map estende o arquivo ate o tamanho do segmento
+        private static Segmento criar(Path arquivo, int tamanho) throws IOException {
+            return new Segmento(FileChannel.open(arquivo, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE), tamanho);
+        }
+
+        //Usa o tamanho do proprio arquivo: o tamanho configurado pode ter mudado desde que ele foi criado
+        private static Segmento abrir(Path arquivo) throws IOException {
+            var canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            var tamanho = (int) Math.min(canal.size(), Integer.MAX_VALUE);
+            return new Segmento(canal, tamanho - tamanho % TAMANHO_REGISTRO);
+        }
+
+        //O mapeamento continua valido depois de fechar o canal, ate o buffer ser coletado
+        private void fechar() {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                log.warn("Falha ao fechar segmento do journal", e);
+            }
+        }
+    }
+
+}
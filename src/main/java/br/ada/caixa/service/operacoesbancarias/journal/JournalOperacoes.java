@@ -0,0 +1,317 @@
+package br.ada.caixa.service.operacoesbancarias.journal;
+
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.Lancamento;
+import br.ada.caixa.entity.MarcaJournal;
+import br.ada.caixa.service.operacoesbancarias.journal.ArquivoJournal.TipoRegistro;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durabilidade opcional das movimentacoes fora do banco. Todo lancamento vira um
+ * registro no journal antes de ir para o banco; dentro de transacao ele fica
+ * pendente ate a CONFIRMACAO anexada no commit, e com a politica SINCRONO a
+ * operacao so e respondida depois do fsync dela. Na subida o journal so e
+ * reaplicado (saldo de cada conta presente nele regravado no banco) se a
+ * MarcaJournal do banco tem a mesma epoca do diretorio e nao esta a frente dele.
+ * Pendentes sem desfecho (queda com a transacao aberta, ou entre o commit e a
+ * CONFIRMACAO) sao decididos pelo banco: valem se o lancamento com a sequencia
+ * deles commitou. Caso contrario (journal novo, banco novo, journal religado,
+ * outro diretorio) o banco vale: o journal ganha uma nova linha de base com
+ * registros SALDO das contas atuais e uma nova epoca. Com o H2 em memoria do
+ * padrao toda subida cai nesse caso e o journal nao recupera nada: o replay
+ * precisa de um banco que sobreviva ao processo (H2 em arquivo, por exemplo).
+ */
+@Slf4j
+@Component
+//O replay grava nas tabelas conta e marca_journal, criadas pelo Hibernate (ddl-auto)
+@DependsOn("entityManagerFactory")
+public class JournalOperacoes implements InitializingBean, DisposableBean {
+
+    private static final String SQL_SALDOS = "select numero, saldo from conta where saldo <> 0";
+    private static final String SQL_REGRAVAR = "update conta set saldo = ?, versao = coalesce(versao, 0) + 1 where numero = ?";
+    private static final String SQL_MARCA = "select epoca, sequencia from marca_journal where id = 1";
+    private static final String SQL_ATUALIZAR_MARCA =
+            "update marca_journal set epoca = ?, sequencia = ?, atualizado_em = ? where id = 1";
+    private static final String SQL_INSERIR_MARCA =
+            "insert into marca_journal (id, epoca, sequencia, atualizado_em) values (1, ?, ?, ?)";
+    private static final String SQL_REMOVER_MARCA = "delete from marca_journal";
+    //Pelo indice de (numero_conta, ...): so roda para os pendentes da queda, poucos
+    private static final String SQL_LANCAMENTO_COMMITADO =
+            "select count(*) from lancamento where numero_conta = ? and sequencia_journal = ?";
+    private static final String ARQUIVO_EPOCA = "epoca";
+    private static final int TAMANHO_LOTE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean habilitado;
+    private final Path diretorio;
+    private final int tamanhoSegmentoMb;
+    private final PoliticaFsync politica;
+    private final long intervaloFsyncMs;
+    private ArquivoJournal arquivo;
+    private String epoca;
+    private Counter registros;
+    private Counter estornos;
+    private Timer esperaFsync;
+
+    public JournalOperacoes(JdbcTemplate jdbcTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${caixa.journal.habilitado:false}") boolean habilitado,
+                            @Value("${caixa.journal.diretorio:journal}") String diretorio,
+                            @Value("${caixa.journal.tamanho-segmento-mb:64}") int tamanhoSegmentoMb,
+                            @Value("${caixa.journal.politica-fsync:SINCRONO}") PoliticaFsync politica,
+                            @Value("${caixa.journal.intervalo-fsync-ms:10}") long intervaloFsyncMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.habilitado = habilitado;
+        this.diretorio = Path.of(diretorio);
+        this.tamanhoSegmentoMb = tamanhoSegmentoMb;
+        this.politica = politica;
+        this.intervaloFsyncMs = intervaloFsyncMs;
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!habilitado) {
+            //Desligado, o banco segue sem o journal: ao religar ele precisa de nova linha de base
+            jdbcTemplate.update(SQL_REMOVER_MARCA);
+            return;
+        }
+        var inicio = System.nanoTime();
+        arquivo = new ArquivoJournal(diretorio, tamanhoSegmentoMb * 1024 * 1024, politica, intervaloFsyncMs);
+        epoca = lerEpoca();
+        if (bancoAcompanhaJournal()) {
+            reaplicar();
+        } else {
+            epoca = iniciarLinhaDeBase();
+        }
+        gravarMarca(arquivo.getUltimaSequencia());
+        meterRegistry.timer("caixa.journal.recuperacao").record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+
+        Gauge.builder("caixa.journal.sequencia", arquivo, ArquivoJournal::getUltimaSequencia).register(meterRegistry);
+        Gauge.builder("caixa.journal.sequencia.duravel", arquivo, ArquivoJournal::getSequenciaDuravel).register(meterRegistry);
+        registros = meterRegistry.counter("caixa.journal.registros", "tipo", "movimento");
+        estornos = meterRegistry.counter("caixa.journal.registros", "tipo", "estorno");
+        esperaFsync = meterRegistry.timer("caixa.journal.espera-fsync");
+        log.info("Journal em {} com politica {}, epoca {}, ultima sequencia {}", diretorio.toAbsolutePath(), politica,
+                epoca, arquivo.getUltimaSequencia());
+    }
+
+    @Override
+    public void destroy() {
+        if (!habilitado) {
+            return;
+        }
+        arquivo.close();
+        //Marca na sequencia final: se o journal perder a cauda depois disso, a marca a frente forca nova linha de base
+        try {
+            gravarMarca(arquivo.getUltimaSequencia());
+        } catch (DataAccessException e) {
+            log.warn("Falha ao gravar a marca do journal no encerramento", e);
+        }
+    }
+
+    /**
+     * Anexa os lancamentos antes de eles irem para o banco, com a sequencia gravada
+     * em cada um. Dentro de transacao entram como pendentes: o commit anexa a
+     * confirmacao e espera o fsync dela depois, sem segurar o lock das contas, e um
+     * rollback anexa o estorno. Fora de transacao valem na hora e a espera e imediata.
+     */
+    public void registrar(List<Lancamento> lancamentos) {
+        if (!habilitado || lancamentos.isEmpty()) {
+            return;
+        }
+        var emTransacao = TransactionSynchronizationManager.isSynchronizationActive();
+        var tipo = emTransacao ? TipoRegistro.MOVIMENTO_PENDENTE : TipoRegistro.MOVIMENTO;
+        long sequencia = 0;
+        for (var lancamento : lancamentos) {
+            sequencia = arquivo.anexar(tipo, lancamento.getNumeroConta(), centavos(lancamento));
+            lancamento.setSequenciaJournal(sequencia);
+        }
+        registros.increment(lancamentos.size());
+
+        if (!emTransacao) {
+            confirmar(sequencia);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                confirmar(anexarDesfecho(TipoRegistro.CONFIRMACAO, lancamentos));
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    anexarDesfecho(TipoRegistro.ESTORNO, lancamentos);
+                    estornos.increment(lancamentos.size());
+                }
+            }
+        });
+    }
+
+    private long anexarDesfecho(TipoRegistro tipo, List<Lancamento> lancamentos) {
+        long sequencia = 0;
+        for (var lancamento : lancamentos) {
+            sequencia = arquivo.anexar(tipo, lancamento.getSequenciaJournal(), 0);
+        }
+        return sequencia;
+    }
+
+    private void confirmar(long sequencia) {
+        esperaFsync.record(() -> arquivo.confirmar(sequencia));
+    }
+
+    private boolean bancoAcompanhaJournal() {
+        if (arquivo.isVazio()) {
+            return false;
+        }
+        var marcas = jdbcTemplate.query(SQL_MARCA, (resultSet, linha) -> MarcaJournal.builder()
+                .epoca(resultSet.getString(1))
+                .sequencia(resultSet.getLong(2))
+                .build());
+        var marca = marcas.isEmpty() ? null : marcas.get(0);
+        if (marca != null && marca.getEpoca().equals(epoca) && marca.getSequencia() <= arquivo.getUltimaSequencia()) {
+            return true;
+        }
+        log.warn("Banco nao acompanha o journal em {} (marca {}, epoca do journal {}, ultima sequencia {}): "
+                        + "nova linha de base com os saldos do banco", diretorio.toAbsolutePath(), marca, epoca,
+                arquivo.getUltimaSequencia());
+        return false;
+    }
+
+    /**
+     * Registros SALDO com o estado atual do banco. Contas que o journal conhecia e que
+     * nao tem saldo no banco sao zeradas: com o banco recriado os numeros de conta
+     * recomecam e uma conta nova herdaria o saldo de outra.
+     */
+    private String iniciarLinhaDeBase() throws IOException {
+        //O saldo do banco ja traz o que commitou: os pendentes nao valem mais nada
+        arquivo.retirarMovimentosPendentes().keySet()
+                .forEach(sequencia -> arquivo.anexar(TipoRegistro.ESTORNO, sequencia, 0));
+        var anteriores = arquivo.retirarSaldosRecuperados();
+        jdbcTemplate.query(SQL_SALDOS, resultSet -> {
+            var numeroConta = resultSet.getLong(1);
+            arquivo.anexar(TipoRegistro.SALDO, numeroConta, Dinheiro.de(resultSet.getBigDecimal(2)).getCentavos());
+            anteriores.remove(numeroConta);
+        });
+        anteriores.forEach((numeroConta, centavos) -> {
+            if (centavos != 0) {
+                arquivo.anexar(TipoRegistro.SALDO, numeroConta, 0);
+            }
+        });
+        arquivo.sincronizar();
+        //Epoca so muda depois da linha de base no disco: uma queda antes disso refaz a linha de base
+        var novaEpoca = UUID.randomUUID().toString();
+        gravarEpoca(novaEpoca);
+        return novaEpoca;
+    }
+
+    private String lerEpoca() throws IOException {
+        var arquivoEpoca = diretorio.resolve(ARQUIVO_EPOCA);
+        return Files.exists(arquivoEpoca) ? Files.readString(arquivoEpoca).trim() : null;
+    }
+
+    //Temporario e move atomico: uma queda no meio nao deixa a epoca pela metade
+    private void gravarEpoca(String novaEpoca) throws IOException {
+        var temporario = diretorio.resolve(ARQUIVO_EPOCA + ".tmp");
+        Files.writeString(temporario, novaEpoca, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        Files.move(temporario, diretorio.resolve(ARQUIVO_EPOCA), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void gravarMarca(long sequencia) {
+        var agora = LocalDateTime.now();
+        if (jdbcTemplate.update(SQL_ATUALIZAR_MARCA, epoca, sequencia, agora) == 0) {
+            jdbcTemplate.update(SQL_INSERIR_MARCA, epoca, sequencia, agora);
+        }
+    }
+
+    private void reaplicar() {
+        var saldos = arquivo.retirarSaldosRecuperados();
+        resolverPendentes(saldos);
+        List<Object[]> parametros = new ArrayList<>(TAMANHO_LOTE);
+        int regravadas = 0;
+        for (var saldo : saldos.entrySet()) {
+            parametros.add(new Object[]{Dinheiro.deCentavos(saldo.getValue()).toBigDecimal(), saldo.getKey()});
+            if (parametros.size() == TAMANHO_LOTE) {
+                regravadas += regravar(parametros);
+                parametros.clear();
+            }
+        }
+        regravadas += regravar(parametros);
+        //Mesma epoca, mas contas apagadas direto no banco nao tem mais linha para receber o saldo
+        log.info("Journal reaplicado: {} registros, {} contas regravadas, {} contas sem linha no banco",
+                arquivo.getRegistrosRecuperados(), regravadas, saldos.size() - regravadas);
+    }
+
+    //O lancamento e gravado na mesma transacao do movimento: se ele existe, a transacao commitou
+    private void resolverPendentes(Map<Long, Long> saldos) {
+        var pendentes = arquivo.retirarMovimentosPendentes();
+        if (pendentes.isEmpty()) {
+            return;
+        }
+        int confirmados = 0;
+        for (var pendente : pendentes.entrySet()) {
+            var movimento = pendente.getValue();
+            var commitado = jdbcTemplate.queryForObject(SQL_LANCAMENTO_COMMITADO, Long.class,
+                    movimento.getNumeroConta(), pendente.getKey()) > 0;
+            if (commitado) {
+                saldos.merge(movimento.getNumeroConta(), movimento.getCentavos(), Math::addExact);
+                confirmados++;
+            }
+            arquivo.anexar(commitado ? TipoRegistro.CONFIRMACAO : TipoRegistro.ESTORNO, pendente.getKey(), 0);
+        }
+        arquivo.sincronizar();
+        log.warn("Journal com {} movimentos sem desfecho: {} confirmados pelo banco, {} estornados",
+                pendentes.size(), confirmados, pendentes.size() - confirmados);
+    }
+
+    private int regravar(List<Object[]> parametros) {
+        if (parametros.isEmpty()) {
+            return 0;
+        }
+        int regravadas = 0;
+        for (var linhas : jdbcTemplate.batchUpdate(SQL_REGRAVAR, parametros)) {
+            if (linhas > 0) {
+                regravadas++;
+            }
+        }
+        return regravadas;
+    }
+
+    private static long centavos(Lancamento lancamento) {
+        return Dinheiro.de(lancamento.getValor()).getCentavos();
+    }
+
+}
@@ -0,0 +1,12 @@
+package br.ada.caixa.service.operacoesbancarias.journal;
+
+public enum PoliticaFsync {
+
+    //A operacao so responde depois do fsync; um fsync cobre todos os registros anexados enquanto o anterior rodava
+    SINCRONO,
+    //fsync a cada caixa.journal.intervalo-fsync-ms sem esperar: uma queda de energia perde no maximo o intervalo
+    INTERVALO,
+    //Sem fsync explicito, o sistema operacional grava as paginas: sobrevive a queda do processo, nao da maquina
+    SISTEMA_OPERACIONAL
+
+}
@@ -0,0 +1,128 @@
+package br.ada.caixa.service.operacoesbancarias.lancamento;
+
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.Lancamento;
+import br.ada.caixa.entity.SaldoSnapshot;
+import br.ada.caixa.entity.TipoLancamento;
+import br.ada.caixa.respository.LancamentoRepository;
+import br.ada.caixa.respository.SaldoSnapshotRepository;
+import br.ada.caixa.service.operacoesbancarias.journal.JournalOperacoes;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class LancamentoService {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private final LancamentoRepository lancamentoRepository;
+    private final SaldoSnapshotRepository saldoSnapshotRepository;
+    private final JournalOperacoes journalOperacoes;
+    private final long margemCompactacaoSegundos;
+    private final long timeoutTransacaoSegundos;
+
+    public LancamentoService(LancamentoRepository lancamentoRepository,
+                             SaldoSnapshotRepository saldoSnapshotRepository,
+                             JournalOperacoes journalOperacoes,
+                             @Value("${caixa.lancamentos.margem-compactacao-segundos:60}") long margemCompactacaoSegundos,
+                             @Value("${caixa.transacao.timeout-segundos:30}") long timeoutTransacaoSegundos) {
+        this.lancamentoRepository = lancamentoRepository;
+        this.saldoSnapshotRepository = saldoSnapshotRepository;
+        this.journalOperacoes = journalOperacoes;
+        this.margemCompactacaoSegundos = margemCompactacaoSegundos;
+        this.timeoutTransacaoSegundos = timeoutTransacaoSegundos;
+    }
+
+    //Todo movimento passa por aqui: o journal (quando habilitado) recebe o lancamento antes do banco
+    public void registrar(long numeroConta, TipoLancamento tipo, Dinheiro valor) {
+        var lancamento = credito(numeroConta, tipo, valor);
+        journalOperacoes.registrar(List.of(lancamento));
+        lancamentoRepository.save(lancamento);
+    }
+
+    public void registrarDebito(long numeroConta, TipoLancamento tipo, Dinheiro valor, Dinheiro valorDebito) {
+        registrarTodos(debito(numeroConta, tipo, valor, valorDebito));
+    }
+
+    public void registrarTodos(List<Lancamento> lancamentos) {
+        journalOperacoes.registrar(lancamentos);
+        lancamentoRepository.saveAll(lancamentos);
+    }
+
+    public static Lancamento credito(long numeroConta, TipoLancamento tipo, Dinheiro valor) {
+        return novo(numeroConta, tipo, valor);
+    }
+
+    //Saque gera dois lancamentos quando ha taxa: o valor sacado e a tarifa
+    public static List<Lancamento> debito(long numeroConta, TipoLancamento tipo, Dinheiro valor, Dinheiro valorDebito) {
+        var tarifa = valorDebito.subtrair(valor);
+        if (tarifa.signum() > 0) {
+            return List.of(
+                    novo(numeroConta, tipo, valor.negar()),
+                    novo(numeroConta, TipoLancamento.TARIFA, tarifa.negar()));
+        }
+        return List.of(novo(numeroConta, tipo, valorDebito.negar()));
+    }
+
+    @Transactional(readOnly = true)
+    public Dinheiro calcularSaldo(long numeroConta) {
+        var snapshot = saldoSnapshotRepository.findById(numeroConta);
+        var saldoConsolidado = snapshot.map(SaldoSnapshot::getSaldo).orElse(BigDecimal.ZERO);
+        var corte = snapshot.map(SaldoSnapshot::getDataCorte).orElse(INICIO);
+        return Dinheiro.de(saldoConsolidado.add(lancamentoRepository.somarDesde(numeroConta, corte)));
+    }
+
+    /**
+     * Consolida nos snapshots os lancamentos mais antigos que o timeout das transacoes
+     * mais a margem. Toda transacao (lote, importacao, rendimento) tem o timeout de
+     * caixa.transacao.timeout-segundos, e o lancamento nasce dentro dela: passado esse
+     * tempo ninguem mais pode commitar um lancamento com data anterior ao corte.
+     */
+    @Scheduled(fixedDelayString = "${caixa.lancamentos.intervalo-compactacao-ms:60000}")
+    @Transactional
+    public void compactar() {
+        var ultimoCorte = saldoSnapshotRepository.findUltimoCorte().orElse(INICIO);
+        var novoCorte = LocalDateTime.now().minusSeconds(timeoutTransacaoSegundos + margemCompactacaoSegundos);
+        if (!novoCorte.isAfter(ultimoCorte)) {
+            return;
+        }
+
+        var somas = lancamentoRepository.somarPorContaEntre(ultimoCorte, novoCorte);
+        var numeros = somas.stream().map(soma -> (Long) soma[0]).collect(Collectors.toList());
+        var snapshots = saldoSnapshotRepository.findAllById(numeros).stream()
+                .collect(Collectors.toMap(SaldoSnapshot::getNumeroConta, Function.identity()));
+
+        List<SaldoSnapshot> atualizados = new ArrayList<>(somas.size());
+        for (var soma : somas) {
+            var numeroConta = (Long) soma[0];
+            var snapshot = snapshots.getOrDefault(numeroConta,
+                    SaldoSnapshot.builder().numeroConta(numeroConta).saldo(BigDecimal.ZERO).build());
+            snapshot.setSaldo(snapshot.getSaldo().add((BigDecimal) soma[1]));
+            snapshot.setDataCorte(novoCorte);
+            atualizados.add(snapshot);
+        }
+        saldoSnapshotRepository.saveAll(atualizados);
+        log.debug("Compactados lancamentos de {} contas ate {}", atualizados.size(), novoCorte);
+    }
+
+    private static Lancamento novo(long numeroConta, TipoLancamento tipo, Dinheiro valor) {
+        return Lancamento.builder()
+                .numeroConta(numeroConta)
+                .tipo(tipo)
+                .valor(valor.toBigDecimal())
+                .dataHora(LocalDateTime.now())
+                .build();
+    }
+
+}
@@ -0,0 +1,215 @@
+package br.ada.caixa.service.operacoesbancarias.lote;
+
+import br.ada.caixa.dto.request.OperacaoLoteRequestDto;
+import br.ada.caixa.dto.response.OperacaoLoteResponseDto;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.Lancamento;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.entity.TipoLancamento;
+import br.ada.caixa.enums.TipoOperacaoLote;
+import br.ada.caixa.exceptions.ValidacaoException;
+import br.ada.caixa.service.operacoesbancarias.deposito.DepositoService;
+import br.ada.caixa.service.operacoesbancarias.lancamento.LancamentoService;
+import br.ada.caixa.service.operacoesbancarias.memoria.MotorContasMemoria;
+import br.ada.caixa.service.operacoesbancarias.saldo.SaldoCache;
+import br.ada.caixa.service.operacoesbancarias.saque.OperacaoSaque;
+import br.ada.caixa.service.operacoesbancarias.saque.PipelineSaque;
+import br.ada.caixa.service.operacoesbancarias.saque.SaqueService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Processa lotes de depositos e saques. Cada bloco de operacoes roda em uma
+ * transacao, com todos os updates em um unico batch JDBC; o resultado de
+ * cada item sai da quantidade de linhas afetadas pelo seu update, entao uma
+ * falha nunca derruba as demais operacoes do lote.
+ */
+@Slf4j
+@Service
+public class LoteOperacoesService {
+
+    private static final String SQL_PERFIS_CONTA =
+            "select c.numero, cl.tipo, c.tipo from conta c join cliente cl on cl.id = c.cliente_id where c.numero in (:numeros)";
+    //Deposito chega com valor positivo e passa sempre; saque chega negativo e so passa se houver saldo
+    private static final String SQL_MOVIMENTAR =
+            "update conta set saldo = saldo + ?, versao = coalesce(versao, 0) + 1 where numero = ? and saldo + ? >= 0";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LancamentoService lancamentoService;
+    private final DepositoService depositoService;
+    private final SaqueService saqueService;
+    private final MotorContasMemoria motorContasMemoria;
+    private final SaldoCache saldoCache;
+    private final PipelineSaque pipelineSaque;
+    private final int tamanhoBloco;
+
+    public LoteOperacoesService(NamedParameterJdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                LancamentoService lancamentoService,
+                                DepositoService depositoService,
+                                SaqueService saqueService,
+                                MotorContasMemoria motorContasMemoria,
+                                SaldoCache saldoCache,
+                                PipelineSaque pipelineSaque,
+                                @Value("${caixa.lote.tamanho-bloco:500}") int tamanhoBloco) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.lancamentoService = lancamentoService;
+        this.depositoService = depositoService;
+        this.saqueService = saqueService;
+        this.motorContasMemoria = motorContasMemoria;
+        this.saldoCache = saldoCache;
+        this.pipelineSaque = pipelineSaque;
+        this.tamanhoBloco = tamanhoBloco;
+    }
+
+    public List<OperacaoLoteResponseDto> processar(List<OperacaoLoteRequestDto> operacoes) {
+        var resultados = new OperacaoLoteResponseDto[operacoes.size()];
+        for (int inicio = 0; inicio < operacoes.size(); inicio += tamanhoBloco) {
+            var fim = Math.min(inicio + tamanhoBloco, operacoes.size());
+            if (motorContasMemoria.isHabilitado()) {
+                processarUmAUm(operacoes, inicio, fim, resultados);
+                continue;
+            }
+            try {
+                processarBloco(operacoes, inicio, fim, resultados);
+            } catch (DataAccessException e) {
+                //Falha de infraestrutura no batch: refaz o bloco item a item para isolar quem falhou
+                log.warn("Bloco {}-{} do lote falhou, reprocessando item a item", inicio, fim, e);
+                processarUmAUm(operacoes, inicio, fim, resultados);
+            }
+        }
+        return Arrays.asList(resultados);
+    }
+
+    private void processarBloco(List<OperacaoLoteRequestDto> operacoes, int inicio, int fim,
+                                OperacaoLoteResponseDto[] resultados) {
+        transactionTemplate.executeWithoutResult(status -> {
+            var operacoesSaque = buscarOperacoesSaque(operacoes.subList(inicio, fim));
+            saldoCache.invalidarTodas(operacoesSaque.keySet());
+            List<Integer> indices = new ArrayList<>(fim - inicio);
+            List<Dinheiro> valores = new ArrayList<>(fim - inicio);
+            List<Object[]> parametros = new ArrayList<>(fim - inicio);
+
+            for (int i = inicio; i < fim; i++) {
+                var operacao = operacoes.get(i);
+                var erro = validar(operacao, operacoesSaque);
+                if (erro != null) {
+                    resultados[i] = falha(i, erro);
+                    continue;
+                }
+                Dinheiro movimento;
+                try {
+                    movimento = operacao.getTipo() == TipoOperacaoLote.DEPOSITO
+                            ? operacao.getValor()
+                            : operacoesSaque.get(operacao.getNumeroConta())
+                                    .calcularValorDebito(operacao.getValor()).negar();
+                } catch (ValidacaoException e) {
+                    resultados[i] = falha(i, e.getMessage());
+                    continue;
+                }
+                indices.add(i);
+                valores.add(movimento);
+                parametros.add(new Object[]{movimento.toBigDecimal(), operacao.getNumeroConta(), movimento.toBigDecimal()});
+            }
+
+            var linhasAfetadas = jdbcTemplate.getJdbcTemplate().batchUpdate(SQL_MOVIMENTAR, parametros);
+            List<Lancamento> lancamentos = new ArrayList<>(indices.size());
+            for (int j = 0; j < indices.size(); j++) {
+                int i = indices.get(j);
+                var operacao = operacoes.get(i);
+                if (linhasAfetadas[j] == 0) {
+                    resultados[i] = falha(i, operacao.getTipo() == TipoOperacaoLote.DEPOSITO
+                            ? "Conta inválida!" : "Saldo insuficiente!");
+                    continue;
+                }
+                resultados[i] = sucesso(i);
+                if (operacao.getTipo() == TipoOperacaoLote.DEPOSITO) {
+                    lancamentos.add(LancamentoService.credito(operacao.getNumeroConta(),
+                            TipoLancamento.DEPOSITO, operacao.getValor()));
+                } else {
+                    lancamentos.addAll(LancamentoService.debito(operacao.getNumeroConta(),
+                            TipoLancamento.SAQUE, operacao.getValor(), valores.get(j).negar()));
+                }
+            }
+            lancamentoService.registrarTodos(lancamentos);
+        });
+    }
+
+    private void processarUmAUm(List<OperacaoLoteRequestDto> operacoes, int inicio, int fim,
+                                OperacaoLoteResponseDto[] resultados) {
+        for (int i = inicio; i < fim; i++) {
+            var operacao = operacoes.get(i);
+            var erro = validar(operacao, null);
+            if (erro != null) {
+                resultados[i] = falha(i, erro);
+                continue;
+            }
+            try {
+                if (operacao.getTipo() == TipoOperacaoLote.DEPOSITO) {
+                    depositoService.depositar(operacao.getNumeroConta(), operacao.getValor());
+                } else {
+                    saqueService.sacar(operacao.getNumeroConta(), operacao.getValor());
+                }
+                resultados[i] = sucesso(i);
+            } catch (ValidacaoException | DataAccessException e) {
+                resultados[i] = falha(i, e.getMessage());
+            }
+        }
+    }
+
+    //Cadeia de saque de cada conta do bloco; a chave tambem serve para saber quais contas existem
+    private Map<Long, OperacaoSaque> buscarOperacoesSaque(List<OperacaoLoteRequestDto> operacoes) {
+        var numeros = new HashSet<Long>();
+        operacoes.stream()
+                .map(OperacaoLoteRequestDto::getNumeroConta)
+                .filter(Objects::nonNull)
+                .forEach(numeros::add);
+        Map<Long, OperacaoSaque> operacoesSaque = new HashMap<>();
+        if (numeros.isEmpty()) {
+            return operacoesSaque;
+        }
+        jdbcTemplate.query(SQL_PERFIS_CONTA, Map.of("numeros", numeros), resultSet -> {
+            operacoesSaque.put(resultSet.getLong(1), pipelineSaque.resolver(
+                    TipoCliente.valueOf(resultSet.getString(2)), TipoConta.valueOf(resultSet.getString(3))));
+        });
+        return operacoesSaque;
+    }
+
+    private static String validar(OperacaoLoteRequestDto operacao, Map<Long, OperacaoSaque> contas) {
+        if (operacao == null || operacao.getTipo() == null) {
+            return "Tipo de operacao obrigatorio!";
+        }
+        if (operacao.getValor() == null || operacao.getValor().signum() <= 0) {
+            return "Valor deve ser positivo!";
+        }
+        if (operacao.getNumeroConta() == null
+                || (contas != null && !contas.containsKey(operacao.getNumeroConta()))) {
+            return "Conta inválida!";
+        }
+        return null;
+    }
+
+    private static OperacaoLoteResponseDto sucesso(int indice) {
+        return OperacaoLoteResponseDto.builder().indice(indice).sucesso(true).build();
+    }
+
+    private static OperacaoLoteResponseDto falha(int indice, String erro) {
+        return OperacaoLoteResponseDto.builder().indice(indice).sucesso(false).erro(erro).build();
+    }
+
+}
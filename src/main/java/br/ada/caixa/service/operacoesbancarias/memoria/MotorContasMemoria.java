@@ -0,0 +1,233 @@
+package br.ada.caixa.service.operacoesbancarias.memoria;
+
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.exceptions.ValidacaoException;
+import br.ada.caixa.service.operacoesbancarias.saque.OperacaoSaque;
+import br.ada.caixa.service.operacoesbancarias.saque.PipelineSaque;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Motor opcional que mantem o saldo de todas as contas em memoria. Cada conta
+ * pertence a uma unica particao (pelo hash do numero) e cada particao tem uma
+ * unica thread escritora, entao as operacoes de uma conta sao aplicadas em
+ * ordem e sem lock. Os saldos alterados sao gravados no banco em lotes, de
+ * forma assincrona.
+ */
+@Slf4j
+@Component
+//A carga inicial tem que ler os saldos ja regravados pelo replay do journal
+@DependsOn("journalOperacoes")
+public class MotorContasMemoria implements InitializingBean, DisposableBean {
+
+    private static final String SQL_CARREGAR_TODAS =
+            "select c.numero, c.saldo, cl.tipo, c.tipo from conta c join cliente cl on cl.id = c.cliente_id";
+    private static final String SQL_CARREGAR =
+            SQL_CARREGAR_TODAS + " where c.numero = ?";
+    private static final String SQL_PERSISTIR =
+            "update conta set saldo = ?, versao = coalesce(versao, 0) + 1 where numero = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PipelineSaque pipelineSaque;
+    private final boolean habilitado;
+    private final long intervaloPersistenciaMs;
+    private final int tamanhoLote;
+    private final ParticaoContas[] particoes;
+    private ScheduledExecutorService persistencia;
+
+    public MotorContasMemoria(JdbcTemplate jdbcTemplate,
+                              PipelineSaque pipelineSaque,
+                              @Value("${caixa.motor-memoria.habilitado:false}") boolean habilitado,
+                              @Value("${caixa.motor-memoria.particoes:4}") int quantidadeParticoes,
+                              @Value("${caixa.motor-memoria.intervalo-persistencia-ms:100}") long intervaloPersistenciaMs,
+                              @Value("${caixa.motor-memoria.tamanho-lote:500}") int tamanhoLote) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pipelineSaque = pipelineSaque;
+        this.habilitado = habilitado;
+        this.intervaloPersistenciaMs = intervaloPersistenciaMs;
+        this.tamanhoLote = tamanhoLote;
+        this.particoes = new ParticaoContas[habilitado ? quantidadeParticoes : 0];
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!habilitado) {
+            return;
+        }
+        for (int i = 0; i < particoes.length; i++) {
+            particoes[i] = new ParticaoContas(i);
+        }
+        //Carga inicial feita antes de qualquer operacao, as threads das particoes ainda estao ociosas
+        jdbcTemplate.query(SQL_CARREGAR_TODAS, resultSet -> {
+            long numero = resultSet.getLong(1);
+            long saldoCentavos = Dinheiro.de(resultSet.getBigDecimal(2)).getCentavos();
+            var operacaoSaque = operacaoSaque(resultSet);
+            var particao = particao(numero);
+            executar(particao, () -> particao.registrar(numero, saldoCentavos, operacaoSaque));
+        });
+
+        persistencia = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "motor-contas-persistencia");
+            thread.setDaemon(true);
+            return thread;
+        });
+        persistencia.scheduleWithFixedDelay(this::persistir,
+                intervaloPersistenciaMs, intervaloPersistenciaMs, TimeUnit.MILLISECONDS);
+        log.info("Motor de contas em memoria iniciado com {} particoes", particoes.length);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (!habilitado) {
+            return;
+        }
+        persistencia.shutdown();
+        persistencia.awaitTermination(10, TimeUnit.SECONDS);
+        persistir();
+        for (var particao : particoes) {
+            particao.getExecutor().shutdown();
+        }
+    }
+
+    public Dinheiro depositar(Long numeroConta, Dinheiro valor) {
+        var centavos = valor.getCentavos();
+        var particao = particao(numeroConta);
+        return executar(particao, () -> {
+            var slot = resolver(particao, numeroConta);
+            particao.somar(slot, centavos);
+            return Dinheiro.deCentavos(particao.saldo(slot));
+        });
+    }
+
+    /**
+     * @return valor efetivamente debitado, ja com a taxa do tipo de cliente
+     */
+    public Dinheiro sacar(Long numeroConta, Dinheiro valor) {
+        var particao = particao(numeroConta);
+        return executar(particao, () -> debitar(particao, resolver(particao, numeroConta), valor));
+    }
+
+    /**
+     * @return valor efetivamente debitado da origem, ja com a taxa do tipo de cliente
+     */
+    public Dinheiro transferir(Long numeroContaOrigem, Long numeroContaDestino, Dinheiro valor) {
+        if (numeroContaOrigem.equals(numeroContaDestino)) {
+            throw new ValidacaoException("Conta de origem e destino devem ser diferentes!");
+        }
+        var particaoOrigem = particao(numeroContaOrigem);
+        var particaoDestino = particao(numeroContaDestino);
+        //Contas nunca sao removidas: validado o destino, o credito depois do debito nao falha
+        executar(particaoDestino, () -> resolver(particaoDestino, numeroContaDestino));
+        var valorDebito = executar(particaoOrigem, () ->
+                debitar(particaoOrigem, resolver(particaoOrigem, numeroContaOrigem), valor));
+        depositar(numeroContaDestino, valor);
+        return valorDebito;
+    }
+
+    public Dinheiro consultarSaldo(Long numeroConta) {
+        var particao = particao(numeroConta);
+        return executar(particao, () -> {
+            var slot = particao.slot(numeroConta);
+            if (slot < 0) {
+                slot = carregar(particao, numeroConta);
+            }
+            if (slot < 0) {
+                throw new ValidacaoException("Conta inexistente!");
+            }
+            return Dinheiro.deCentavos(particao.saldo(slot));
+        });
+    }
+
+    private Dinheiro debitar(ParticaoContas particao, int slot, Dinheiro valor) {
+        var valorDebito = particao.operacaoSaque(slot).calcularValorDebito(valor);
+        if (valorDebito.getCentavos() > particao.saldo(slot)) {
+            throw new ValidacaoException("Saldo insuficiente!");
+        }
+        particao.somar(slot, -valorDebito.getCentavos());
+        return valorDebito;
+    }
+
+    private int resolver(ParticaoContas particao, Long numeroConta) {
+        var slot = particao.slot(numeroConta);
+        if (slot < 0) {
+            slot = carregar(particao, numeroConta);
+        }
+        if (slot < 0) {
+            throw new ValidacaoException("Conta inválida!");
+        }
+        return slot;
+    }
+
+    //Contas abertas depois da carga inicial entram no motor no primeiro acesso
+    private int carregar(ParticaoContas particao, Long numeroConta) {
+        var slots = jdbcTemplate.query(SQL_CARREGAR, (resultSet, linha) -> particao.registrar(numeroConta,
+                Dinheiro.de(resultSet.getBigDecimal(2)).getCentavos(), operacaoSaque(resultSet)), numeroConta);
+        return slots.isEmpty() ? -1 : slots.get(0);
+    }
+
+    //A cadeia de saque e resolvida uma vez por conta, na carga
+    private OperacaoSaque operacaoSaque(ResultSet resultSet) throws SQLException {
+        return pipelineSaque.resolver(TipoCliente.valueOf(resultSet.getString(3)), TipoConta.valueOf(resultSet.getString(4)));
+    }
+
+    private void persistir() {
+        for (var particao : particoes) {
+            var alterados = executar(particao, particao::drenarSujos);
+            try {
+                for (int inicio = 0; inicio < alterados.size(); inicio += tamanhoLote) {
+                    var fim = Math.min(inicio + tamanhoLote, alterados.size());
+                    List<Object[]> parametros = new ArrayList<>(fim - inicio);
+                    for (var alterado : alterados.subList(inicio, fim)) {
+                        parametros.add(new Object[]{Dinheiro.deCentavos(alterado[0]).toBigDecimal(), alterado[1]});
+                    }
+                    jdbcTemplate.batchUpdate(SQL_PERSISTIR, parametros);
+                }
+            } catch (RuntimeException e) {
+                //Volta a marcar as contas: a proxima rodada grava o saldo mais recente delas
+                log.error("Falha ao persistir saldos do motor em memoria", e);
+                executar(particao, () -> {
+                    alterados.forEach(alterado -> particao.remarcar(alterado[1]));
+                    return null;
+                });
+            }
+        }
+    }
+
+    private ParticaoContas particao(long numeroConta) {
+        return particoes[Math.floorMod(Long.hashCode(numeroConta), particoes.length)];
+    }
+
+    private static <T> T executar(ParticaoContas particao, Supplier<T> tarefa) {
+        try {
+            return CompletableFuture.supplyAsync(tarefa, particao.getExecutor()).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+}
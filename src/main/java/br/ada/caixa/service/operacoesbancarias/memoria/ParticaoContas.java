@@ -0,0 +1,116 @@
+package br.ada.caixa.service.operacoesbancarias.memoria;
+
+import br.ada.caixa.service.operacoesbancarias.saque.OperacaoSaque;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Contas de uma particao do motor em memoria. Todo o estado e acessado apenas
+ * pela thread da particao, por isso nao ha lock nem campo volatile aqui.
+ */
+final class ParticaoContas {
+
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    private final ExecutorService executor;
+    private final Map<Long, Integer> slots = new HashMap<>();
+
+    private long[] numeros = new long[CAPACIDADE_INICIAL];
+    private long[] saldosCentavos = new long[CAPACIDADE_INICIAL];
+    private OperacaoSaque[] operacoesSaque = new OperacaoSaque[CAPACIDADE_INICIAL];
+    private boolean[] sujos = new boolean[CAPACIDADE_INICIAL];
+    private int[] filaSujos = new int[CAPACIDADE_INICIAL];
+    private int quantidadeSujos;
+    private int tamanho;
+
+    ParticaoContas(int indice) {
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "motor-contas-" + indice);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
+    int slot(long numero) {
+        var slot = slots.get(numero);
+        return slot == null ? -1 : slot;
+    }
+
+    int registrar(long numero, long saldoCentavos, OperacaoSaque operacaoSaque) {
+        var existente = slots.get(numero);
+        if (existente != null) {
+            return existente;
+        }
+        if (tamanho == numeros.length) {
+            crescer();
+        }
+        var slot = tamanho++;
+        numeros[slot] = numero;
+        saldosCentavos[slot] = saldoCentavos;
+        operacoesSaque[slot] = operacaoSaque;
+        slots.put(numero, slot);
+        return slot;
+    }
+
+    long saldo(int slot) {
+        return saldosCentavos[slot];
+    }
+
+    OperacaoSaque operacaoSaque(int slot) {
+        return operacoesSaque[slot];
+    }
+
+    void somar(int slot, long centavos) {
+        saldosCentavos[slot] += centavos;
+        marcar(slot);
+    }
+
+    void remarcar(long numero) {
+        var slot = slot(numero);
+        if (slot >= 0) {
+            marcar(slot);
+        }
+    }
+
+    private void marcar(int slot) {
+        if (!sujos[slot]) {
+            sujos[slot] = true;
+            filaSujos[quantidadeSujos++] = slot;
+        }
+    }
+
+    /**
+     * Retira os saldos alterados desde a ultima chamada, no formato de
+     * parametros do batch update: { saldo, numero }.
+     */
+    List<long[]> drenarSujos() {
+        List<long[]> alterados = new ArrayList<>(quantidadeSujos);
+        for (int i = 0; i < quantidadeSujos; i++) {
+            var slot = filaSujos[i];
+            sujos[slot] = false;
+            alterados.add(new long[]{saldosCentavos[slot], numeros[slot]});
+        }
+        quantidadeSujos = 0;
+        return alterados;
+    }
+
+    private void crescer() {
+        var capacidade = numeros.length * 2;
+        numeros = Arrays.copyOf(numeros, capacidade);
+        saldosCentavos = Arrays.copyOf(saldosCentavos, capacidade);
+        operacoesSaque = Arrays.copyOf(operacoesSaque, capacidade);
+        sujos = Arrays.copyOf(sujos, capacidade);
+        filaSujos = Arrays.copyOf(filaSujos, capacidade);
+    }
+
+}
@@ -0,0 +1,256 @@
+package br.ada.caixa.service.operacoesbancarias.rendimento;
+
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.ExecucaoRendimento;
+import br.ada.caixa.entity.Lancamento;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.entity.TipoLancamento;
+import br.ada.caixa.respository.ExecucaoRendimentoRepository;
+import br.ada.caixa.service.metricas.MetricasOperacoes;
+import br.ada.caixa.service.operacoesbancarias.lancamento.LancamentoService;
+import br.ada.caixa.service.operacoesbancarias.memoria.MotorContasMemoria;
+import br.ada.caixa.service.operacoesbancarias.saldo.SaldoCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Rendimento diario das contas poupanca e investimento. Percorre cada tipo de
+ * conta em blocos pela chave (numero), calcula os rendimentos do bloco em
+ * paralelo no ForkJoinPool e credita tudo em um batch JDBC, junto com os
+ * lancamentos e o avanco do checkpoint, em uma unica transacao por bloco.
+ * O checkpoint e lido com lock a cada bloco: varias instancias dividem o
+ * trabalho do mesmo dia sem creditar uma conta duas vezes.
+ */
+@Slf4j
+@Service
+public class RendimentoService implements DisposableBean {
+
+    private static final List<TipoConta> TIPOS_COM_RENDIMENTO = List.of(TipoConta.CONTA_POUPANCA, TipoConta.CONTA_INVESTIMENTO);
+    private static final long ANTES_DA_PRIMEIRA_CONTA = -1L;
+
+    private static final String SQL_CHECKPOINT =
+            "select tipo_conta, ultima_conta from execucao_rendimento where data_referencia = ? and concluida = false for update";
+    private static final String SQL_PROXIMO_BLOCO =
+            "select numero, saldo from conta where tipo = ? and numero > ? and saldo > 0 order by numero limit ?";
+    private static final String SQL_CREDITAR = "update conta set saldo = saldo + ?, versao = coalesce(versao, 0) + 1 where numero = ?";
+    private static final String SQL_AVANCAR = "update execucao_rendimento set tipo_conta = ?, ultima_conta = ?, "
+            + "contas_processadas = contas_processadas + ?, total_creditado = total_creditado + ?, atualizado_em = ? "
+            + "where data_referencia = ?";
+    private static final String SQL_CONCLUIR =
+            "update execucao_rendimento set concluida = true, atualizado_em = ? where data_referencia = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecucaoRendimentoRepository execucaoRendimentoRepository;
+    private final LancamentoService lancamentoService;
+    private final SaldoCache saldoCache;
+    private final MotorContasMemoria motorContasMemoria;
+    private final MetricasOperacoes metricasOperacoes;
+    private final ForkJoinPool pool;
+    private final int tamanhoBloco;
+    private final Map<TipoConta, BigDecimal> taxasDiarias = new EnumMap<>(TipoConta.class);
+
+    public RendimentoService(JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             ExecucaoRendimentoRepository execucaoRendimentoRepository,
+                             LancamentoService lancamentoService,
+                             SaldoCache saldoCache,
+                             MotorContasMemoria motorContasMemoria,
+                             MetricasOperacoes metricasOperacoes,
+                             @Value("${caixa.rendimento.tamanho-bloco:5000}") int tamanhoBloco,
+                             @Value("${caixa.rendimento.paralelismo:0}") int paralelismo,
+                             @Value("${caixa.rendimento.taxa-diaria.conta-poupanca:0.0002}") BigDecimal taxaPoupanca,
+                             @Value("${caixa.rendimento.taxa-diaria.conta-investimento:0.0003}") BigDecimal taxaInvestimento) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.execucaoRendimentoRepository = execucaoRendimentoRepository;
+        this.lancamentoService = lancamentoService;
+        this.saldoCache = saldoCache;
+        this.motorContasMemoria = motorContasMemoria;
+        this.metricasOperacoes = metricasOperacoes;
+        this.tamanhoBloco = tamanhoBloco;
+        this.pool = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+        taxasDiarias.put(TipoConta.CONTA_POUPANCA, taxaPoupanca);
+        taxasDiarias.put(TipoConta.CONTA_INVESTIMENTO, taxaInvestimento);
+    }
+
+    @Scheduled(cron = "${caixa.rendimento.cron:0 0 2 * * *}")
+    public void executarDiario() {
+        processar(LocalDate.now());
+    }
+
+    //Retoma dias que ficaram pela metade (restart ou queda no meio da janela) a partir do checkpoint
+    @Scheduled(initialDelayString = "${caixa.rendimento.atraso-retomada-ms:60000}",
+            fixedDelayString = "${caixa.rendimento.intervalo-retomada-ms:600000}")
+    public void retomarPendentes() {
+        execucaoRendimentoRepository.findByConcluidaFalseOrderByDataReferencia()
+                .forEach(execucao -> processar(execucao.getDataReferencia()));
+    }
+
+    public ExecucaoRendimento processar(LocalDate dataReferencia) {
+        return metricasOperacoes.medir("rendimento", medicao -> {
+            iniciar(dataReferencia);
+            long blocos = 0;
+            while (processarBloco(dataReferencia)) {
+                blocos++;
+            }
+            var execucao = execucaoRendimentoRepository.findById(dataReferencia).orElseThrow();
+            log.info("Rendimento de {}: {} blocos nesta execucao, {} contas e {} creditados no total",
+                    dataReferencia, blocos, execucao.getContasProcessadas(), execucao.getTotalCreditado());
+            return execucao;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+
+    private void iniciar(LocalDate dataReferencia) {
+        if (execucaoRendimentoRepository.existsById(dataReferencia)) {
+            return;
+        }
+        try {
+            execucaoRendimentoRepository.saveAndFlush(ExecucaoRendimento.builder()
+                    .dataReferencia(dataReferencia)
+                    .tipoConta(TIPOS_COM_RENDIMENTO.get(0))
+                    .ultimaConta(ANTES_DA_PRIMEIRA_CONTA)
+                    .totalCreditado(Dinheiro.ZERO)
+                    .atualizadoEm(LocalDateTime.now())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            //Outra instancia abriu o mesmo dia primeiro; seguimos pelo checkpoint dela
+            log.debug("Execucao de rendimento de {} ja iniciada", dataReferencia);
+        }
+    }
+
+    //Retorna false quando nao ha mais nada a creditar no dia
+    private boolean processarBloco(LocalDate dataReferencia) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            var checkpoint = jdbcTemplate.query(SQL_CHECKPOINT, (rs, i) ->
+                    new Checkpoint(TipoConta.valueOf(rs.getString(1)), rs.getLong(2)), dataReferencia);
+            if (checkpoint.isEmpty()) {
+                return false;
+            }
+            var tipo = checkpoint.get(0).tipoConta;
+            var contas = jdbcTemplate.query(SQL_PROXIMO_BLOCO, (rs, i) ->
+                            new ContaRendimento(rs.getLong(1), Dinheiro.de(rs.getBigDecimal(2))),
+                    tipo.name(), checkpoint.get(0).ultimaConta, tamanhoBloco);
+
+            if (contas.isEmpty()) {
+                var proximoTipo = TIPOS_COM_RENDIMENTO.indexOf(tipo) + 1;
+                if (proximoTipo == TIPOS_COM_RENDIMENTO.size()) {
+                    jdbcTemplate.update(SQL_CONCLUIR, LocalDateTime.now(), dataReferencia);
+                    return false;
+                }
+                jdbcTemplate.update(SQL_AVANCAR, TIPOS_COM_RENDIMENTO.get(proximoTipo).name(), ANTES_DA_PRIMEIRA_CONTA,
+                        0, BigDecimal.ZERO, LocalDateTime.now(), dataReferencia);
+                return true;
+            }
+
+            var creditos = calcular(contas, taxasDiarias.get(tipo));
+            var total = creditar(creditos);
+            jdbcTemplate.update(SQL_AVANCAR, tipo.name(), contas.get(contas.size() - 1).numero,
+                    contas.size(), total.toBigDecimal(), LocalDateTime.now(), dataReferencia);
+            return true;
+        }));
+    }
+
+    private List<Credito> calcular(List<ContaRendimento> contas, BigDecimal taxa) {
+        try {
+            return pool.submit(() -> contas.parallelStream()
+                    .map(conta -> new Credito(conta.numero, saldoAtual(conta).multiplicar(taxa)))
+                    .filter(credito -> credito.valor.signum() > 0)
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Calculo de rendimento interrompido", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause()
+                    : new IllegalStateException(e.getCause());
+        }
+    }
+
+    //Com o motor ligado o saldo do banco esta atrasado, quem manda e a memoria
+    private Dinheiro saldoAtual(ContaRendimento conta) {
+        return motorContasMemoria.isHabilitado() ? motorContasMemoria.consultarSaldo(conta.numero) : conta.saldo;
+    }
+
+    private Dinheiro creditar(List<Credito> creditos) {
+        var total = Dinheiro.ZERO;
+        List<Object[]> parametros = new ArrayList<>(creditos.size());
+        List<Lancamento> lancamentos = new ArrayList<>(creditos.size());
+        List<Long> numeros = new ArrayList<>(creditos.size());
+        for (var credito : creditos) {
+            total = total.somar(credito.valor);
+            parametros.add(new Object[]{credito.valor.toBigDecimal(), credito.numero});
+            lancamentos.add(LancamentoService.credito(credito.numero, TipoLancamento.RENDIMENTO, credito.valor));
+            numeros.add(credito.numero);
+        }
+        if (motorContasMemoria.isHabilitado()) {
+            //O motor nao participa da transacao: so credita depois do commit do bloco (lancamentos e checkpoint),
+            //senao uma falha antes dele deixaria o credito no motor e a nova tentativa creditaria de novo
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    creditos.forEach(credito -> motorContasMemoria.depositar(credito.numero, credito.valor));
+                }
+            });
+        } else {
+            jdbcTemplate.batchUpdate(SQL_CREDITAR, parametros);
+            saldoCache.invalidarTodas(numeros);
+        }
+        lancamentoService.registrarTodos(lancamentos);
+        return total;
+    }
+
+    private static final class Checkpoint {
+        private final TipoConta tipoConta;
+        private final long ultimaConta;
+
+        private Checkpoint(TipoConta tipoConta, long ultimaConta) {
+            this.tipoConta = tipoConta;
+            this.ultimaConta = ultimaConta;
+        }
+    }
+
+    private static final class ContaRendimento {
+        private final long numero;
+        private final Dinheiro saldo;
+
+        private ContaRendimento(long numero, Dinheiro saldo) {
+            this.numero = numero;
+            this.saldo = saldo;
+        }
+    }
+
+    private static final class Credito {
+        private final long numero;
+        private final Dinheiro valor;
+
+        private Credito(long numero, Dinheiro valor) {
+            this.numero = numero;
+            this.valor = valor;
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package br.ada.caixa.service.operacoesbancarias.saldo;
+
+import br.ada.caixa.entity.Dinheiro;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Cache de saldos por numero de conta. Toda operacao que altera saldo invalida
+ * a conta ao fim da transacao; como o Caffeine espera uma carga em andamento
+ * terminar antes de invalidar, quem escreveu sempre le o proprio resultado.
+ */
+@Component
+public class SaldoCache {
+
+    private final boolean habilitado;
+    private final Cache<Long, Dinheiro> cache;
+
+    public SaldoCache(MeterRegistry meterRegistry,
+                      @Value("${caixa.saldo-cache.habilitado:true}") boolean habilitado,
+                      @Value("${caixa.saldo-cache.tamanho-maximo:100000}") long tamanhoMaximo,
+                      @Value("${caixa.saldo-cache.ttl-segundos:30}") long ttlSegundos) {
+        this.habilitado = habilitado;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "saldo");
+    }
+
+    public Dinheiro obter(Long numeroConta, Function<Long, Dinheiro> carregador) {
+        if (!habilitado) {
+            return carregador.apply(numeroConta);
+        }
+        return cache.get(numeroConta, carregador);
+    }
+
+    public void invalidar(Long numeroConta) {
+        if (!habilitado) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(numeroConta);
+                }
+            });
+        } else {
+            cache.invalidate(numeroConta);
+        }
+    }
+
+    public void invalidarTodas(Collection<Long> numerosConta) {
+        numerosConta.forEach(this::invalidar);
+    }
+
+}
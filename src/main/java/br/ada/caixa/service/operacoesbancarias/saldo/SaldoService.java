@@ -1,25 +1,38 @@
 package br.ada.caixa.service.operacoesbancarias.saldo;
 
-import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
 import br.ada.caixa.exceptions.ValidacaoException;
 import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.service.metricas.MetricasOperacoes;
+import br.ada.caixa.service.operacoesbancarias.memoria.MotorContasMemoria;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-
 @Service
 public class SaldoService {
 
     private final ContaRepository contaRepository;
+    private final MotorContasMemoria motorContasMemoria;
+    private final SaldoCache saldoCache;
+    private final MetricasOperacoes metricasOperacoes;
 
-    public SaldoService(ContaRepository contaRepository) {
+    public SaldoService(ContaRepository contaRepository,
+                        MotorContasMemoria motorContasMemoria,
+                        SaldoCache saldoCache,
+                        MetricasOperacoes metricasOperacoes) {
         this.contaRepository = contaRepository;
+        this.motorContasMemoria = motorContasMemoria;
+        this.saldoCache = saldoCache;
+        this.metricasOperacoes = metricasOperacoes;
     }
 
-    public BigDecimal consultarSaldo(Long numeroConta) {
-        return contaRepository.findByNumero(numeroConta)
-                .map(Conta::getSaldo)
-                .orElseThrow(() -> new ValidacaoException("Conta inexistente!"));
+    public Dinheiro consultarSaldo(Long numeroConta) {
+        return metricasOperacoes.medir("saldo", medicao -> {
+            if (motorContasMemoria.isHabilitado()) {
+                return motorContasMemoria.consultarSaldo(numeroConta);
+            }
+            return saldoCache.obter(numeroConta, numero -> contaRepository.findSaldoByNumero(numero)
+                    .orElseThrow(() -> new ValidacaoException("Conta inexistente!")));
+        });
     }
 
 }
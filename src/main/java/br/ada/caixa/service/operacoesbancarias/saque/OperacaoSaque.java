@@ -1,16 +1,26 @@
 package br.ada.caixa.service.operacoesbancarias.saque;
 
 import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
 import br.ada.caixa.exceptions.ValidacaoException;
 
-import java.math.BigDecimal;
-
+/**
+ * Cadeia de regras de saque ja resolvida para um tipo de cliente e de conta (ver {@link PipelineSaque}).
+ */
 @FunctionalInterface
 public interface OperacaoSaque {
 
-    void executar(Conta conta, BigDecimal valorSaque);
+    Dinheiro calcularValorDebito(Dinheiro valorSaque);
+
+    //Devolve o valor debitado de fato: o lancamento usa esse, sem recalcular a cadeia
+    default Dinheiro executar(Conta conta, Dinheiro valorSaque) {
+        var valorDebito = calcularValorDebito(valorSaque);
+        validarSaldo(conta, valorDebito);
+        conta.setSaldo(conta.getSaldo().subtrair(valorDebito));
+        return valorDebito;
+    }
 
-    default void validarSaldo(Conta conta, BigDecimal valorSaque) {
+    default void validarSaldo(Conta conta, Dinheiro valorSaque) {
         if (valorSaque.compareTo(conta.getSaldo()) > 0) {
             throw new ValidacaoException("Saldo insuficiente!");
         }
@@ -0,0 +1,55 @@
+package br.ada.caixa.service.operacoesbancarias.saque;
+
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Monta na subida uma cadeia de saque por tipo de cliente e tipo de conta:
+ * validacao, limite (caixa.saque.limite.&lt;TipoConta&gt;, opcional) e taxa (caixa.saque.taxa.&lt;TipoCliente&gt;).
+ * No saque so resta buscar a cadeia em dois EnumMap, sem percorrer regras nem alocar.
+ * Sem a propriedade vale a taxa padrao: 0,5% para PJ, nenhuma para PF.
+ */
+@Component
+public class PipelineSaque {
+
+    private static final BigDecimal TAXA_PADRAO_PJ = new BigDecimal("1.005");
+
+    private final Map<TipoCliente, Map<TipoConta, OperacaoSaque>> cadeias = new EnumMap<>(TipoCliente.class);
+
+    public PipelineSaque(Environment environment) {
+        for (var tipoCliente : TipoCliente.values()) {
+            var taxa = environment.getProperty("caixa.saque.taxa." + tipoCliente, BigDecimal.class, taxaPadrao(tipoCliente));
+            Map<TipoConta, OperacaoSaque> porTipoConta = new EnumMap<>(TipoConta.class);
+            for (var tipoConta : TipoConta.values()) {
+                var limite = Dinheiro.de(environment.getProperty("caixa.saque.limite." + tipoConta, BigDecimal.class));
+                porTipoConta.put(tipoConta, montar(taxa, limite)::aplicar);
+            }
+            cadeias.put(tipoCliente, porTipoConta);
+        }
+    }
+
+    public OperacaoSaque resolver(TipoCliente tipoCliente, TipoConta tipoConta) {
+        return cadeias.get(tipoCliente).get(tipoConta);
+    }
+
+    private static BigDecimal taxaPadrao(TipoCliente tipoCliente) {
+        return tipoCliente == TipoCliente.PJ ? TAXA_PADRAO_PJ : BigDecimal.ONE;
+    }
+
+    private static RegraSaque montar(BigDecimal taxa, Dinheiro limite) {
+        var cadeia = RegraSaque.valorPositivo();
+        if (limite != null) {
+            cadeia = cadeia.entao(RegraSaque.limite(limite));
+        }
+        //Taxa igual a 1 nao muda o valor, fica fora da cadeia
+        return taxa.compareTo(BigDecimal.ONE) == 0 ? cadeia : cadeia.entao(RegraSaque.taxa(taxa));
+    }
+
+}
@@ -0,0 +1,44 @@
+package br.ada.caixa.service.operacoesbancarias.saque;
+
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.exceptions.ValidacaoException;
+
+import java.math.BigDecimal;
+
+/**
+ * Etapa da cadeia de saque: recebe o valor a debitar ate aqui e devolve o novo valor,
+ * ou lanca ValidacaoException. As etapas sao compostas uma vez na subida da aplicacao.
+ */
+@FunctionalInterface
+public interface RegraSaque {
+
+    Dinheiro aplicar(Dinheiro valorDebito);
+
+    default RegraSaque entao(RegraSaque proxima) {
+        return valorDebito -> proxima.aplicar(aplicar(valorDebito));
+    }
+
+    static RegraSaque valorPositivo() {
+        return valorDebito -> {
+            if (valorDebito == null || valorDebito.signum() <= 0) {
+                throw new ValidacaoException("Valor deve ser positivo!");
+            }
+            return valorDebito;
+        };
+    }
+
+    static RegraSaque limite(Dinheiro valorMaximo) {
+        return valorDebito -> {
+            if (valorDebito.maiorQue(valorMaximo)) {
+                throw new ValidacaoException("Valor acima do limite de saque!");
+            }
+            return valorDebito;
+        };
+    }
+
+    static RegraSaque taxa(BigDecimal fator) {
+        //Arredonda para centavos, o valor debitado nunca cresce de escala
+        return valorDebito -> valorDebito.multiplicar(fator);
+    }
+
+}
@@ -1,29 +1,80 @@
 package br.ada.caixa.service.operacoesbancarias.saque;
 
-
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoLancamento;
+import br.ada.caixa.exceptions.ValidacaoException;
 import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.service.metricas.MetricasOperacoes;
+import br.ada.caixa.service.operacoesbancarias.concorrencia.ExecutorConcorrencia;
+import br.ada.caixa.service.operacoesbancarias.lancamento.LancamentoService;
+import br.ada.caixa.service.operacoesbancarias.memoria.MotorContasMemoria;
+import br.ada.caixa.service.operacoesbancarias.saldo.SaldoCache;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.util.List;
-
 @Service
 public class SaqueService {
 
     private final ContaRepository contaRepository;
-    private final List<OperacaoSaque> operacaoSaqueList;
+    private final PipelineSaque pipelineSaque;
+    private final ExecutorConcorrencia executorConcorrencia;
+    private final MotorContasMemoria motorContasMemoria;
+    private final LancamentoService lancamentoService;
+    private final SaldoCache saldoCache;
+    private final MetricasOperacoes metricasOperacoes;
 
-    public SaqueService(ContaRepository contaRepository, List<OperacaoSaque> operacaoSaqueList) {
+    public SaqueService(ContaRepository contaRepository,
+                        PipelineSaque pipelineSaque,
+                        ExecutorConcorrencia executorConcorrencia,
+                        MotorContasMemoria motorContasMemoria,
+                        LancamentoService lancamentoService,
+                        SaldoCache saldoCache,
+                        MetricasOperacoes metricasOperacoes) {
         this.contaRepository = contaRepository;
-        this.operacaoSaqueList = operacaoSaqueList;
+        this.pipelineSaque = pipelineSaque;
+        this.executorConcorrencia = executorConcorrencia;
+        this.motorContasMemoria = motorContasMemoria;
+        this.lancamentoService = lancamentoService;
+        this.saldoCache = saldoCache;
+        this.metricasOperacoes = metricasOperacoes;
+    }
+
+    public void sacar(Long numeroConta, Dinheiro valor) {
+        metricasOperacoes.medirSemResultado("saque", medicao -> executarSaque(numeroConta, valor, medicao.valor(valor)));
     }
 
-    public void sacar(Long numeroConta, BigDecimal valor) {
-        contaRepository.findByNumero(numeroConta)
-                        .ifPresent(conta -> {
-                            operacaoSaqueList.forEach(operacaoSaque -> operacaoSaque.executar(conta, valor));
-                            contaRepository.save(conta);
-                        });
+    private void executarSaque(Long numeroConta, Dinheiro valor, MetricasOperacoes.Medicao medicao) {
+        if (motorContasMemoria.isHabilitado()) {
+            var valorDebito = motorContasMemoria.sacar(numeroConta, valor);
+            lancamentoService.registrarDebito(numeroConta, TipoLancamento.SAQUE, valor, valorDebito);
+            return;
+        }
+        executorConcorrencia.executarSemResultado("saque", () -> {
+            saldoCache.invalidar(numeroConta);
+            if (executorConcorrencia.isAtomico()) {
+                sacarAtomico(numeroConta, valor, medicao);
+                return;
+            }
+            var conta = executorConcorrencia.carregarConta(numeroConta)
+                    .orElseThrow(() -> new ValidacaoException("Conta inválida!"));
+            medicao.tipoCliente(conta.getCliente().getTipo()).tipoConta(conta.getTipo());
+            var operacaoSaque = pipelineSaque.resolver(conta.getCliente().getTipo(), conta.getTipo());
+            var valorDebito = operacaoSaque.executar(conta, valor);
+            contaRepository.saveAndFlush(conta);
+            lancamentoService.registrarDebito(numeroConta, TipoLancamento.SAQUE, valor, valorDebito);
+        });
+    }
+
+    private void sacarAtomico(Long numeroConta, Dinheiro valor, MetricasOperacoes.Medicao medicao) {
+        var perfil = contaRepository.findPerfilByNumero(numeroConta)
+                .orElseThrow(() -> new ValidacaoException("Conta inválida!"));
+        medicao.tipoCliente(perfil.getTipoCliente()).tipoConta(perfil.getTipoConta());
+        var valorDebito = pipelineSaque.resolver(perfil.getTipoCliente(), perfil.getTipoConta()).calcularValorDebito(valor);
+
+        //Debito condicionado ao saldo direto no banco: nenhuma atualizacao concorrente e perdida
+        if (contaRepository.debitar(numeroConta, valorDebito.toBigDecimal()) == 0) {
+            throw new ValidacaoException("Saldo insuficiente!");
+        }
+        lancamentoService.registrarDebito(numeroConta, TipoLancamento.SAQUE, valor, valorDebito);
     }
 
 }
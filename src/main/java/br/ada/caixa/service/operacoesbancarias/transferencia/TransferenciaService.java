@@ -1,24 +1,92 @@
 package br.ada.caixa.service.operacoesbancarias.transferencia;
 
-import br.ada.caixa.service.operacoesbancarias.deposito.DepositoService;
-import br.ada.caixa.service.operacoesbancarias.saque.SaqueService;
+import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoLancamento;
+import br.ada.caixa.exceptions.ValidacaoException;
+import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.service.metricas.MetricasOperacoes;
+import br.ada.caixa.service.operacoesbancarias.lancamento.LancamentoService;
+import br.ada.caixa.service.operacoesbancarias.memoria.MotorContasMemoria;
+import br.ada.caixa.service.operacoesbancarias.saldo.SaldoCache;
+import br.ada.caixa.service.operacoesbancarias.saque.PipelineSaque;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class TransferenciaService {
 
-    private final SaqueService saqueService;
-    private final DepositoService depositoService;
+    private final ContaRepository contaRepository;
+    private final PipelineSaque pipelineSaque;
+    private final MotorContasMemoria motorContasMemoria;
+    private final TransactionTemplate transactionTemplate;
+    private final LancamentoService lancamentoService;
+    private final SaldoCache saldoCache;
+    private final MetricasOperacoes metricasOperacoes;
 
     public void transferir(Long numeroContaOrigem,
                            Long numeroContaDestino,
-                           BigDecimal valor) {
-        saqueService.sacar(numeroContaOrigem, valor);
-        depositoService.depositar(numeroContaDestino, valor);
+                           Dinheiro valor) {
+        metricasOperacoes.medirSemResultado("transferencia", medicao ->
+                executarTransferencia(numeroContaOrigem, numeroContaDestino, valor, medicao.valor(valor)));
+    }
+
+    private void executarTransferencia(Long numeroContaOrigem,
+                                       Long numeroContaDestino,
+                                       Dinheiro valor,
+                                       MetricasOperacoes.Medicao medicao) {
+        if (Objects.isNull(numeroContaOrigem) || Objects.isNull(numeroContaDestino)) {
+            throw new ValidacaoException("Conta inválida!");
+        }
+        if (numeroContaOrigem.equals(numeroContaDestino)) {
+            throw new ValidacaoException("Conta de origem e destino devem ser diferentes!");
+        }
+        if (motorContasMemoria.isHabilitado()) {
+            var valorDebito = motorContasMemoria.transferir(numeroContaOrigem, numeroContaDestino, valor);
+            registrarLancamentos(numeroContaOrigem, numeroContaDestino, valor, valorDebito);
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            saldoCache.invalidarTodas(List.of(numeroContaOrigem, numeroContaDestino));
+            transferirComLock(numeroContaOrigem, numeroContaDestino, valor, medicao);
+        });
+    }
+
+    private void transferirComLock(Long numeroContaOrigem,
+                                   Long numeroContaDestino,
+                                   Dinheiro valor,
+                                   MetricasOperacoes.Medicao medicao) {
+        //Regra: os locks sao sempre obtidos em ordem crescente de numero,
+        //assim transferencias A->B e B->A concorrentes nunca entram em deadlock
+        final var primeira = bloquear(Math.min(numeroContaOrigem, numeroContaDestino));
+        final var segunda = bloquear(Math.max(numeroContaOrigem, numeroContaDestino));
+        final var origem = numeroContaOrigem < numeroContaDestino ? primeira : segunda;
+        final var destino = origem == primeira ? segunda : primeira;
+        medicao.tipoCliente(origem.getCliente().getTipo()).tipoConta(origem.getTipo());
+
+        final var operacaoSaque = pipelineSaque.resolver(origem.getCliente().getTipo(), origem.getTipo());
+        final var valorDebito = operacaoSaque.executar(origem, valor);
+        destino.setSaldo(destino.getSaldo().somar(valor));
+
+        contaRepository.save(origem);
+        contaRepository.save(destino);
+        registrarLancamentos(numeroContaOrigem, numeroContaDestino, valor, valorDebito);
+    }
+
+    private void registrarLancamentos(Long numeroContaOrigem, Long numeroContaDestino,
+                                      Dinheiro valor, Dinheiro valorDebito) {
+        lancamentoService.registrarDebito(numeroContaOrigem, TipoLancamento.TRANSFERENCIA, valor, valorDebito);
+        lancamentoService.registrar(numeroContaDestino, TipoLancamento.TRANSFERENCIA, valor);
+    }
+
+    private Conta bloquear(Long numeroConta) {
+        return contaRepository.findByNumeroForUpdate(numeroConta)
+                .orElseThrow(() -> new ValidacaoException("Conta inválida!"));
     }
 
 }
@@ -0,0 +1,64 @@
+package br.ada.caixa.service.reativo;
+
+import br.ada.caixa.config.reativo.LeituraReativaConfiguration;
+import br.ada.caixa.dto.response.ClienteResponseDto;
+import br.ada.caixa.dto.response.SaldoResponseDto;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.exceptions.ValidacaoException;
+import br.ada.caixa.service.metricas.MetricasOperacoes;
+import br.ada.caixa.service.operacoesbancarias.memoria.MotorContasMemoria;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Leituras de saldo e clientes sem segurar thread enquanto esperam conexao ou linhas.
+ * So le: as escritas continuam no caminho JPA (SaldoService, DepositoService...).
+ */
+@Service
+@Conditional(LeituraReativaConfiguration.Disponivel.class)
+@RequiredArgsConstructor
+public class LeituraReativaService {
+
+    private static final String SELECT_CLIENTES = "select documento, tipo from cliente ";
+
+    private final DatabaseClient databaseClientLeitura;
+    private final MotorContasMemoria motorContasMemoria;
+    private final MetricasOperacoes metricasOperacoes;
+
+    public Mono<SaldoResponseDto> consultarSaldo(Long numeroConta) {
+        return metricasOperacoes.medirReativo("saldo_reativo", saldo(numeroConta)
+                .switchIfEmpty(Mono.error(() -> new ValidacaoException("Conta inexistente!")))
+                .map(saldo -> new SaldoResponseDto(numeroConta, saldo)));
+    }
+
+    public Flux<ClienteResponseDto> listarClientes(TipoCliente tipoCliente) {
+        var consulta = Objects.isNull(tipoCliente)
+                ? databaseClientLeitura.sql(SELECT_CLIENTES + "order by documento")
+                : databaseClientLeitura.sql(SELECT_CLIENTES + "where tipo = :tipo order by documento")
+                .bind("tipo", tipoCliente.name());
+        return metricasOperacoes.medirReativo("listar_clientes_reativo", consulta
+                .map(linha -> new ClienteResponseDto(linha.get("documento", String.class),
+                        TipoCliente.valueOf(linha.get("tipo", String.class))))
+                .all());
+    }
+
+    private Mono<Dinheiro> saldo(Long numeroConta) {
+        //Com o motor ligado o saldo do banco esta atrasado, quem responde e a memoria
+        if (motorContasMemoria.isHabilitado()) {
+            return Mono.fromSupplier(() -> motorContasMemoria.consultarSaldo(numeroConta));
+        }
+        return databaseClientLeitura.sql("select saldo from conta where numero = :numero")
+                .bind("numero", numeroConta)
+                .map(linha -> Dinheiro.de(linha.get("saldo", BigDecimal.class)))
+                .one();
+    }
+
+}
@@ -0,0 +1,3 @@
+-- Numeros de conta: cada valor da sequence reserva um bloco de numeros (AlocadorNumeroConta).
+-- O incremento e o caixa.conta.bloco-numeros, aplicado pelo alocador na subida
+create sequence if not exists conta_numero_seq start with 1000000 increment by 100;
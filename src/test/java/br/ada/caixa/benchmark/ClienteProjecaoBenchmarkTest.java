@@ -0,0 +1,101 @@
+package br.ada.caixa.benchmark;
+
+import br.ada.caixa.dto.response.ClienteResponseDto;
+import br.ada.caixa.entity.Cliente;
+import br.ada.caixa.respository.ClienteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Listagem de clientes carregando entidades contra a projecao direto no DTO.
+ * Mede latencia e bytes alocados pela thread. Rode com: mvn test -Pbenchmark
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+class ClienteProjecaoBenchmarkTest {
+
+    private static final int QUANTIDADE_CLIENTES = 200_000;
+    private static final int RODADAS = 5;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> linhas = new ArrayList<>(QUANTIDADE_CLIENTES);
+        var hoje = Date.valueOf(LocalDate.now());
+        for (int i = 0; i < QUANTIDADE_CLIENTES; i++) {
+            linhas.add(new Object[]{UUID.randomUUID(), String.format("%011d", i), "Cliente " + i,
+                    i % 2 == 0 ? "PF" : "PJ", hoje});
+        }
+        jdbcTemplate.batchUpdate("insert into cliente (id, documento, nome, status, tipo, created_at) "
+                + "values (?, ?, ?, 'ATIVO', ?, ?)", linhas);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clienteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Projecao em DTO aloca menos e responde mais rapido que carregar entidades")
+    void projecaoContraEntidadeTest() {
+        //aquecimento
+        listarPorEntidade();
+        clienteRepository.listarResumo();
+
+        var entidade = medir(this::listarPorEntidade);
+        var projecao = medir(clienteRepository::listarResumo);
+
+        log.info("entidade: {} ms, {} MB alocados por chamada", entidade[0], entidade[1] / (1024 * 1024));
+        log.info("projecao: {} ms, {} MB alocados por chamada", projecao[0], projecao[1] / (1024 * 1024));
+        assertTrue(projecao[1] < entidade[1]);
+    }
+
+    private List<ClienteResponseDto> listarPorEntidade() {
+        List<Cliente> clientes = clienteRepository.findAll();
+        return clientes.stream().map(cliente -> {
+            ClienteResponseDto response = new ClienteResponseDto();
+            response.setDocumento(cliente.getDocumento());
+            response.setTipo(cliente.getTipo().name());
+            return response;
+        }).collect(Collectors.toList());
+    }
+
+    //Retorna {milissegundos, bytes alocados} medios por rodada
+    private static long[] medir(Supplier<List<ClienteResponseDto>> listagem) {
+        var threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long alocadoInicio = threadMXBean.getThreadAllocatedBytes(threadId);
+        long inicio = System.nanoTime();
+        for (int i = 0; i < RODADAS; i++) {
+            assertEquals(QUANTIDADE_CLIENTES, listagem.get().size());
+        }
+        long nanos = System.nanoTime() - inicio;
+        long alocado = threadMXBean.getThreadAllocatedBytes(threadId) - alocadoInicio;
+        return new long[]{nanos / RODADAS / 1_000_000, alocado / RODADAS};
+    }
+
+}
@@ -0,0 +1,133 @@
+package br.ada.caixa.benchmark;
+
+import br.ada.caixa.entity.Cliente;
+import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.enums.StatusCliente;
+import br.ada.caixa.respository.ClienteRepository;
+import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.service.operacoesbancarias.deposito.DepositoService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara o caminho antigo (carrega a conta, soma em Java e salva) com o
+ * update atomico no banco, todos os depositos na mesma conta.
+ * Rode com: mvn test -Pbenchmark
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+class ContaQuenteBenchmarkTest {
+
+    private static final long NUMERO_CONTA = 5001L;
+    private static final int QUANTIDADE_THREADS = 16;
+    private static final int OPERACOES_POR_THREAD = 500;
+
+    @Autowired
+    private DepositoService depositoService;
+    @Autowired
+    private ContaRepository contaRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        var cliente = Cliente.builder()
+                .documento("55500011122")
+                .nome("Conta Quente")
+                .status(StatusCliente.ATIVO)
+                .tipo(TipoCliente.PF)
+                .build();
+        clienteRepository.saveAndFlush(cliente);
+        contaRepository.saveAndFlush(Conta.builder()
+                .numero(NUMERO_CONTA)
+                .saldo(Dinheiro.ZERO)
+                .tipo(TipoConta.CONTA_CORRENTE)
+                .cliente(cliente)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        contaRepository.deleteAllInBatch();
+        clienteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Depositos concorrentes em conta quente: ler-alterar-salvar x update atomico")
+    void depositosContaQuenteTest() throws InterruptedException {
+        final var total = Dinheiro.de((long) QUANTIDADE_THREADS * OPERACOES_POR_THREAD);
+
+        long inicioLegado = System.nanoTime();
+        executar(() -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    var conta = contaRepository.findByNumero(NUMERO_CONTA).get();
+                    conta.setSaldo(conta.getSaldo().somar(Dinheiro.de(1)));
+                    contaRepository.save(conta);
+                });
+            } catch (ConcurrencyFailureException e) {
+                //Conflito de @Version: o deposito e perdido, como acontecia sem versionamento
+            }
+        });
+        long nanosLegado = System.nanoTime() - inicioLegado;
+        var saldoLegado = contaRepository.findByNumero(NUMERO_CONTA).get().getSaldo();
+
+        contaRepository.findByNumero(NUMERO_CONTA).ifPresent(conta -> {
+            conta.setSaldo(Dinheiro.ZERO);
+            contaRepository.saveAndFlush(conta);
+        });
+
+        long inicioAtomico = System.nanoTime();
+        executar(() -> depositoService.depositar(NUMERO_CONTA, Dinheiro.de(1)));
+        long nanosAtomico = System.nanoTime() - inicioAtomico;
+        var saldoAtomico = contaRepository.findByNumero(NUMERO_CONTA).get().getSaldo();
+
+        log.info("ler-alterar-salvar: {} ops/s, depositos perdidos: {}",
+                operacoesPorSegundo(nanosLegado), total.subtrair(saldoLegado));
+        log.info("update atomico:     {} ops/s, depositos perdidos: {}",
+                operacoesPorSegundo(nanosAtomico), total.subtrair(saldoAtomico));
+
+        assertEquals(total, saldoAtomico);
+        assertTrue(nanosAtomico > 0);
+    }
+
+    private void executar(Runnable operacao) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(QUANTIDADE_THREADS);
+        for (int t = 0; t < QUANTIDADE_THREADS; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < OPERACOES_POR_THREAD; i++) {
+                    operacao.run();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+    }
+
+    private static long operacoesPorSegundo(long nanos) {
+        return (long) QUANTIDADE_THREADS * OPERACOES_POR_THREAD * 1_000_000_000L / nanos;
+    }
+
+}
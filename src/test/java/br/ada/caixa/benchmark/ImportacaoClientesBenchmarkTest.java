@@ -0,0 +1,88 @@
+package br.ada.caixa.benchmark;
+
+import br.ada.caixa.enums.FormatoImportacao;
+import br.ada.caixa.respository.ClienteRepository;
+import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.service.cliente.ImportacaoClientesService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Importacao de um milhao de clientes em CSV gerado sob demanda, sem o arquivo
+ * existir inteiro em memoria. Rode com: mvn test -Pbenchmark [-Dimportacao.clientes=1000000]
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class ImportacaoClientesBenchmarkTest {
+
+    private static final int QUANTIDADE_CLIENTES = Integer.getInteger("importacao.clientes", 1_000_000);
+
+    @Autowired
+    private ImportacaoClientesService importacaoClientesService;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private ContaRepository contaRepository;
+
+    @AfterEach
+    void tearDown() {
+        contaRepository.deleteAllInBatch();
+        clienteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Um milhao de clientes importados em minutos, com memoria limitada ao bloco")
+    void importacaoMilhaoTest() {
+        //when
+        long inicio = System.nanoTime();
+        var relatorio = importacaoClientesService.importar(new CsvGerado(QUANTIDADE_CLIENTES), FormatoImportacao.CSV);
+        long nanos = System.nanoTime() - inicio;
+
+        //then
+        log.info("{} clientes em {} s: {} clientes/s", relatorio.getImportados(), nanos / 1_000_000_000L,
+                relatorio.getImportados() * 1_000_000_000L / nanos);
+        assertEquals(QUANTIDADE_CLIENTES, relatorio.getImportados());
+        assertEquals(QUANTIDADE_CLIENTES, contaRepository.count());
+    }
+
+    //Produz o CSV linha a linha conforme o servico le
+    private static final class CsvGerado extends InputStream {
+
+        private final int quantidade;
+        private int proximo = -1;
+        private byte[] linha = new byte[0];
+        private int posicao;
+
+        private CsvGerado(int quantidade) {
+            this.quantidade = quantidade;
+        }
+
+        @Override
+        public int read() {
+            if (posicao == linha.length) {
+                if (proximo == quantidade) {
+                    return -1;
+                }
+                linha = (proximo < 0
+                        ? "tipo,documento,nome,dataNascimento\n"
+                        : (proximo % 2 == 0 ? "PF," : "PJ,") + String.format("7%010d", proximo)
+                        + ",Cliente Importado " + proximo + ",1990-01-01\n").getBytes(StandardCharsets.UTF_8);
+                proximo++;
+                posicao = 0;
+            }
+            return linha[posicao++];
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package br.ada.caixa.benchmark;
+
+import br.ada.caixa.dto.request.DepositoRequestDto;
+import br.ada.caixa.dto.request.OperacaoLoteRequestDto;
+import br.ada.caixa.dto.response.OperacaoLoteResponseDto;
+import br.ada.caixa.entity.Cliente;
+import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.enums.StatusCliente;
+import br.ada.caixa.enums.TipoOperacaoLote;
+import br.ada.caixa.respository.ClienteRepository;
+import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.respository.LancamentoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mesmas operacoes enviadas uma a uma em /operacoes/depositar e /operacoes/sacar
+ * e de uma vez em /operacoes/lote. Rode com: mvn test -Pbenchmark
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.jdbc.batch_size=50")
+class LoteOperacoesBenchmarkTest {
+
+    private static final int QUANTIDADE_CONTAS = 100;
+    private static final int QUANTIDADE_OPERACOES = 5000;
+    private static final long PRIMEIRA_CONTA = 6001L;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private ContaRepository contaRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private LancamentoRepository lancamentoRepository;
+
+    private String url;
+
+    @BeforeEach
+    void setUp() {
+        url = "http://localhost:" + port + "/operacoes";
+        var cliente = Cliente.builder()
+                .documento("66677788899")
+                .nome("Cliente Lote")
+                .status(StatusCliente.ATIVO)
+                .tipo(TipoCliente.PF)
+                .build();
+        clienteRepository.saveAndFlush(cliente);
+        contaRepository.saveAllAndFlush(LongStream.range(0, QUANTIDADE_CONTAS)
+                .mapToObj(i -> Conta.builder()
+                        .numero(PRIMEIRA_CONTA + i)
+                        .saldo(Dinheiro.de(1_000_000))
+                        .tipo(TipoConta.CONTA_CORRENTE)
+                        .cliente(cliente)
+                        .build())
+                .collect(Collectors.toList()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        lancamentoRepository.deleteAllInBatch();
+        contaRepository.deleteAllInBatch();
+        clienteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Throughput do endpoint de lote contra os endpoints de operacao unica")
+    void loteContraOperacaoUnicaTest() {
+        var operacoes = gerarOperacoes();
+
+        long inicioUnitario = System.nanoTime();
+        for (var operacao : operacoes) {
+            var request = DepositoRequestDto.builder()
+                    .numeroConta(operacao.getNumeroConta())
+                    .valor(operacao.getValor())
+                    .build();
+            var caminho = operacao.getTipo() == TipoOperacaoLote.DEPOSITO ? "/depositar" : "/sacar";
+            restTemplate.postForEntity(url + caminho, request, Void.class);
+        }
+        long nanosUnitario = System.nanoTime() - inicioUnitario;
+
+        long inicioLote = System.nanoTime();
+        restTemplate.postForEntity(url + "/lote", operacoes, OperacaoLoteResponseDto[].class);
+        long nanosLote = System.nanoTime() - inicioLote;
+
+        log.info("operacao unica: {} ops/s", QUANTIDADE_OPERACOES * 1_000_000_000L / nanosUnitario);
+        log.info("lote:           {} ops/s", QUANTIDADE_OPERACOES * 1_000_000_000L / nanosLote);
+        log.info("ganho: {}x", nanosUnitario / Math.max(nanosLote, 1));
+        assertTrue(nanosLote < nanosUnitario);
+    }
+
+    private static List<OperacaoLoteRequestDto> gerarOperacoes() {
+        List<OperacaoLoteRequestDto> operacoes = new ArrayList<>(QUANTIDADE_OPERACOES);
+        for (int i = 0; i < QUANTIDADE_OPERACOES; i++) {
+            operacoes.add(OperacaoLoteRequestDto.builder()
+                    .tipo(i % 3 == 0 ? TipoOperacaoLote.SAQUE : TipoOperacaoLote.DEPOSITO)
+                    .numeroConta(PRIMEIRA_CONTA + i % QUANTIDADE_CONTAS)
+                    .valor(Dinheiro.de(10))
+                    .build());
+        }
+        return operacoes;
+    }
+
+}
@@ -0,0 +1,103 @@
+package br.ada.caixa.benchmark;
+
+import br.ada.caixa.entity.Cliente;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.enums.StatusCliente;
+import br.ada.caixa.respository.ClienteRepository;
+import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.respository.ExecucaoRendimentoRepository;
+import br.ada.caixa.respository.LancamentoRepository;
+import br.ada.caixa.service.operacoesbancarias.rendimento.RendimentoService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Job de rendimento sobre muitas contas, com a projecao para 10 milhoes.
+ * Rode com: mvn test -Pbenchmark [-Drendimento.contas=1000000]
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class RendimentoBenchmarkTest {
+
+    private static final int QUANTIDADE_CONTAS = Integer.getInteger("rendimento.contas", 1_000_000);
+    private static final long PRIMEIRA_CONTA = 50_000_000L;
+
+    @Autowired
+    private RendimentoService rendimentoService;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private ContaRepository contaRepository;
+    @Autowired
+    private LancamentoRepository lancamentoRepository;
+    @Autowired
+    private ExecucaoRendimentoRepository execucaoRendimentoRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        var cliente = clienteRepository.saveAndFlush(Cliente.builder()
+                .documento("44433322211")
+                .nome("Cliente Rendimento")
+                .status(StatusCliente.ATIVO)
+                .tipo(TipoCliente.PF)
+                .build());
+        var hoje = LocalDate.now();
+        List<Object[]> linhas = new ArrayList<>(10_000);
+        for (int i = 0; i < QUANTIDADE_CONTAS; i++) {
+            linhas.add(new Object[]{UUID.randomUUID(), PRIMEIRA_CONTA + i, new BigDecimal("1000.00"),
+                    i % 2 == 0 ? "CONTA_POUPANCA" : "CONTA_INVESTIMENTO", cliente.getId(), hoje});
+            if (linhas.size() == 10_000) {
+                inserir(linhas);
+            }
+        }
+        inserir(linhas);
+    }
+
+    @AfterEach
+    void tearDown() {
+        execucaoRendimentoRepository.deleteAllInBatch();
+        lancamentoRepository.deleteAllInBatch();
+        contaRepository.deleteAllInBatch();
+        clienteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Rendimento de um milhao de contas, projetado para 10 milhoes")
+    void rendimentoTest() {
+        //when
+        long inicio = System.nanoTime();
+        var execucao = rendimentoService.processar(LocalDate.now());
+        long nanos = System.nanoTime() - inicio;
+
+        //then
+        long contasPorSegundo = execucao.getContasProcessadas() * 1_000_000_000L / nanos;
+        log.info("{} contas em {} ms: {} contas/s, 10M contas em ~{} min", execucao.getContasProcessadas(),
+                nanos / 1_000_000, contasPorSegundo, 10_000_000L / Math.max(contasPorSegundo, 1) / 60);
+        assertEquals(QUANTIDADE_CONTAS, execucao.getContasProcessadas());
+    }
+
+    private void inserir(List<Object[]> linhas) {
+        jdbcTemplate.batchUpdate("insert into conta (id, numero, saldo, tipo, cliente_id, created_at, versao) "
+                + "values (?, ?, ?, ?, ?, ?, 0)", linhas);
+        linhas.clear();
+    }
+
+}
@@ -0,0 +1,112 @@
+package br.ada.caixa.benchmark.jmh;
+
+import br.ada.caixa.service.operacoesbancarias.journal.ArquivoJournal;
+import br.ada.caixa.service.operacoesbancarias.journal.ArquivoJournal.TipoRegistro;
+import br.ada.caixa.service.operacoesbancarias.journal.PoliticaFsync;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal de operacoes: anexos confirmados por segundo com 8 threads em cada politica de
+ * fsync (no SINCRONO a vazao vem do group commit, um fsync cobre varios anexos) e tempo
+ * para reabrir e recuperar um journal com milhoes de registros.
+ * Rode com: mvn verify -Pjmh -Djmh.filtro=Journal
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JournalBenchmark {
+
+    private static final int SEGMENTO = 64 * 1024 * 1024;
+    private static final int CONTAS = 100_000;
+
+    @State(Scope.Benchmark)
+    public static class Escrita {
+
+        @Param({"SINCRONO", "INTERVALO", "SISTEMA_OPERACIONAL"})
+        private PoliticaFsync politica;
+
+        private Path diretorio;
+        private ArquivoJournal journal;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            diretorio = Files.createTempDirectory("journal-escrita");
+            journal = new ArquivoJournal(diretorio, SEGMENTO, politica, 10);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            journal.close();
+            FileSystemUtils.deleteRecursively(diretorio);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Recuperacao {
+
+        @Param({"1000000", "5000000"})
+        private int registros;
+
+        private Path diretorio;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            diretorio = Files.createTempDirectory("journal-recuperacao");
+            try (var journal = new ArquivoJournal(diretorio, SEGMENTO, PoliticaFsync.SISTEMA_OPERACIONAL, 0)) {
+                var random = ThreadLocalRandom.current();
+                for (int i = 0; i < registros; i++) {
+                    journal.anexar(TipoRegistro.MOVIMENTO, random.nextInt(CONTAS), random.nextLong(-10_000, 10_000));
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            FileSystemUtils.deleteRecursively(diretorio);
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long anexarEConfirmar(Escrita escrita) {
+        var random = ThreadLocalRandom.current();
+        var sequencia = escrita.journal.anexar(TipoRegistro.MOVIMENTO, random.nextInt(CONTAS), random.nextInt(1, 100_000));
+        escrita.journal.confirmar(sequencia);
+        return sequencia;
+    }
+
+    //Cada execucao reabre o journal do zero: leitura dos segmentos, CRC e saldos por conta
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public int recuperar(Recuperacao recuperacao) throws IOException {
+        try (var journal = new ArquivoJournal(recuperacao.diretorio, SEGMENTO, PoliticaFsync.SISTEMA_OPERACIONAL, 0)) {
+            return journal.retirarSaldosRecuperados().size();
+        }
+    }
+
+}
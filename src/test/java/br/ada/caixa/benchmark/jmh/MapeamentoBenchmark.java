@@ -0,0 +1,68 @@
+package br.ada.caixa.benchmark.jmh;
+
+import br.ada.caixa.config.AppConfiguration;
+import br.ada.caixa.dto.request.RegistrarClientePFRequestDto;
+import br.ada.caixa.dto.request.RegistrarClientePJRequestDto;
+import br.ada.caixa.dto.response.SaldoResponseDto;
+import br.ada.caixa.entity.Cliente;
+import br.ada.caixa.entity.Dinheiro;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ModelMapper do registro de clientes e serializacao Jackson da resposta de saldo,
+ * com a mesma configuracao usada pela aplicacao.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapeamentoBenchmark {
+
+    private final ModelMapper modelMapper = new AppConfiguration().getModelMapper();
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final RegistrarClientePFRequestDto requestPF = RegistrarClientePFRequestDto.builder()
+            .cpf("12345678900")
+            .nome("Cliente PF")
+            .dataNascimento(LocalDate.of(1990, 1, 1))
+            .build();
+    private final RegistrarClientePJRequestDto requestPJ = RegistrarClientePJRequestDto.builder()
+            .cnpj("12345678000199")
+            .nomeFantasia("Cliente PJ")
+            .razaoSocial("Cliente PJ LTDA")
+            .build();
+    private final SaldoResponseDto saldo = new SaldoResponseDto(1001L, Dinheiro.de("1234.56"));
+
+    @Benchmark
+    public Cliente mapearRegistroPF() {
+        return modelMapper.map(requestPF, Cliente.class);
+    }
+
+    @Benchmark
+    public Cliente mapearRegistroPJ() {
+        return modelMapper.map(requestPJ, Cliente.class);
+    }
+
+    @Benchmark
+    public byte[] serializarSaldo() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(saldo);
+    }
+
+}
@@ -0,0 +1,73 @@
+package br.ada.caixa.benchmark.jmh;
+
+import br.ada.caixa.entity.Cliente;
+import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.service.operacoesbancarias.investimento.InvestimentoOperacao;
+import br.ada.caixa.service.operacoesbancarias.investimento.InvestimentoOperacaoPF;
+import br.ada.caixa.service.operacoesbancarias.investimento.InvestimentoOperacaoPJ;
+import br.ada.caixa.service.operacoesbancarias.saque.OperacaoSaque;
+import br.ada.caixa.service.operacoesbancarias.saque.PipelineSaque;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regras de saque e investimento isoladas, sem Spring nem banco.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperacoesBancariasBenchmark {
+
+    private static final Dinheiro SALDO_INICIAL = Dinheiro.de("1000000.00");
+    private static final Dinheiro VALOR = Dinheiro.de("123.45");
+
+    @Param({"PF", "PJ"})
+    private TipoCliente tipoCliente;
+
+    private final PipelineSaque pipelineSaque = new PipelineSaque(new MockEnvironment()
+            .withProperty("caixa.saque.taxa.PJ", "1.005"));
+    private InvestimentoOperacao investimentoOperacao;
+    private Conta conta;
+
+    @Setup
+    public void setUp() {
+        var cliente = Cliente.builder().documento("12345678900").tipo(tipoCliente).build();
+        conta = Conta.builder().numero(1L).saldo(SALDO_INICIAL).tipo(TipoConta.CONTA_CORRENTE).cliente(cliente).build();
+        investimentoOperacao = tipoCliente == TipoCliente.PF ? new InvestimentoOperacaoPF() : new InvestimentoOperacaoPJ();
+    }
+
+    //Mesmo caminho do SaqueService: resolve a cadeia do tipo de cliente/conta e executa
+    @Benchmark
+    public Dinheiro saque() {
+        conta.setSaldo(SALDO_INICIAL);
+        OperacaoSaque operacao = pipelineSaque.resolver(tipoCliente, conta.getTipo());
+        operacao.executar(conta, VALOR);
+        return conta.getSaldo();
+    }
+
+    @Benchmark
+    public Dinheiro investimento() {
+        conta.setSaldo(SALDO_INICIAL);
+        investimentoOperacao.executar(conta, VALOR);
+        return conta.getSaldo();
+    }
+
+}
@@ -0,0 +1,63 @@
+package br.ada.caixa.benchmark.jmh;
+
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.service.operacoesbancarias.saque.OperacaoSaque;
+import br.ada.caixa.service.operacoesbancarias.saque.PipelineSaque;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Despacho da regra de saque: busca em dois EnumMap contra o filtro em lista que era feito
+ * a cada saque. Rode com -prof gc (ja incluido no perfil jmh) e compare gc.alloc.rate.norm:
+ * o despacho por EnumMap deve ficar em ~0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineSaqueBenchmark {
+
+    @Param({"PF", "PJ"})
+    private TipoCliente tipoCliente;
+
+    private final TipoConta tipoConta = TipoConta.CONTA_CORRENTE;
+    private final PipelineSaque pipelineSaque = new PipelineSaque(new MockEnvironment()
+            .withProperty("caixa.saque.taxa.PJ", "1.005")
+            .withProperty("caixa.saque.limite.CONTA_CORRENTE", "5000"));
+    private final List<Map.Entry<TipoCliente, OperacaoSaque>> regrasEmLista = List.of(
+            new AbstractMap.SimpleEntry<>(TipoCliente.PF, pipelineSaque.resolver(TipoCliente.PF, TipoConta.CONTA_CORRENTE)),
+            new AbstractMap.SimpleEntry<>(TipoCliente.PJ, pipelineSaque.resolver(TipoCliente.PJ, TipoConta.CONTA_CORRENTE)));
+
+    @Benchmark
+    public OperacaoSaque despachoEnumMap() {
+        return pipelineSaque.resolver(tipoCliente, tipoConta);
+    }
+
+    //Como o SaqueService escolhia a regra antes: stream + filter sobre todas as regras
+    @Benchmark
+    public OperacaoSaque despachoLista() {
+        return regrasEmLista.stream()
+                .filter(regra -> regra.getKey().equals(tipoCliente))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElseThrow();
+    }
+
+}
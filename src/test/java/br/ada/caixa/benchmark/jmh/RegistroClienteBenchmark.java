@@ -0,0 +1,110 @@
+package br.ada.caixa.benchmark.jmh;
+
+import br.ada.caixa.Main;
+import br.ada.caixa.entity.Cliente;
+import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.enums.StatusCliente;
+import br.ada.caixa.respository.ClienteRepository;
+import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.service.cliente.ClienteService;
+import br.ada.caixa.service.conta.AlocadorNumeroConta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cadastro de cliente com conta corrente: dois saves em transacoes separadas (caminho
+ * antigo) contra ClienteService.registrar em uma transacao e registrarTodos com os
+ * inserts em batch. Os tempos sao por cadastro. Rode com: mvn verify -Pjmh -Djmh.filtro=RegistroCliente
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistroClienteBenchmark {
+
+    private static final int TAMANHO_LOTE = 100;
+
+    private ConfigurableApplicationContext contexto;
+    private ClienteService clienteService;
+    private ClienteRepository clienteRepository;
+    private ContaRepository contaRepository;
+    private AlocadorNumeroConta alocadorNumeroConta;
+    private long proximoDocumento = 80_000_000_000L;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        contexto = new SpringApplicationBuilder(Main.class)
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN", "spring.jpa.show-sql=false")
+                .run();
+        clienteService = contexto.getBean(ClienteService.class);
+        clienteRepository = contexto.getBean(ClienteRepository.class);
+        contaRepository = contexto.getBean(ContaRepository.class);
+        alocadorNumeroConta = contexto.getBean(AlocadorNumeroConta.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        contexto.close();
+    }
+
+    //Como era antes: cada save em sua propria transacao, com flush e commit
+    @Benchmark
+    public Conta registroSeparado() {
+        var cliente = clienteRepository.save(novoCliente());
+        return contaRepository.save(Conta.builder()
+                .numero(alocadorNumeroConta.proximo())
+                .saldo(Dinheiro.ZERO)
+                .tipo(TipoConta.CONTA_CORRENTE)
+                .cliente(cliente)
+                .build());
+    }
+
+    @Benchmark
+    public Object registro() {
+        return clienteService.registrar(novoCliente());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAMANHO_LOTE)
+    public Object registroEmLote() {
+        List<Cliente> clientes = new ArrayList<>(TAMANHO_LOTE);
+        for (int i = 0; i < TAMANHO_LOTE; i++) {
+            clientes.add(novoCliente());
+        }
+        return clienteService.registrarTodos(clientes);
+    }
+
+    private Cliente novoCliente() {
+        return Cliente.builder()
+                .documento(String.valueOf(proximoDocumento++))
+                .nome("Cliente Benchmark")
+                .status(StatusCliente.ATIVO)
+                .tipo(TipoCliente.PF)
+                .build();
+    }
+
+}
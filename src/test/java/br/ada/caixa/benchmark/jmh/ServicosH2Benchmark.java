@@ -0,0 +1,112 @@
+package br.ada.caixa.benchmark.jmh;
+
+import br.ada.caixa.Main;
+import br.ada.caixa.entity.Cliente;
+import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.enums.StatusCliente;
+import br.ada.caixa.respository.ClienteRepository;
+import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.service.operacoesbancarias.deposito.DepositoService;
+import br.ada.caixa.service.operacoesbancarias.saldo.SaldoService;
+import br.ada.caixa.service.operacoesbancarias.saque.SaqueService;
+import br.ada.caixa.service.operacoesbancarias.transferencia.TransferenciaService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chamadas ponta a ponta nos services com o contexto Spring completo e H2 embarcado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServicosH2Benchmark {
+
+    private static final long CONTA_ORIGEM = 9001L;
+    private static final long CONTA_DESTINO = 9002L;
+    private static final Dinheiro VALOR = Dinheiro.de(10);
+
+    private ConfigurableApplicationContext contexto;
+    private DepositoService depositoService;
+    private SaqueService saqueService;
+    private SaldoService saldoService;
+    private TransferenciaService transferenciaService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        contexto = new SpringApplicationBuilder(Main.class)
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN")
+                .run();
+        depositoService = contexto.getBean(DepositoService.class);
+        saqueService = contexto.getBean(SaqueService.class);
+        saldoService = contexto.getBean(SaldoService.class);
+        transferenciaService = contexto.getBean(TransferenciaService.class);
+
+        var cliente = contexto.getBean(ClienteRepository.class).saveAndFlush(Cliente.builder()
+                .documento("90000000001")
+                .nome("Cliente Benchmark")
+                .status(StatusCliente.ATIVO)
+                .tipo(TipoCliente.PF)
+                .build());
+        contexto.getBean(ContaRepository.class).saveAllAndFlush(List.of(
+                novaConta(CONTA_ORIGEM, cliente),
+                novaConta(CONTA_DESTINO, cliente)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public void depositar() {
+        depositoService.depositar(CONTA_ORIGEM, VALOR);
+    }
+
+    @Benchmark
+    public void sacar() {
+        saqueService.sacar(CONTA_ORIGEM, VALOR);
+    }
+
+    @Benchmark
+    public Dinheiro consultarSaldo() {
+        return saldoService.consultarSaldo(CONTA_ORIGEM);
+    }
+
+    @Benchmark
+    public void transferir() {
+        transferenciaService.transferir(CONTA_ORIGEM, CONTA_DESTINO, VALOR);
+    }
+
+    private static Conta novaConta(long numero, Cliente cliente) {
+        return Conta.builder()
+                .numero(numero)
+                .saldo(Dinheiro.de("1000000000000.00"))
+                .tipo(TipoConta.CONTA_CORRENTE)
+                .cliente(cliente)
+                .build();
+    }
+
+}
@@ -0,0 +1,179 @@
+package br.ada.caixa.carga;
+
+import br.ada.caixa.Main;
+import br.ada.caixa.entity.Cliente;
+import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.enums.StatusCliente;
+import br.ada.caixa.respository.ClienteRepository;
+import br.ada.caixa.respository.ContaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vazao com milhares de conexoes simultaneas: pool de threads do Tomcat contra
+ * threads virtuais com JDBC limitado por semaforo. Cada modo sobe a aplicacao
+ * inteira, com banco proprio, e recebe a mesma carga de depositos e consultas.
+ * Rode com: mvn test -Pcarga -Dtest=ModeloThreadsCargaTest [-Dcarga.conexoes=10000 -Dcarga.requisicoes=5]
+ */
+@Slf4j
+@Tag("carga")
+class ModeloThreadsCargaTest {
+
+    private static final int CONEXOES = Integer.getInteger("carga.conexoes", 10_000);
+    private static final int REQUISICOES_POR_CONEXAO = Integer.getInteger("carga.requisicoes", 5);
+    private static final int CONTAS = Integer.getInteger("carga.contas", 100);
+    private static final long PRIMEIRA_CONTA = 40_001L;
+
+    @Test
+    @DisplayName("Threads virtuais atendem 10k conexoes simultaneas com vazao maior que o pool de plataforma")
+    void plataformaContraVirtuaisTest() throws InterruptedException {
+        var plataforma = executar("plataforma", false);
+        var virtuais = executar("virtuais", true);
+
+        log.info("conexoes={} requisicoes={} por conexao", CONEXOES, REQUISICOES_POR_CONEXAO);
+        log.info("plataforma: {}", plataforma);
+        log.info("virtuais:   {}", virtuais);
+        assertTrue(virtuais.vazao >= plataforma.vazao,
+                () -> "esperada vazao maior com threads virtuais: " + virtuais + " x " + plataforma);
+    }
+
+    private Resultado executar(String modo, boolean threadsVirtuais) throws InterruptedException {
+        try (var contexto = new SpringApplicationBuilder(Main.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:carga-" + modo + ";LOCK_TIMEOUT=3000",
+                        "caixa.threads-virtuais.habilitado=" + threadsVirtuais,
+                        "caixa.rastreamento.habilitado=false",
+                        //O Tomcat precisa aceitar as conexoes para o modelo de threads ser o gargalo
+                        "server.tomcat.max-connections=" + (CONEXOES * 2),
+                        "server.tomcat.accept-count=" + CONEXOES,
+                        "logging.level.root=WARN")
+                .run()) {
+            popular(contexto.getBean(ClienteRepository.class), contexto.getBean(ContaRepository.class));
+            int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            return disparar(porta);
+        }
+    }
+
+    private Resultado disparar(int porta) throws InterruptedException {
+        int total = CONEXOES * REQUISICOES_POR_CONEXAO;
+        var latencias = new long[total];
+        var falhas = new AtomicInteger();
+        var indice = new AtomicInteger();
+        var largada = new CountDownLatch(1);
+        var fim = new CountDownLatch(CONEXOES);
+
+        //O cliente tambem usa threads virtuais, senao ele seria o limite de concorrencia
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var httpClient = HttpClient.newBuilder()
+                    .executor(executor)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+            for (int c = 0; c < CONEXOES; c++) {
+                long conta = PRIMEIRA_CONTA + c % CONTAS;
+                executor.execute(() -> {
+                    try {
+                        largada.await();
+                        for (int r = 0; r < REQUISICOES_POR_CONEXAO; r++) {
+                            long inicio = System.nanoTime();
+                            boolean sucesso = r % 2 == 0
+                                    ? enviar(httpClient, porta, "/operacoes/depositar",
+                                    "{\"numeroConta\":" + conta + ",\"valor\":1.00}")
+                                    : enviar(httpClient, porta, "/operacoes/saldo/" + conta, null);
+                            latencias[indice.getAndIncrement()] = System.nanoTime() - inicio;
+                            if (!sucesso) falhas.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        fim.countDown();
+                    }
+                });
+            }
+            long inicio = System.nanoTime();
+            largada.countDown();
+            fim.await();
+            long nanos = System.nanoTime() - inicio;
+
+            Arrays.sort(latencias);
+            return new Resultado(total * 1_000_000_000L / nanos,
+                    latencias[(int) Math.ceil(0.50 * total) - 1] / 1_000_000,
+                    latencias[(int) Math.ceil(0.99 * total) - 1] / 1_000_000,
+                    falhas.get());
+        }
+    }
+
+    private static boolean enviar(HttpClient httpClient, int porta, String caminho, String corpo) {
+        var builder = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + caminho))
+                .timeout(Duration.ofMinutes(2));
+        var request = corpo == null
+                ? builder.GET().build()
+                : builder.header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(corpo)).build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 2;
+        } catch (Exception e) {
+            //Conexao recusada ou timeout contam como falha, nao derrubam a medicao
+            return false;
+        }
+    }
+
+    private static void popular(ClienteRepository clienteRepository, ContaRepository contaRepository) {
+        List<Conta> contas = new ArrayList<>(CONTAS);
+        for (int i = 0; i < CONTAS; i++) {
+            var cliente = clienteRepository.save(Cliente.builder()
+                    .documento(String.format("6%010d", i))
+                    .nome("Cliente Threads " + i)
+                    .status(StatusCliente.ATIVO)
+                    .tipo(TipoCliente.PF)
+                    .build());
+            contas.add(Conta.builder()
+                    .numero(PRIMEIRA_CONTA + i)
+                    .saldo(Dinheiro.de(1_000))
+                    .tipo(TipoConta.CONTA_CORRENTE)
+                    .cliente(cliente)
+                    .build());
+        }
+        contaRepository.saveAll(contas);
+    }
+
+    private static final class Resultado {
+        private final long vazao;
+        private final long p50Ms;
+        private final long p99Ms;
+        private final int falhas;
+
+        private Resultado(long vazao, long p50Ms, long p99Ms, int falhas) {
+            this.vazao = vazao;
+            this.p50Ms = p50Ms;
+            this.p99Ms = p99Ms;
+            this.falhas = falhas;
+        }
+
+        @Override
+        public String toString() {
+            return "vazao=" + vazao + " req/s p50=" + p50Ms + "ms p99=" + p99Ms + "ms falhas=" + falhas;
+        }
+    }
+
+}
@@ -0,0 +1,228 @@
+package br.ada.caixa.carga;
+
+import br.ada.caixa.dto.request.DepositoRequestDto;
+import br.ada.caixa.dto.request.InvestimentoRequestDto;
+import br.ada.caixa.dto.request.SaqueRequestDto;
+import br.ada.caixa.dto.request.TransferenciaRequestDto;
+import br.ada.caixa.entity.Cliente;
+import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.enums.StatusCliente;
+import br.ada.caixa.respository.ClienteRepository;
+import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.respository.LancamentoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Carga concorrente pela camada HTTP real: depositos, saques, transferencias e investimentos
+ * misturados, com verificacao de conservacao do dinheiro no final.
+ * Rode com: mvn test -Pcarga [-Dcarga.threads=32 -Dcarga.operacoes=20000 -Dcarga.contas=100 -Dcarga.pool=10]
+ */
+@Slf4j
+@Tag("carga")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class OperacoesCargaTest {
+
+    private static final int THREADS = Integer.getInteger("carga.threads", 32);
+    private static final int OPERACOES = Integer.getInteger("carga.operacoes", 20_000);
+    private static final int CONTAS = Integer.getInteger("carga.contas", 100);
+    private static final int POOL = Integer.getInteger("carga.pool", 10);
+
+    private static final long PRIMEIRA_CONTA = 20_001L;
+    private static final long PRIMEIRA_CONTA_INVESTIMENTO = 30_001L;
+    private static final Dinheiro SALDO_INICIAL = Dinheiro.de(1_000);
+    private static final Dinheiro VALOR = Dinheiro.de(10);
+    //Todos os clientes sao PF: saque sem tarifa e investimento rendendo 1%
+    private static final BigDecimal FATOR_INVESTIMENTO_PF = new BigDecimal("1.01");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private ContaRepository contaRepository;
+    @Autowired
+    private LancamentoRepository lancamentoRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newFixedThreadPool(THREADS))
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @DynamicPropertySource
+    static void propriedades(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> POOL);
+        registry.add("server.tomcat.threads.max", () -> Math.max(200, THREADS));
+    }
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < CONTAS; i++) {
+            var cliente = clienteRepository.save(Cliente.builder()
+                    .documento(documento(i))
+                    .nome("Cliente Carga " + i)
+                    .status(StatusCliente.ATIVO)
+                    .tipo(TipoCliente.PF)
+                    .build());
+            //A conta investimento ja nasce com numero para nao depender do gerador
+            contaRepository.saveAll(List.of(
+                    novaConta(PRIMEIRA_CONTA + i, TipoConta.CONTA_CORRENTE, SALDO_INICIAL, cliente),
+                    novaConta(PRIMEIRA_CONTA_INVESTIMENTO + i, TipoConta.CONTA_INVESTIMENTO, Dinheiro.ZERO, cliente)));
+        }
+        contaRepository.flush();
+    }
+
+    @AfterEach
+    void tearDown() {
+        lancamentoRepository.deleteAllInBatch();
+        contaRepository.deleteAllInBatch();
+        clienteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Operacoes concorrentes pela API conservam o dinheiro do sistema")
+    void cargaComConservacaoTest() throws InterruptedException {
+        //given
+        var totalInicial = somarSaldos();
+        var latencias = new long[OPERACOES];
+        var depositos = new AtomicLong();
+        var saques = new AtomicLong();
+        var investimentos = new AtomicLong();
+        var falhas = new AtomicInteger();
+        var indice = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        //when
+        long inicio = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                int i;
+                while ((i = indice.getAndIncrement()) < OPERACOES) {
+                    var random = ThreadLocalRandom.current();
+                    int cliente = random.nextInt(CONTAS);
+                    int tipo = random.nextInt(4);
+                    long inicioOperacao = System.nanoTime();
+                    boolean sucesso;
+                    switch (tipo) {
+                        case 0:
+                            sucesso = post("/depositar", new DepositoRequestDto(PRIMEIRA_CONTA + cliente, VALOR));
+                            if (sucesso) depositos.incrementAndGet();
+                            break;
+                        case 1:
+                            sucesso = post("/sacar", new SaqueRequestDto(PRIMEIRA_CONTA + cliente, VALOR));
+                            if (sucesso) saques.incrementAndGet();
+                            break;
+                        case 2:
+                            int destino = (cliente + 1 + random.nextInt(CONTAS - 1)) % CONTAS;
+                            sucesso = post("/transferir", new TransferenciaRequestDto(
+                                    PRIMEIRA_CONTA + cliente, PRIMEIRA_CONTA + destino, VALOR));
+                            break;
+                        default:
+                            sucesso = post("/investimento", new InvestimentoRequestDto(documento(cliente), VALOR));
+                            if (sucesso) investimentos.incrementAndGet();
+                    }
+                    latencias[i] = System.nanoTime() - inicioOperacao;
+                    if (!sucesso) falhas.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.MINUTES));
+        long nanos = System.nanoTime() - inicio;
+
+        //then
+        Arrays.sort(latencias);
+        log.info("threads={} pool={} operacoes={} falhas={}", THREADS, POOL, OPERACOES, falhas.get());
+        log.info("vazao: {} ops/s", OPERACOES * 1_000_000_000L / nanos);
+        log.info("latencia p50={}us p99={}us p999={}us max={}us",
+                percentil(latencias, 0.50), percentil(latencias, 0.99),
+                percentil(latencias, 0.999), latencias[OPERACOES - 1] / 1_000);
+
+        var movimentoLiquido = VALOR.toBigDecimal().multiply(BigDecimal.valueOf(depositos.get() - saques.get()))
+                .add(VALOR.multiplicar(FATOR_INVESTIMENTO_PF).toBigDecimal().multiply(BigDecimal.valueOf(investimentos.get())));
+        var totalFinal = somarSaldos();
+        assertEquals(0, totalInicial.add(movimentoLiquido).compareTo(totalFinal),
+                () -> "esperado " + totalInicial.add(movimentoLiquido) + " encontrado " + totalFinal);
+        //O extrato tem que contar a mesma historia que os saldos
+        assertEquals(0, movimentoLiquido.compareTo(somarLancamentos()));
+    }
+
+    private boolean post(String caminho, Object corpo) {
+        try {
+            var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/operacoes" + caminho))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(corpo)))
+                    .build();
+            var response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() / 100 == 2;
+        } catch (Exception e) {
+            throw new IllegalStateException("Falha de comunicacao em " + caminho, e);
+        }
+    }
+
+    private BigDecimal somarSaldos() {
+        return jdbcTemplate.queryForObject("select coalesce(sum(saldo), 0) from conta where numero between ? and ?",
+                BigDecimal.class, PRIMEIRA_CONTA, PRIMEIRA_CONTA_INVESTIMENTO + CONTAS);
+    }
+
+    private BigDecimal somarLancamentos() {
+        return jdbcTemplate.queryForObject("select coalesce(sum(valor), 0) from lancamento where numero_conta between ? and ?",
+                BigDecimal.class, PRIMEIRA_CONTA, PRIMEIRA_CONTA_INVESTIMENTO + CONTAS);
+    }
+
+    private static long percentil(long[] ordenadas, double percentil) {
+        int posicao = (int) Math.ceil(percentil * ordenadas.length) - 1;
+        return ordenadas[Math.max(posicao, 0)] / 1_000;
+    }
+
+    private static String documento(int indice) {
+        return String.format("5%010d", indice);
+    }
+
+    private static Conta novaConta(long numero, TipoConta tipo, Dinheiro saldo, Cliente cliente) {
+        return Conta.builder()
+                .numero(numero)
+                .saldo(saldo)
+                .tipo(tipo)
+                .cliente(cliente)
+                .build();
+    }
+
+}
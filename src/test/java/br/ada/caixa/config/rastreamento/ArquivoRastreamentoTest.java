@@ -0,0 +1,38 @@
+package br.ada.caixa.config.rastreamento;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ArquivoRastreamentoTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Com o arquivo registrado os traces vao so para ele, e ao remover o logger volta ao normal")
+    void arquivoSoEnquantoRegistradoTest() throws IOException {
+        //given
+        var arquivo = diretorio.resolve("spans.json");
+        var logger = LoggerFactory.getLogger(ArquivoRastreamento.LOGGER);
+
+        //when
+        var arquivoRastreamento = new ArquivoRastreamento(arquivo.toString());
+        logger.info("[{\"id\":\"1\"}]");
+        arquivoRastreamento.destroy();
+        logger.info("[{\"id\":\"2\"}]");
+
+        //then
+        assertEquals("[{\"id\":\"1\"}]", Files.readString(arquivo).trim());
+        assertFalse(((ch.qos.logback.classic.Logger) logger).iteratorForAppenders().hasNext());
+    }
+
+}
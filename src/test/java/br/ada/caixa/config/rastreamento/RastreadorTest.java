@@ -0,0 +1,71 @@
+package br.ada.caixa.config.rastreamento;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.ArgumentMatchers.any;
+
+class RastreadorTest {
+
+    private final ExportadorZipkin exportador = mock(ExportadorZipkin.class);
+
+    @Test
+    @DisplayName("Spans filhos herdam o trace da raiz e o trace e exportado ao fechar a raiz")
+    @SuppressWarnings("unchecked")
+    void traceAmostradoTest() {
+        //given
+        var rastreador = new Rastreador(1.0, exportador);
+
+        //when
+        try (var raiz = rastreador.iniciarRaiz("POST /operacoes/transferir", "SERVER")) {
+            try (var servico = rastreador.iniciar("TransferenciaService.transferir")) {
+                try (var jdbc = rastreador.iniciar("jdbc.executeUpdate")) {
+                    jdbc.tag("sql.query", "update conta set saldo = ?");
+                }
+            }
+        }
+
+        //then
+        ArgumentCaptor<List<Span>> captor = ArgumentCaptor.forClass(List.class);
+        verify(exportador).exportar(captor.capture());
+        var spans = captor.getValue();
+        assertEquals(3, spans.size());
+        var jdbc = spans.get(0);
+        var servico = spans.get(1);
+        var raiz = spans.get(2);
+        assertNull(raiz.parentId);
+        assertEquals(raiz.id, servico.parentId);
+        assertEquals(servico.id, jdbc.parentId);
+        assertEquals(raiz.traceId, jdbc.traceId);
+        assertEquals("update conta set saldo = ?", jdbc.tags.get("sql.query"));
+        assertFalse(rastreador.isAtivo());
+    }
+
+    @Test
+    @DisplayName("Sem amostragem nenhum span e criado nem exportado")
+    void naoAmostradoTest() {
+        //given
+        var rastreador = new Rastreador(0.0, exportador);
+
+        //when
+        try (var raiz = rastreador.iniciarRaiz("GET /clientes", "SERVER")) {
+            try (var filho = rastreador.iniciar("ClienteService.listarTodos")) {
+                filho.tag("chave", "valor");
+            }
+        }
+
+        //then
+        assertFalse(rastreador.isAtivo());
+        verify(exportador, never()).exportar(any());
+    }
+
+}
@@ -3,6 +3,8 @@ package br.ada.caixa.controller;
 import br.ada.caixa.dto.request.RegistrarClientePFRequestDto;
 import br.ada.caixa.dto.request.RegistrarClientePJRequestDto;
 import br.ada.caixa.dto.response.ClienteResponseDto;
+import br.ada.caixa.dto.response.ImportacaoClientesResponseDto;
+import br.ada.caixa.dto.response.PaginaResponseDto;
 import br.ada.caixa.dto.response.RegistrarClienteResponseDto;
 import br.ada.caixa.entity.Cliente;
 import br.ada.caixa.entity.TipoCliente;
@@ -18,7 +20,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 
 import javax.transaction.Transactional;
 import java.time.LocalDate;
@@ -26,6 +33,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -86,15 +94,54 @@ class ClienteControllerITTest {
     @Test
     void getAllTest() {
         // given
+        var tipoResposta = new ParameterizedTypeReference<PaginaResponseDto<ClienteResponseDto>>() {};
         long expected = clienteRepository.count();
 
         // when
-        var response =
-                restTemplate.getForEntity(url, ClienteResponseDto[].class);
+        var response = restTemplate.exchange(url, HttpMethod.GET, null, tipoResposta);
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(expected, response.getBody().getItens().size());
+        assertNull(response.getBody().getProximoCursor());
+    }
+
+    @Test
+    void getPaginaTest() {
+        // given
+        var tipoResposta = new ParameterizedTypeReference<PaginaResponseDto<ClienteResponseDto>>() {};
+
+        // when
+        var primeira = restTemplate.exchange(url + "?limite=2", HttpMethod.GET, null, tipoResposta);
+        var segunda = restTemplate.exchange(url + "?limite=2&cursor=" + primeira.getBody().getProximoCursor(),
+                                            HttpMethod.GET, null, tipoResposta);
+
+        // then
+        assertEquals(HttpStatus.OK, primeira.getStatusCode());
+        assertEquals(2, primeira.getBody().getItens().size());
+        assertEquals("123456779", primeira.getBody().getItens().get(0).getDocumento());
+        assertEquals("123456789", primeira.getBody().getItens().get(1).getDocumento());
+        assertNotNull(primeira.getBody().getProximoCursor());
+
+        assertEquals(HttpStatus.OK, segunda.getStatusCode());
+        assertEquals(1, segunda.getBody().getItens().size());
+        assertEquals("123456889", segunda.getBody().getItens().get(0).getDocumento());
+        assertNull(segunda.getBody().getProximoCursor());
+    }
+
+    @Test
+    void getStreamTest() {
+        // given
+        long expected = clienteRepository.count();
+        var headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.parseMediaType("application/x-ndjson")));
+
+        // when
+        var response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
 
         // then
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(expected, response.getBody().length);
+        assertEquals(expected, response.getBody().lines().count());
     }
 
     @Test
@@ -159,5 +206,52 @@ class ClienteControllerITTest {
         assertEquals(TipoCliente.PJ,entity.getTipo());
     }
 
+    @Test
+    void importarCsvTest() {
+        // given
+        var csv = "tipo,documento,nome,dataNascimento\n"
+                + "PF,11122233344,Cliente Importado,1990-05-10\n"
+                + "PJ,11222333000181,\"Empresa, Ltda\",\n"
+                + "PF,123456889,Ja Cadastrado,\n"
+                + "XX,55566677788,Tipo Errado,\n"
+                + "PF,11122233344,Repetido no Arquivo,\n";
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+
+        // when
+        var response = restTemplate.postForEntity(url + "/importar", new HttpEntity<>(csv, headers),
+                                                  ImportacaoClientesResponseDto.class);
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        var relatorio = response.getBody();
+        assertEquals(5, relatorio.getLinhas());
+        assertEquals(2, relatorio.getImportados());
+        assertEquals(3, relatorio.getRejeitados());
+        assertEquals(List.of(4L, 5L, 6L), relatorio.getErros().stream().map(erro -> erro.getLinha()).sorted().toList());
+
+        assertEquals("Empresa, Ltda", clienteRepository.findByDocumento("11222333000181").get().getNome());
+        assertEquals(2, contaRepository.count());
+    }
+
+    @Test
+    void importarNdjsonTest() {
+        // given
+        var ndjson = "{\"tipo\":\"PF\",\"cpf\":\"11122233344\",\"nome\":\"Cliente NDJSON\"}\n"
+                + "{\"tipo\":\"PJ\",\"cnpj\":\"11222333000181\",\"nomeFantasia\":\"Empresa NDJSON\"}\n"
+                + "{\"tipo\":\"PF\",\"cpf\":\"abc\",\"nome\":\"Documento Errado\"}\n";
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+
+        // when
+        var response = restTemplate.postForEntity(url + "/importar", new HttpEntity<>(ndjson, headers),
+                                                  ImportacaoClientesResponseDto.class);
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().getImportados());
+        assertEquals("Documento inválido!", response.getBody().getErros().get(0).getErro());
+        assertEquals(TipoCliente.PJ, clienteRepository.findByDocumento("11222333000181").get().getTipo());
+    }
 
-}
\ No newline at end of file
+}
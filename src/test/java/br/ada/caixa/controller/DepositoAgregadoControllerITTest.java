@@ -0,0 +1,129 @@
+package br.ada.caixa.controller;
+
+import br.ada.caixa.dto.request.DepositoRequestDto;
+import br.ada.caixa.entity.Cliente;
+import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.enums.StatusCliente;
+import br.ada.caixa.respository.ClienteRepository;
+import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.respository.LancamentoRepository;
+import br.ada.caixa.respository.OperacaoIdempotenteRepository;
+import br.ada.caixa.service.operacoesbancarias.idempotencia.IdempotenciaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//Janela larga para os depositos simultaneos caberem no mesmo lote mesmo com o custo do HTTP
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "caixa.deposito.agregacao.habilitado=true",
+        "caixa.deposito.agregacao.janela-us=50000"})
+class DepositoAgregadoControllerITTest {
+
+    private static final long NUMERO_CONTA = 9101L;
+    private static final int DEPOSITOS = 20;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private ContaRepository contaRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private LancamentoRepository lancamentoRepository;
+    @Autowired
+    private OperacaoIdempotenteRepository operacaoIdempotenteRepository;
+
+    @BeforeEach
+    void setUp() {
+        var cliente = Cliente.builder()
+                .documento("98765432100")
+                .nome("Cliente Agregado")
+                .dataNascimento(LocalDate.now())
+                .status(StatusCliente.ATIVO)
+                .tipo(TipoCliente.PF)
+                .createdAt(LocalDate.now())
+                .build();
+        clienteRepository.saveAndFlush(cliente);
+        contaRepository.saveAndFlush(Conta.builder()
+                .numero(NUMERO_CONTA)
+                .saldo(Dinheiro.ZERO)
+                .tipo(TipoConta.CONTA_CORRENTE)
+                .cliente(cliente)
+                .createdAt(LocalDate.now())
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        operacaoIdempotenteRepository.deleteAllInBatch();
+        lancamentoRepository.deleteAllInBatch();
+        contaRepository.deleteAllInBatch();
+        clienteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Dados depositos simultaneos com Idempotency-Key, agrupar mais de um deposito por commit")
+    void depositosComChaveAgregadosTest() throws Exception {
+        //given
+        var url = "http://localhost:" + port + "/operacoes/depositar";
+        var largada = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(DEPOSITOS);
+        List<Future<ResponseEntity<Void>>> respostas = new ArrayList<>();
+
+        //when
+        try {
+            for (int i = 0; i < DEPOSITOS; i++) {
+                var headers = new HttpHeaders();
+                headers.set(IdempotenciaService.CABECALHO, "deposito-agregado-" + i);
+                var request = new HttpEntity<>(new DepositoRequestDto(NUMERO_CONTA, Dinheiro.de(1)), headers);
+                respostas.add(executor.submit(() -> {
+                    largada.await();
+                    return restTemplate.postForEntity(url, request, Void.class);
+                }));
+            }
+            largada.countDown();
+            for (var resposta : respostas) {
+                assertEquals(HttpStatus.OK, resposta.get().getStatusCode());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //then
+        var lote = meterRegistry.get("caixa.deposito.agregacao.lote").summary();
+        assertEquals(DEPOSITOS, (long) lote.totalAmount());
+        assertThat(lote.count()).isLessThan(DEPOSITOS);
+        assertThat(lote.max()).isGreaterThan(1);
+        assertEquals(Dinheiro.de(DEPOSITOS), contaRepository.findByNumero(NUMERO_CONTA).get().getSaldo());
+        assertEquals(DEPOSITOS, operacaoIdempotenteRepository.count());
+    }
+
+}
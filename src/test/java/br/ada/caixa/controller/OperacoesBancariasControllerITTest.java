@@ -2,19 +2,28 @@ package br.ada.caixa.controller;
 
 import br.ada.caixa.dto.request.DepositoRequestDto;
 import br.ada.caixa.dto.request.InvestimentoRequestDto;
+import br.ada.caixa.dto.request.OperacaoLoteRequestDto;
 import br.ada.caixa.dto.request.SaqueRequestDto;
 import br.ada.caixa.dto.request.TransferenciaRequestDto;
+import br.ada.caixa.dto.response.ExtratoItemResponseDto;
+import br.ada.caixa.dto.response.OperacaoLoteResponseDto;
+import br.ada.caixa.dto.response.PaginaResponseDto;
 import br.ada.caixa.dto.response.SaldoResponseDto;
 import br.ada.caixa.entity.Cliente;
 import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
 import br.ada.caixa.entity.TipoCliente;
 import br.ada.caixa.entity.TipoConta;
 import br.ada.caixa.enums.StatusCliente;
+import br.ada.caixa.enums.TipoOperacaoLote;
 import br.ada.caixa.exceptions.ValidacaoException;
 import br.ada.caixa.respository.ClienteRepository;
 import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.respository.LancamentoRepository;
+import br.ada.caixa.respository.OperacaoIdempotenteRepository;
 import br.ada.caixa.service.conta.ContaService;
 import br.ada.caixa.service.operacoesbancarias.deposito.DepositoService;
+import br.ada.caixa.service.operacoesbancarias.idempotencia.IdempotenciaService;
 import br.ada.caixa.service.operacoesbancarias.investimento.InvestimentoService;
 import br.ada.caixa.service.operacoesbancarias.saldo.SaldoService;
 import br.ada.caixa.service.operacoesbancarias.saque.SaqueService;
@@ -31,10 +40,16 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -56,6 +71,10 @@ class OperacoesBancariasControllerITTest {
     private ContaRepository contaRepository;
     @Autowired
     private ClienteRepository clienteRepository;
+    @Autowired
+    private OperacaoIdempotenteRepository operacaoIdempotenteRepository;
+    @Autowired
+    private LancamentoRepository lancamentoRepository;
 
     @Autowired
     DepositoService depositoService;
@@ -100,7 +119,7 @@ class OperacoesBancariasControllerITTest {
         //CRIAR CONTAS
         var contaCorrente1 = Conta.builder()
                 .numero(1L)
-                .saldo(BigDecimal.ZERO)
+                .saldo(Dinheiro.ZERO)
                 .tipo(TipoConta.CONTA_CORRENTE)
 //                .cliente(clienteRepository.findByDocumento(cliente1.getDocumento()).get())
                 .cliente(cliente1)
@@ -109,7 +128,7 @@ class OperacoesBancariasControllerITTest {
 
         var contaCorrente2 = Conta.builder()
                 .numero(2L)
-                .saldo(BigDecimal.ZERO)
+                .saldo(Dinheiro.ZERO)
                 .tipo(TipoConta.CONTA_CORRENTE)
 //                .cliente(clienteRepository.findByDocumento(cliente2.getDocumento()).get())
                 .cliente(cliente2)
@@ -122,6 +141,8 @@ class OperacoesBancariasControllerITTest {
 
     @AfterEach
     void tearDown() {
+        operacaoIdempotenteRepository.deleteAllInBatch();
+        lancamentoRepository.deleteAllInBatch();
         contaRepository.deleteAllInBatch();
         clienteRepository.deleteAllInBatch();
     }
@@ -129,7 +150,7 @@ class OperacoesBancariasControllerITTest {
     @Test
     void depositarTest() {
         //given
-        final var valor = BigDecimal.valueOf(100.50);
+        final var valor = Dinheiro.de("100.50");
         final var numeroConta = 1L;
 
         DepositoRequestDto depositoRequestDto =
@@ -146,13 +167,28 @@ class OperacoesBancariasControllerITTest {
         assertThat(valor.compareTo(contaRepository.findByNumero(numeroConta).get().getSaldo())).isZero();
         assertEquals(0, valor.compareTo(contaRepository.findByNumero(numeroConta).get().getSaldo()));
 
-        verify(contaRepository).save(any(Conta.class));
+        verify(contaRepository).creditar(numeroConta, valor.toBigDecimal());
+    }
+
+    @Test
+    void depositarValorComMaisCasasTest() {
+        //given
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        var request = new HttpEntity<>("{\"numeroConta\": 1, \"valor\": 100.505}", headers);
+
+        //when
+        var response = restTemplate.postForEntity(url + "/depositar", request, String.class);
+
+        //then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(contaRepository, never()).creditar(any(), any());
     }
 
     @Test
     void sacar() {
         //given
-        final var valor = BigDecimal.valueOf(10);
+        final var valor = Dinheiro.de(10);
         final var numeroConta = 1L;
 
         SaqueRequestDto saqueRequestDto =
@@ -162,9 +198,9 @@ class OperacoesBancariasControllerITTest {
                         .build();
 
         Conta conta = contaRepository.findByNumero(numeroConta).get();
-        conta.setSaldo(BigDecimal.valueOf(10));
+        conta.setSaldo(Dinheiro.de(10));
         contaRepository.saveAndFlush(conta);
-        BigDecimal saldo = conta.getSaldo().subtract(valor);
+        Dinheiro saldo = conta.getSaldo().subtrair(valor);
 
         //when
 
@@ -175,13 +211,42 @@ class OperacoesBancariasControllerITTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(saldo.compareTo(contaRepository.findByNumero(numeroConta).get().getSaldo())).isZero();
         assertEquals(0, saldo.compareTo(contaRepository.findByNumero(numeroConta).get().getSaldo()));
-        verify(contaRepository).save(any(Conta.class));
+        verify(contaRepository).debitar(numeroConta, valor.toBigDecimal());
+    }
+
+    @Test
+    void sacarIdempotenteTest() {
+        //given
+        final var valor = Dinheiro.de(10);
+        final var numeroConta = 1L;
+
+        Conta conta = contaRepository.findByNumero(numeroConta).get();
+        conta.setSaldo(Dinheiro.de(100));
+        contaRepository.saveAndFlush(conta);
+
+        var headers = new HttpHeaders();
+        headers.set(IdempotenciaService.CABECALHO, "saque-teste-1");
+        var request = new HttpEntity<>(new SaqueRequestDto(numeroConta, valor), headers);
+        var outraRequest = new HttpEntity<>(new SaqueRequestDto(numeroConta, Dinheiro.de(20)), headers);
+
+        //when
+        var primeira = restTemplate.postForEntity(url + "/sacar", request, Void.class);
+        var repetida = restTemplate.postForEntity(url + "/sacar", request, Void.class);
+        var outroCorpo = restTemplate.postForEntity(url + "/sacar", outraRequest, String.class);
+
+        //then
+        assertEquals(HttpStatus.OK, primeira.getStatusCode());
+        assertEquals(HttpStatus.OK, repetida.getStatusCode());
+        assertEquals("true", repetida.getHeaders().getFirst(IdempotenciaService.CABECALHO_REPETIDA));
+        assertEquals(HttpStatus.BAD_REQUEST, outroCorpo.getStatusCode());
+        assertEquals(Dinheiro.de(90), contaRepository.findByNumero(numeroConta).get().getSaldo());
+        verify(contaRepository, times(1)).debitar(numeroConta, valor.toBigDecimal());
     }
 
     @Test
     void transferencia() {
         //given
-        final var valor = BigDecimal.valueOf(10);
+        final var valor = Dinheiro.de(10);
         final var numeroConta1 = 1L;
         final var numeroConta2 = 2L;
 
@@ -194,10 +259,10 @@ class OperacoesBancariasControllerITTest {
 
         Conta conta1 = contaRepository.findByNumero(numeroConta1).get();
         Conta conta2 = contaRepository.findByNumero(numeroConta2).get();
-        conta1.setSaldo(BigDecimal.valueOf(100));
+        conta1.setSaldo(Dinheiro.de(100));
         contaRepository.saveAllAndFlush(List.of(conta1,conta2));
-        BigDecimal saldoConta1 = conta1.getSaldo().subtract(valor);
-        BigDecimal saldoConta2 = conta2.getSaldo().add(valor);
+        Dinheiro saldoConta1 = conta1.getSaldo().subtrair(valor);
+        Dinheiro saldoConta2 = conta2.getSaldo().somar(valor);
 
         //when
 
@@ -210,6 +275,110 @@ class OperacoesBancariasControllerITTest {
         verify(contaRepository, atLeast(2)).save(any(Conta.class));
     }
 
+    @Test
+    void loteTest() {
+        //given
+        final var numeroConta1 = 1L;
+        final var numeroConta2 = 2L;
+        List<OperacaoLoteRequestDto> operacoes = List.of(
+                OperacaoLoteRequestDto.builder().tipo(TipoOperacaoLote.DEPOSITO).numeroConta(numeroConta1).valor(Dinheiro.de(50)).build(),
+                OperacaoLoteRequestDto.builder().tipo(TipoOperacaoLote.SAQUE).numeroConta(numeroConta1).valor(Dinheiro.de(20)).build(),
+                OperacaoLoteRequestDto.builder().tipo(TipoOperacaoLote.SAQUE).numeroConta(numeroConta2).valor(Dinheiro.de(10)).build(),
+                OperacaoLoteRequestDto.builder().tipo(TipoOperacaoLote.DEPOSITO).numeroConta(99L).valor(Dinheiro.de(10)).build());
+
+        //when
+        var response = restTemplate.postForEntity(url + "/lote", operacoes, OperacaoLoteResponseDto[].class);
+
+        //then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        var resultados = response.getBody();
+        assertEquals(4, resultados.length);
+        assertTrue(resultados[0].isSucesso());
+        assertTrue(resultados[1].isSucesso());
+        assertEquals("Saldo insuficiente!", resultados[2].getErro());
+        assertEquals("Conta inválida!", resultados[3].getErro());
+        assertThat(Dinheiro.de(30).compareTo(contaRepository.findByNumero(numeroConta1).get().getSaldo())).isZero();
+        assertThat(Dinheiro.ZERO.compareTo(contaRepository.findByNumero(numeroConta2).get().getSaldo())).isZero();
+    }
+
+    @Test
+    void loteIdempotenteTest() {
+        //given
+        final var numeroConta = 1L;
+        List<OperacaoLoteRequestDto> operacoes = List.of(
+                OperacaoLoteRequestDto.builder().tipo(TipoOperacaoLote.DEPOSITO).numeroConta(numeroConta).valor(Dinheiro.de(50)).build(),
+                OperacaoLoteRequestDto.builder().tipo(TipoOperacaoLote.DEPOSITO).numeroConta(99L).valor(Dinheiro.de(10)).build());
+        var headers = new HttpHeaders();
+        headers.set(IdempotenciaService.CABECALHO, "lote-teste-1");
+        var request = new HttpEntity<>(operacoes, headers);
+
+        //when
+        var primeira = restTemplate.postForEntity(url + "/lote", request, OperacaoLoteResponseDto[].class);
+        var repetida = restTemplate.postForEntity(url + "/lote", request, OperacaoLoteResponseDto[].class);
+
+        //then
+        assertEquals(HttpStatus.OK, primeira.getStatusCode());
+        assertEquals(HttpStatus.OK, repetida.getStatusCode());
+        assertEquals("true", repetida.getHeaders().getFirst(IdempotenciaService.CABECALHO_REPETIDA));
+        assertTrue(repetida.getBody()[0].isSucesso());
+        assertEquals("Conta inválida!", repetida.getBody()[1].getErro());
+        assertEquals(Dinheiro.de(50), contaRepository.findByNumero(numeroConta).get().getSaldo());
+        assertEquals(200, operacaoIdempotenteRepository.findById("lote-teste-1").get().getStatus());
+    }
+
+    @Test
+    void extratoTest() {
+        //given
+        final var numeroConta = 1L;
+        lancamentoRepository.deleteAllInBatch();
+        for (int i = 1; i <= 5; i++) {
+            depositoService.depositar(numeroConta, Dinheiro.de(i));
+        }
+        var tipoResposta = new ParameterizedTypeReference<PaginaResponseDto<ExtratoItemResponseDto>>() {};
+        var hoje = LocalDate.now();
+
+        //when
+        List<ExtratoItemResponseDto> itens = new ArrayList<>();
+        String cursor = null;
+        int paginas = 0;
+        do {
+            var pagina = restTemplate.exchange(url + "/extrato/" + numeroConta + "?de=" + hoje + "&ate=" + hoje
+                    + "&limite=2" + (cursor == null ? "" : "&cursor=" + cursor), HttpMethod.GET, null, tipoResposta);
+            assertEquals(HttpStatus.OK, pagina.getStatusCode());
+            itens.addAll(pagina.getBody().getItens());
+            cursor = pagina.getBody().getProximoCursor();
+            paginas++;
+        } while (cursor != null);
+
+        var headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.parseMediaType("application/x-ndjson")));
+        var stream = restTemplate.exchange(url + "/extrato/" + numeroConta, HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        var ontem = restTemplate.exchange(url + "/extrato/" + numeroConta + "?ate=" + hoje.minusDays(1),
+                HttpMethod.GET, null, tipoResposta);
+
+        //then
+        assertEquals(3, paginas);
+        assertEquals(List.of(Dinheiro.de(1), Dinheiro.de(2), Dinheiro.de(3), Dinheiro.de(4), Dinheiro.de(5)),
+                itens.stream().map(ExtratoItemResponseDto::getValor).toList());
+        assertEquals(5, itens.stream().map(ExtratoItemResponseDto::getId).distinct().count());
+
+        assertEquals(HttpStatus.OK, stream.getStatusCode());
+        assertEquals(5, stream.getBody().lines().count());
+
+        assertTrue(ontem.getBody().getItens().isEmpty());
+        assertNull(ontem.getBody().getProximoCursor());
+    }
+
+    @Test
+    void extratoContaInexistenteTest() {
+        //when
+        var response = restTemplate.getForEntity(url + "/extrato/999", String.class);
+
+        //then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
     @Test
     void consultarSaldoTeste() {
         //given
@@ -220,13 +389,13 @@ class OperacoesBancariasControllerITTest {
         //then
         assertNotNull(response);
         assertEquals(numeroConta, response.getNumeroConta());
-        assertEquals(0, BigDecimal.ZERO.compareTo(response.getSaldo()));
+        assertEquals(0, Dinheiro.ZERO.compareTo(response.getSaldo()));
     }
 
     @Test
     void investimentoTeste() {
         final var documento = "123456889";
-        final var valor = BigDecimal.valueOf(100);
+        final var valor = Dinheiro.de(100);
         InvestimentoRequestDto request =
                 InvestimentoRequestDto.builder()
                         .documentoCliente(documento)
@@ -234,11 +403,11 @@ class OperacoesBancariasControllerITTest {
                         .build();
         Cliente cliente = clienteRepository.findByDocumento(documento).get();
         TipoCliente tipo = cliente.getTipo();
-        BigDecimal novoSaldo;
+        Dinheiro novoSaldo;
         if (tipo.equals(TipoCliente.PF)) {
-            novoSaldo = valor.multiply(BigDecimal.valueOf(1.01));
+            novoSaldo = valor.multiplicar(BigDecimal.valueOf(1.01));
         } else {
-            novoSaldo = valor.multiply(BigDecimal.valueOf(1.02));
+            novoSaldo = valor.multiplicar(BigDecimal.valueOf(1.02));
         }
 
         //when
@@ -256,8 +425,8 @@ class OperacoesBancariasControllerITTest {
     void abrirContaPoupancaTest() {
         final var documento = "123456889";
         //when
-        var response = restTemplate.getForObject(url +
-                "/abrir-conta-poupanca/" + documento, SaldoResponseDto.class);
+        var response = restTemplate.postForObject(url +
+                "/abrir-conta-poupanca/" + documento, null, SaldoResponseDto.class);
         //then
         assertEquals(documento,
                 contaRepository.findByNumero(response
@@ -266,7 +435,7 @@ class OperacoesBancariasControllerITTest {
                                 .getDocumento()
         );
         assertNotNull(response);
-        assertEquals(BigDecimal.ZERO, response.getSaldo());
+        assertEquals(Dinheiro.ZERO, response.getSaldo());
         assertEquals(TipoConta.CONTA_POUPANCA,
                 contaRepository.findByNumero(response.
                         getNumeroConta()).get().getTipo());
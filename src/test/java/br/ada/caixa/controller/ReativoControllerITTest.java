@@ -0,0 +1,120 @@
+package br.ada.caixa.controller;
+
+import br.ada.caixa.dto.request.DepositoRequestDto;
+import br.ada.caixa.dto.response.ClienteResponseDto;
+import br.ada.caixa.dto.response.SaldoResponseDto;
+import br.ada.caixa.entity.Cliente;
+import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.enums.StatusCliente;
+import br.ada.caixa.respository.ClienteRepository;
+import br.ada.caixa.respository.ContaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ReativoControllerITTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private ContaRepository contaRepository;
+
+    private String url;
+
+    @BeforeEach
+    void setUp() {
+        url = "http://localhost:" + port;
+
+        var clientePF = Cliente.builder()
+                .documento("123456889")
+                .nome("Teste PF")
+                .status(StatusCliente.ATIVO)
+                .tipo(TipoCliente.PF)
+                .createdAt(LocalDate.now())
+                .build();
+        var clientePJ = Cliente.builder()
+                .documento("12345678000199")
+                .nome("Teste PJ")
+                .status(StatusCliente.ATIVO)
+                .tipo(TipoCliente.PJ)
+                .createdAt(LocalDate.now())
+                .build();
+        clienteRepository.saveAllAndFlush(List.of(clientePF, clientePJ));
+
+        contaRepository.saveAndFlush(Conta.builder()
+                .numero(1L)
+                .saldo(Dinheiro.de(50))
+                .tipo(TipoConta.CONTA_CORRENTE)
+                .cliente(clientePF)
+                .createdAt(LocalDate.now())
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        contaRepository.deleteAllInBatch();
+        clienteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Dado um deposito pelo caminho bloqueante, a leitura reativa enxerga o novo saldo")
+    void saldoReativoTest() {
+        //given
+        restTemplate.postForEntity(url + "/operacoes/depositar", new DepositoRequestDto(1L, Dinheiro.de(25)), Void.class);
+
+        //when
+        var response = restTemplate.getForEntity(url + "/reativo/operacoes/saldo/1", SaldoResponseDto.class);
+
+        //then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(Dinheiro.de(75), response.getBody().getSaldo());
+    }
+
+    @Test
+    @DisplayName("Dada uma conta inexistente, a leitura reativa responde como a bloqueante")
+    void saldoReativoContaInexistenteTest() {
+        //when
+        var response = restTemplate.getForEntity(url + "/reativo/operacoes/saldo/999", String.class);
+
+        //then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Dado um filtro por tipo, listar so os clientes daquele tipo")
+    void listarClientesReativoTest() {
+        //when
+        var todos = restTemplate.getForEntity(url + "/reativo/clientes", ClienteResponseDto[].class);
+        var pj = restTemplate.getForEntity(url + "/reativo/clientes?tipoCliente=PJ", ClienteResponseDto[].class);
+
+        //then
+        assertEquals(HttpStatus.OK, todos.getStatusCode());
+        assertEquals(2, todos.getBody().length);
+        assertEquals(1, pj.getBody().length);
+        assertEquals("12345678000199", pj.getBody()[0].getDocumento());
+    }
+
+}
@@ -0,0 +1,59 @@
+package br.ada.caixa.entity;
+
+import br.ada.caixa.exceptions.ValidacaoException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DinheiroTest {
+
+    @Test
+    @DisplayName("Dado um valor com mais de 2 casas, recusar em vez de arredondar")
+    void maisCasasTest() {
+        assertThrows(ValidacaoException.class, () -> Dinheiro.de(new BigDecimal("10.125")));
+        assertEquals(1050, Dinheiro.de(new BigDecimal("10.500")).getCentavos());
+        assertEquals(2, Dinheiro.de(new BigDecimal("10.5")).toBigDecimal().scale());
+    }
+
+    @Test
+    @DisplayName("Dada uma taxa, arredondar o resultado para centavos com HALF_EVEN")
+    void arredondamentoTest() {
+        //when
+        var dinheiro = Dinheiro.de("10.00").multiplicar(new BigDecimal("1.0125"));
+
+        //then
+        assertEquals(1012, dinheiro.getCentavos());
+        assertEquals(Dinheiro.de("10.14"), Dinheiro.de("10.00").multiplicar(new BigDecimal("1.0135")));
+        assertEquals(2, dinheiro.toBigDecimal().scale());
+    }
+
+    @Test
+    @DisplayName("Dadas taxas aplicadas repetidamente, o saldo nunca ganha casas decimais")
+    void escalaFixaTest() {
+        //given
+        var saldo = Dinheiro.de(1000);
+        var taxa = new BigDecimal("1.005");
+
+        //when
+        for (int i = 0; i < 100; i++) {
+            saldo = saldo.subtrair(Dinheiro.de("0.01").multiplicar(taxa));
+        }
+
+        //then
+        assertEquals(2, saldo.toBigDecimal().scale());
+        assertEquals(Dinheiro.de(999), saldo);
+    }
+
+    @Test
+    @DisplayName("Dado um valor fora da faixa de long, recusar em vez de truncar")
+    void estouroTest() {
+        assertThrows(ArithmeticException.class, () -> Dinheiro.deCentavos(Long.MAX_VALUE).somar(Dinheiro.de("0.01")));
+        assertThrows(ValidacaoException.class, () -> Dinheiro.de(new BigDecimal("92233720368547758.08")));
+        assertThrows(ValidacaoException.class, () -> Dinheiro.deCentavos(Long.MAX_VALUE).multiplicar(new BigDecimal("1.005")));
+    }
+
+}
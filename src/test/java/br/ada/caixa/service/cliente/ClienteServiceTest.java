@@ -4,25 +4,29 @@ import br.ada.caixa.dto.request.RegistrarClientePJRequestDto;
 import br.ada.caixa.dto.response.ClienteResponseDto;
 import br.ada.caixa.dto.response.RegistrarClienteResponseDto;
 import br.ada.caixa.entity.Cliente;
-import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
 import br.ada.caixa.entity.TipoCliente;
-import br.ada.caixa.enums.StatusCliente;
 import br.ada.caixa.respository.ClienteRepository;
 import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.service.conta.AlocadorNumeroConta;
+import br.ada.caixa.service.metricas.MetricasOperacoes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
-import java.math.BigDecimal;
-import java.time.LocalDate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 
@@ -35,6 +39,13 @@ public class ClienteServiceTest {
     private ContaRepository contaRepository;
     @Mock
     private ModelMapper modelMapper;
+    @Mock
+    private AlocadorNumeroConta alocadorNumeroConta;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private MetricasOperacoes metricasOperacoes = new MetricasOperacoes(new SimpleMeterRegistry());
 
     @InjectMocks
     private ClienteService service;
@@ -46,20 +57,20 @@ public class ClienteServiceTest {
         //given
         final RegistrarClientePFRequestDto request = mock(RegistrarClientePFRequestDto.class);
         final Cliente cliente = mock(Cliente.class);
-        final Conta conta = mock(Conta.class);
         final String numeroDoc = "0123456789";
-        final BigDecimal saldo = BigDecimal.ZERO;
         given(cliente.getDocumento()).willReturn(numeroDoc);
-        given(conta.getSaldo()).willReturn(saldo);
         given(modelMapper.map(request, Cliente.class)).willReturn(cliente);
+        given(alocadorNumeroConta.proximo()).willReturn(1_000_000L);
+        executarTransacao();
         //when
-        when(contaRepository.save(any(Conta.class))).thenReturn(conta);
-        when(clienteRepository.save(any(Cliente.class))).thenReturn(cliente);
+        when(clienteRepository.saveAll(anyList())).thenReturn(List.of(cliente));
+        when(contaRepository.saveAll(anyList())).thenAnswer(invocacao -> invocacao.getArgument(0));
         RegistrarClienteResponseDto clienteRetornado = service.registrarPF(request);
         //then
-        verify(clienteRepository).save(cliente);
+        verify(clienteRepository).saveAll(List.of(cliente));
         assertEquals(numeroDoc,clienteRetornado.getDocumento());
-        assertEquals(saldo,clienteRetornado.getSaldoResponseDto().getSaldo());
+        assertEquals(Dinheiro.ZERO,clienteRetornado.getSaldoResponseDto().getSaldo());
+        assertEquals(1_000_000L,clienteRetornado.getSaldoResponseDto().getNumeroConta());
 
     }
 
@@ -69,38 +80,33 @@ public class ClienteServiceTest {
         //given
         final RegistrarClientePJRequestDto request = mock(RegistrarClientePJRequestDto.class);
         final Cliente cliente = mock(Cliente.class);
-        final Conta conta = mock(Conta.class);
         final String numeroDoc = "0123456789000110";
-        final BigDecimal saldo = BigDecimal.ZERO;
         given(cliente.getDocumento()).willReturn(numeroDoc);
-        given(conta.getSaldo()).willReturn(saldo);
         given(modelMapper.map(request, Cliente.class)).willReturn(cliente);
+        executarTransacao();
         //when
-        when(contaRepository.save(any(Conta.class))).thenReturn(conta);
-        when(clienteRepository.save(any(Cliente.class))).thenReturn(cliente);
+        when(clienteRepository.saveAll(anyList())).thenReturn(List.of(cliente));
+        when(contaRepository.saveAll(anyList())).thenAnswer(invocacao -> invocacao.getArgument(0));
         RegistrarClienteResponseDto clienteRetornado = service.registrarPJ(request);
         //then
-        verify(clienteRepository).save(cliente);
+        verify(clienteRepository).saveAll(List.of(cliente));
         assertEquals(numeroDoc, clienteRetornado.getDocumento());
-        assertEquals(saldo, clienteRetornado.getSaldoResponseDto().getSaldo());
+        assertEquals(Dinheiro.ZERO, clienteRetornado.getSaldoResponseDto().getSaldo());
     }
+
+    private void executarTransacao() {
+        given(transactionTemplate.execute(any())).willAnswer(invocacao ->
+                invocacao.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
         @Test
         @DisplayName("Dado clientes, solicitar uma lista por tipo")
         void listarTodosPorTipoTest(){
             //given
-            final Cliente cliente = Cliente
-                    .builder()
-                    .tipo(TipoCliente.PF)
-                    .nome("nome do cliente")
-                    .documento("0123456789")
-                    .status(StatusCliente.ATIVO)
-                    .dataNascimento(LocalDate.now())
-                    .createdAt(LocalDate.now())
-                    .build();
             final TipoCliente tipo = TipoCliente.PF;
-            List<Cliente> clientes = new ArrayList<>();
-            clientes.add(cliente);
-            given(clienteRepository.findAllByTipo(tipo)).willReturn(clientes);
+            List<ClienteResponseDto> clientes = new ArrayList<>();
+            clientes.add(new ClienteResponseDto("0123456789", tipo));
+            given(clienteRepository.listarResumoPorTipo(tipo)).willReturn(clientes);
             //when
             List<ClienteResponseDto> clientesResponse = service.listarTodos(tipo);
             //then
@@ -111,28 +117,10 @@ public class ClienteServiceTest {
     @DisplayName("Dado clientes, solicitar uma lista completa")
     void listarTodosTest(){
         //given
-        final Cliente cliente1 = Cliente
-                .builder()
-                .tipo(TipoCliente.PF)
-                .nome("nome do cliente 1")
-                .documento("0123456789")
-                .status(StatusCliente.ATIVO)
-                .dataNascimento(LocalDate.now())
-                .createdAt(LocalDate.now())
-                .build();
-        final Cliente cliente2 = Cliente
-                .builder()
-                .tipo(TipoCliente.PJ)
-                .nome("nome do cliente 2")
-                .documento("01234567890")
-                .status(StatusCliente.ATIVO)
-                .dataNascimento(LocalDate.now())
-                .createdAt(LocalDate.now())
-                .build();
-        List<Cliente> clientes = new ArrayList<>();
-        clientes.add(cliente1);
-        clientes.add(cliente2);
-        given(clienteRepository.findAll()).willReturn(clientes);
+        List<ClienteResponseDto> clientes = new ArrayList<>();
+        clientes.add(new ClienteResponseDto("0123456789", TipoCliente.PF));
+        clientes.add(new ClienteResponseDto("01234567890", TipoCliente.PJ));
+        given(clienteRepository.listarResumo()).willReturn(clientes);
         //when
         List<ClienteResponseDto> clientesResponse = service.listarTodos();
         //then
@@ -0,0 +1,64 @@
+package br.ada.caixa.service.conta;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AlocadorNumeroContaTest {
+
+    private static final long INCREMENTO = 100;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Dadas threads concorrentes, numeros unicos e uma ida ao banco por bloco")
+    void alocacaoConcorrenteTest() throws InterruptedException {
+        //given
+        var sequence = new AtomicLong(1_000_000);
+        given(jdbcTemplate.queryForObject(contains("next value"), eq(Long.class)))
+                .willAnswer(invocacao -> sequence.getAndAdd(INCREMENTO));
+        var alocador = new AlocadorNumeroConta(jdbcTemplate, INCREMENTO);
+        alocador.afterPropertiesSet();
+        Set<Long> numeros = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        //when
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    numeros.add(alocador.proximo());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        //then
+        assertEquals(40_000, numeros.size());
+        assertEquals(1_000_000L, numeros.stream().mapToLong(Long::longValue).min().getAsLong());
+        assertEquals(1_039_999L, numeros.stream().mapToLong(Long::longValue).max().getAsLong());
+        verify(jdbcTemplate).execute("alter sequence conta_numero_seq increment by " + INCREMENTO);
+        verify(jdbcTemplate, times(400)).queryForObject(contains("next value"), eq(Long.class));
+    }
+
+}
@@ -7,11 +7,14 @@ import br.ada.caixa.enums.StatusCliente;
 import br.ada.caixa.exceptions.ValidacaoException;
 import br.ada.caixa.respository.ClienteRepository;
 import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.service.metricas.MetricasOperacoes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
@@ -30,6 +33,11 @@ public class ContaServiceTest {
     private ContaRepository contaRepository;
     @Mock
     private ClienteRepository clienteRepository;
+    @Mock
+    private AlocadorNumeroConta alocadorNumeroConta;
+
+    @Spy
+    private MetricasOperacoes metricasOperacoes = new MetricasOperacoes(new SimpleMeterRegistry());
 
     @InjectMocks
     private ContaService service;
@@ -0,0 +1,49 @@
+package br.ada.caixa.service.metricas;
+
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.exceptions.ValidacaoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MetricasOperacoesTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MetricasOperacoes metricas = new MetricasOperacoes(registry);
+
+    @Test
+    @DisplayName("Operacao com sucesso registra timer e valor com as tags informadas")
+    void sucessoTest() {
+        //when
+        metricas.medirSemResultado("saque", medicao ->
+                medicao.tipoCliente(TipoCliente.PJ).tipoConta(TipoConta.CONTA_CORRENTE).valor(Dinheiro.de(10)));
+
+        //then
+        var timer = registry.get(MetricasOperacoes.TIMER)
+                .tags("operacao", "saque", "tipoCliente", "PJ", "tipoConta", "CONTA_CORRENTE", "resultado", "sucesso")
+                .timer();
+        assertEquals(1, timer.count());
+        assertEquals(10.0, registry.get(MetricasOperacoes.VALOR).summary().totalAmount());
+    }
+
+    @Test
+    @DisplayName("ValidacaoException vira tag de motivo e e relancada")
+    void validacaoTest() {
+        //when
+        assertThrows(ValidacaoException.class, () -> metricas.medirSemResultado("saque", medicao -> {
+            throw new ValidacaoException("Conta inválida!");
+        }));
+
+        //then
+        var timer = registry.get(MetricasOperacoes.TIMER)
+                .tags("resultado", "validacao", "motivo", "conta_invalida", "tipoCliente", "NA")
+                .timer();
+        assertEquals(1, timer.count());
+    }
+
+}
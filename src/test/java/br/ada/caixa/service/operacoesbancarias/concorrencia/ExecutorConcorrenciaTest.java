@@ -0,0 +1,75 @@
+package br.ada.caixa.service.operacoesbancarias.concorrencia;
+
+import br.ada.caixa.respository.ContaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class ExecutorConcorrenciaTest {
+
+    @Mock
+    private ContaRepository contaRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorConcorrencia executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new ExecutorConcorrencia(contaRepository, transactionTemplate, meterRegistry,
+                ModoConcorrencia.OTIMISTA, 3, 1, 2);
+        given(transactionTemplate.execute(any()))
+                .willAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("Dado um conflito de versao, refazer a operacao ate concluir")
+    void refazConflitoTest() {
+        //given
+        final var chamadas = new AtomicInteger();
+
+        //when
+        var resultado = executor.executar("deposito", () -> {
+            if (chamadas.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Conta", "id");
+            }
+            return "ok";
+        });
+
+        //then
+        assertEquals("ok", resultado);
+        assertEquals(3, chamadas.get());
+        assertEquals(3, meterRegistry.counter("caixa.concorrencia.tentativas", "operacao", "deposito").count());
+        assertEquals(2, meterRegistry.counter("caixa.concorrencia.conflitos", "operacao", "deposito").count());
+    }
+
+    @Test
+    @DisplayName("Dado conflitos seguidos, desistir apos o maximo de tentativas")
+    void desisteAposMaximoTentativasTest() {
+        //when
+        //then
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> executor.executar("saque", () -> {
+                    throw new ObjectOptimisticLockingFailureException("Conta", "id");
+                }));
+        assertEquals(1, meterRegistry.counter("caixa.concorrencia.esgotadas", "operacao", "saque").count());
+    }
+
+}
@@ -0,0 +1,127 @@
+package br.ada.caixa.service.operacoesbancarias.deposito;
+
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.exceptions.ValidacaoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AgregadorDepositosTest {
+
+    private static final long NUMERO_CONTA = 1L;
+    private static final int THREADS = 16;
+
+    private SimpleMeterRegistry meterRegistry;
+    //Cada chamada de creditar e um commit
+    private final List<List<Dinheiro>> commits = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Dados depositos concorrentes na mesma conta, creditar em menos commits sem perder nenhum valor")
+    void agregacaoTest() throws InterruptedException {
+        //given
+        final var depositosPorThread = 50;
+        final var maximoLote = 20;
+        var agregador = new AgregadorDepositos((numero, valores) -> commits.add(valores), meterRegistry, 5_000, maximoLote);
+
+        //when
+        executar(thread -> {
+            for (int i = 0; i < depositosPorThread; i++) {
+                agregador.depositar(NUMERO_CONTA, Dinheiro.de(1));
+            }
+        });
+
+        //then
+        var lote = meterRegistry.summary("caixa.deposito.agregacao.lote");
+        var total = commits.stream().flatMap(List::stream).reduce(Dinheiro.ZERO, Dinheiro::somar);
+        assertEquals(Dinheiro.de(THREADS * depositosPorThread), total);
+        assertEquals(THREADS * depositosPorThread, (long) lote.totalAmount());
+        assertEquals(commits.size(), lote.count());
+        assertTrue(commits.size() < THREADS * depositosPorThread);
+        assertTrue(commits.stream().allMatch(valores -> valores.size() <= maximoLote));
+    }
+
+    @Test
+    @DisplayName("Dado um deposito que falha dentro do lote, so o chamador dele recebe o erro")
+    void falhaIndividualTest() throws InterruptedException {
+        //given
+        final var valorRecusado = Dinheiro.de(13);
+        var agregador = new AgregadorDepositos((numero, valores) -> {
+            if (valores.contains(valorRecusado)) {
+                throw new IllegalStateException("Falha no commit");
+            }
+            commits.add(valores);
+        }, meterRegistry, 5_000, 100);
+        Map<Integer, Throwable> erros = new ConcurrentHashMap<>();
+
+        //when
+        executar(thread -> {
+            try {
+                agregador.depositar(NUMERO_CONTA, Dinheiro.de(thread));
+            } catch (RuntimeException e) {
+                erros.put(thread, e);
+            }
+        });
+
+        //then
+        assertEquals(1, erros.size());
+        assertTrue(erros.get(13) instanceof IllegalStateException);
+        var total = commits.stream().flatMap(List::stream).reduce(Dinheiro.ZERO, Dinheiro::somar);
+        //0 + 1 + ... + 15, menos o recusado
+        assertEquals(Dinheiro.de(120 - 13), total);
+    }
+
+    @Test
+    @DisplayName("Dada uma conta invalida, o erro de validacao chega a todos os depositos do lote")
+    void contaInvalidaTest() {
+        //given
+        var agregador = new AgregadorDepositos((numero, valores) -> {
+            throw new ValidacaoException("Conta inválida!");
+        }, meterRegistry, 100, 100);
+
+        //then
+        assertThrows(ValidacaoException.class, () -> agregador.depositar(NUMERO_CONTA, Dinheiro.de(1)));
+        assertEquals(0, meterRegistry.counter("caixa.deposito.agregacao.refeitos").count());
+    }
+
+    //Todas as threads comecam juntas, para cairem na mesma janela
+    private void executar(IntConsumer tarefa) throws InterruptedException {
+        var largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            final var thread = t;
+            executor.execute(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                tarefa.accept(thread);
+            });
+        }
+        largada.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+
+}
@@ -0,0 +1,84 @@
+package br.ada.caixa.service.operacoesbancarias.idempotencia;
+
+import br.ada.caixa.exceptions.OperacaoEmAndamentoException;
+import br.ada.caixa.respository.OperacaoIdempotenteRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class IdempotenciaServiceTest {
+
+    private static final String CHAVE = "idempotencia-teste-1";
+    private static final TypeReference<String> TEXTO = new TypeReference<>() {};
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+    @Autowired
+    private OperacaoIdempotenteRepository operacaoIdempotenteRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicInteger execucoes = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        operacaoIdempotenteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Dada uma reserva ainda sem resposta, recusar a repeticao como operacao em andamento")
+    void reservaEmAndamentoTest() {
+        //given
+        simularQueda();
+
+        //when //then
+        assertThrows(OperacaoEmAndamentoException.class, this::executar);
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    @DisplayName("Dada uma reserva vencida de um processo que caiu, assumir a chave e executar a operacao")
+    void reservaVencidaTest() {
+        //given
+        simularQueda();
+        jdbcTemplate.update("update operacao_idempotente set data_hora = dateadd('HOUR', -1, data_hora)");
+
+        //when
+        var resposta = executar();
+        var repetida = executar();
+
+        //then
+        assertEquals(HttpStatus.CREATED, resposta.getStatusCode());
+        assertEquals("true", repetida.getHeaders().getFirst(IdempotenciaService.CABECALHO_REPETIDA));
+        assertEquals(2, execucoes.get());
+        assertEquals(201, operacaoIdempotenteRepository.findById(CHAVE).get().getStatus());
+    }
+
+    //Error nao apaga a reserva: fica como a de um processo que morreu antes de gravar a resposta
+    private void simularQueda() {
+        assertThrows(AssertionError.class, () -> idempotenciaService.executar(CHAVE, "teste", "requisicao", TEXTO, () -> {
+            execucoes.incrementAndGet();
+            throw new AssertionError("queda");
+        }));
+    }
+
+    private ResponseEntity<String> executar() {
+        return idempotenciaService.executar(CHAVE, "teste", "requisicao", TEXTO, () -> {
+            execucoes.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.CREATED).body("ok");
+        });
+    }
+
+}
@@ -0,0 +1,109 @@
+package br.ada.caixa.service.operacoesbancarias.journal;
+
+import br.ada.caixa.service.operacoesbancarias.journal.ArquivoJournal.TipoRegistro;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArquivoJournalTest {
+
+    //Quatro registros por segmento, para forcar a troca de segmento
+    private static final int TAMANHO_SEGMENTO = 4 * ArquivoJournal.TAMANHO_REGISTRO;
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Dados registros em varios segmentos, reabrir o journal e recuperar o saldo de cada conta")
+    void recuperacaoTest() throws IOException {
+        //given
+        try (var journal = abrir()) {
+            journal.anexar(TipoRegistro.SALDO, 1L, 10_000);
+            journal.anexar(TipoRegistro.MOVIMENTO, 1L, 2_550);
+            journal.anexar(TipoRegistro.MOVIMENTO, 2L, 1_000);
+            journal.anexar(TipoRegistro.MOVIMENTO, 1L, -550);
+            var pendente = journal.anexar(TipoRegistro.MOVIMENTO_PENDENTE, 2L, 500);
+            var sequencia = journal.anexar(TipoRegistro.ESTORNO, pendente, 0);
+            journal.confirmar(sequencia);
+            assertTrue(journal.getSequenciaDuravel() >= sequencia);
+        }
+
+        //when
+        try (var journal = abrir()) {
+
+            //then
+            assertEquals(6, journal.getRegistrosRecuperados());
+            assertEquals(Map.of(1L, 12_000L, 2L, 1_000L), journal.retirarSaldosRecuperados());
+            assertEquals(7, journal.anexar(TipoRegistro.MOVIMENTO, 2L, 1));
+        }
+        try (var arquivos = Files.list(diretorio)) {
+            assertEquals(2, arquivos.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Dados movimentos pendentes, somar so os confirmados e devolver os que ficaram sem desfecho")
+    void movimentoPendenteTest() throws IOException {
+        //given
+        try (var journal = abrir()) {
+            var confirmado = journal.anexar(TipoRegistro.MOVIMENTO_PENDENTE, 1L, 100);
+            var estornado = journal.anexar(TipoRegistro.MOVIMENTO_PENDENTE, 1L, 200);
+            journal.anexar(TipoRegistro.MOVIMENTO_PENDENTE, 2L, 300);
+            journal.anexar(TipoRegistro.CONFIRMACAO, confirmado, 0);
+            journal.anexar(TipoRegistro.ESTORNO, estornado, 0);
+        }
+
+        //when
+        try (var journal = abrir()) {
+
+            //then
+            assertEquals(Map.of(1L, 100L), journal.retirarSaldosRecuperados());
+            var pendentes = journal.retirarMovimentosPendentes();
+            assertEquals(1, pendentes.size());
+            assertEquals(2L, pendentes.get(3L).getNumeroConta());
+            assertEquals(300L, pendentes.get(3L).getCentavos());
+        }
+    }
+
+    @Test
+    @DisplayName("Dado um registro corrompido no fim, recuperar ate o ultimo registro valido e continuar dali")
+    void registroCorrompidoTest() throws IOException {
+        //given
+        try (var journal = abrir()) {
+            journal.anexar(TipoRegistro.MOVIMENTO, 1L, 100);
+            journal.anexar(TipoRegistro.MOVIMENTO, 1L, 200);
+            journal.anexar(TipoRegistro.MOVIMENTO, 1L, 300);
+        }
+        try (var segmento = new RandomAccessFile(diretorio.resolve("segmento-00000000000000000001.journal").toFile(), "rw")) {
+            //Um byte dos centavos do terceiro registro: o CRC deixa de bater
+            segmento.seek(2L * ArquivoJournal.TAMANHO_REGISTRO + 20);
+            segmento.write(0x7F);
+        }
+
+        //when
+        try (var journal = abrir()) {
+
+            //then
+            assertEquals(2, journal.getRegistrosRecuperados());
+            assertEquals(Map.of(1L, 300L), journal.retirarSaldosRecuperados());
+            assertEquals(3, journal.anexar(TipoRegistro.MOVIMENTO, 1L, 50));
+        }
+        try (var journal = abrir()) {
+            assertEquals(Map.of(1L, 350L), journal.retirarSaldosRecuperados());
+        }
+    }
+
+    private ArquivoJournal abrir() throws IOException {
+        return new ArquivoJournal(diretorio, TAMANHO_SEGMENTO, PoliticaFsync.SINCRONO, 10);
+    }
+
+}
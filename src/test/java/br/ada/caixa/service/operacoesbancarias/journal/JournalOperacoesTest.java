@@ -0,0 +1,188 @@
+package br.ada.caixa.service.operacoesbancarias.journal;
+
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.Lancamento;
+import br.ada.caixa.entity.TipoLancamento;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JournalOperacoesTest {
+
+    @TempDir
+    Path diretorio;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:journal-teste", "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        recriarBanco();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop all objects");
+        dataSource.destroy();
+    }
+
+    @Test
+    @DisplayName("Dado o mesmo banco que o journal acompanhava, reaplicar o journal nos saldos")
+    void reaplicarMesmoBancoTest() throws IOException {
+        //given
+        inserirConta(1L, "100.00");
+        var journal = abrir(true);
+        journal.registrar(List.of(lancamento(1L, "50.00")));
+        journal.destroy();
+        //Saldo no banco atrasado em relacao ao journal
+        jdbcTemplate.update("update conta set saldo = 0 where numero = 1");
+
+        //when
+        abrir(true).destroy();
+
+        //then
+        assertEquals(Dinheiro.de(150), saldo(1L));
+    }
+
+    @Test
+    @DisplayName("Dado um banco recriado com numeros de conta reaproveitados, recomecar dos saldos do banco sem sobrescrever")
+    void bancoRecriadoTest() throws IOException {
+        //given
+        inserirConta(1L, "0.00");
+        var journal = abrir(true);
+        journal.registrar(List.of(lancamento(1L, "500.00")));
+        journal.destroy();
+        recriarBanco();
+        inserirConta(1L, "20.00");
+
+        //when
+        abrir(true).destroy();
+        var saldoAposSubida = saldo(1L);
+        //A linha de base nova e o que o journal reaplica dali em diante
+        jdbcTemplate.update("update conta set saldo = 0 where numero = 1");
+        abrir(true).destroy();
+
+        //then
+        assertEquals(Dinheiro.de(20), saldoAposSubida);
+        assertEquals(Dinheiro.de(20), saldo(1L));
+    }
+
+    @Test
+    @DisplayName("Dado o journal desligado por um tempo, ao religar recomecar dos saldos do banco")
+    void journalReligadoTest() throws IOException {
+        //given
+        inserirConta(1L, "0.00");
+        var journal = abrir(true);
+        journal.registrar(List.of(lancamento(1L, "10.00")));
+        journal.destroy();
+        abrir(false).destroy();
+        jdbcTemplate.update("update conta set saldo = 30 where numero = 1");
+
+        //when
+        abrir(true).destroy();
+
+        //then
+        assertEquals(Dinheiro.de(30), saldo(1L));
+    }
+
+    @Test
+    @DisplayName("Dado um movimento anexado por uma transacao que nunca commitou, nao reaplica-lo na subida")
+    void movimentoSemCommitTest() throws IOException {
+        //given
+        inserirConta(1L, "100.00");
+        var journal = abrir(true);
+        registrarSemDesfecho(journal, lancamento(1L, "50.00"));
+        journal.destroy();
+
+        //when
+        abrir(true).destroy();
+
+        //then
+        assertEquals(Dinheiro.de(100), saldo(1L));
+    }
+
+    @Test
+    @DisplayName("Dado um movimento que commitou no banco sem a confirmacao no journal, reaplica-lo na subida")
+    void commitSemConfirmacaoTest() throws IOException {
+        //given
+        inserirConta(1L, "100.00");
+        var journal = abrir(true);
+        var lancamento = lancamento(1L, "50.00");
+        registrarSemDesfecho(journal, lancamento);
+        jdbcTemplate.update("insert into lancamento (id, numero_conta, sequencia_journal) values (1, 1, ?)",
+                lancamento.getSequenciaJournal());
+        journal.destroy();
+        //Saldo no banco atrasado em relacao ao journal
+        jdbcTemplate.update("update conta set saldo = 0 where numero = 1");
+
+        //when
+        abrir(true).destroy();
+        var saldoAposSubida = saldo(1L);
+        jdbcTemplate.update("delete from lancamento");
+        abrir(true).destroy();
+
+        //then
+        assertEquals(Dinheiro.de(150), saldoAposSubida);
+        assertEquals(Dinheiro.de(150), saldo(1L));
+    }
+
+    //Queda com a transacao aberta: nem o commit nem o rollback chegam ao journal
+    private static void registrarSemDesfecho(JournalOperacoes journal, Lancamento lancamento) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            journal.registrar(List.of(lancamento));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private JournalOperacoes abrir(boolean habilitado) throws IOException {
+        var journal = new JournalOperacoes(jdbcTemplate, new SimpleMeterRegistry(), habilitado, diretorio.toString(),
+                1, PoliticaFsync.SINCRONO, 10);
+        journal.afterPropertiesSet();
+        return journal;
+    }
+
+    private void recriarBanco() {
+        jdbcTemplate.execute("drop all objects");
+        jdbcTemplate.execute("create table conta (numero bigint primary key, saldo numeric(19, 2) not null, versao bigint not null)");
+        jdbcTemplate.execute("create table marca_journal (id int primary key, epoca varchar(36) not null, "
+                + "sequencia bigint not null, atualizado_em timestamp not null)");
+        jdbcTemplate.execute("create table lancamento (id bigint primary key, numero_conta bigint not null, "
+                + "sequencia_journal bigint)");
+    }
+
+    private void inserirConta(long numero, String saldo) {
+        jdbcTemplate.update("insert into conta (numero, saldo, versao) values (?, ?, 0)", numero, new BigDecimal(saldo));
+    }
+
+    private Dinheiro saldo(long numero) {
+        return Dinheiro.de(jdbcTemplate.queryForObject("select saldo from conta where numero = ?", BigDecimal.class, numero));
+    }
+
+    private static Lancamento lancamento(long numeroConta, String valor) {
+        return Lancamento.builder()
+                .numeroConta(numeroConta)
+                .tipo(TipoLancamento.DEPOSITO)
+                .valor(new BigDecimal(valor))
+                .dataHora(LocalDateTime.now())
+                .build();
+    }
+
+}
@@ -0,0 +1,122 @@
+package br.ada.caixa.service.operacoesbancarias.lancamento;
+
+import br.ada.caixa.entity.Cliente;
+import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.Lancamento;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.entity.TipoLancamento;
+import br.ada.caixa.enums.StatusCliente;
+import br.ada.caixa.respository.ClienteRepository;
+import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.respository.LancamentoRepository;
+import br.ada.caixa.respository.SaldoSnapshotRepository;
+import br.ada.caixa.service.operacoesbancarias.deposito.DepositoService;
+import br.ada.caixa.service.operacoesbancarias.saque.SaqueService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "caixa.lancamentos.margem-compactacao-segundos=0")
+class LancamentoServiceTest {
+
+    private static final long NUMERO_CONTA = 8001L;
+
+    @Autowired
+    private LancamentoService lancamentoService;
+    @Autowired
+    private DepositoService depositoService;
+    @Autowired
+    private SaqueService saqueService;
+    @Autowired
+    private LancamentoRepository lancamentoRepository;
+    @Autowired
+    private SaldoSnapshotRepository saldoSnapshotRepository;
+    @Autowired
+    private ContaRepository contaRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        var cliente = Cliente.builder()
+                .documento("22333444000155")
+                .nome("Cliente PJ")
+                .status(StatusCliente.ATIVO)
+                .tipo(TipoCliente.PJ)
+                .build();
+        clienteRepository.saveAndFlush(cliente);
+        contaRepository.saveAndFlush(Conta.builder()
+                .numero(NUMERO_CONTA)
+                .saldo(Dinheiro.ZERO)
+                .tipo(TipoConta.CONTA_CORRENTE)
+                .cliente(cliente)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        lancamentoRepository.deleteAllInBatch();
+        saldoSnapshotRepository.deleteAllInBatch();
+        contaRepository.deleteAllInBatch();
+        clienteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Dadas operacoes na conta, registrar lancamentos e derivar o saldo do snapshot")
+    void saldoDerivadoDosLancamentosTest() {
+        //given
+        depositoService.depositar(NUMERO_CONTA, Dinheiro.de(200));
+        saqueService.sacar(NUMERO_CONTA, Dinheiro.de(100));
+        envelhecerLancamentos();
+
+        //when
+        lancamentoService.compactar();
+        depositoService.depositar(NUMERO_CONTA, Dinheiro.de(10));
+
+        //then
+        var tipos = lancamentoRepository.findAll().stream()
+                .map(Lancamento::getTipo)
+                .collect(Collectors.toList());
+        assertEquals(4, tipos.size());
+        assertTrue(tipos.contains(TipoLancamento.TARIFA));
+        assertTrue(saldoSnapshotRepository.findById(NUMERO_CONTA).isPresent());
+
+        var saldoConta = contaRepository.findByNumero(NUMERO_CONTA).get().getSaldo();
+        //PJ: 200 - 100 - 0,50 de tarifa + 10
+        assertEquals(Dinheiro.de("109.50"), lancamentoService.calcularSaldo(NUMERO_CONTA));
+        assertEquals(saldoConta, lancamentoService.calcularSaldo(NUMERO_CONTA));
+    }
+
+    @Test
+    @DisplayName("Dados lancamentos dentro do timeout das transacoes, nao compactar: outra transacao ainda pode commitar antes do corte")
+    void naoCompactarDentroDoTimeoutTest() {
+        //given
+        depositoService.depositar(NUMERO_CONTA, Dinheiro.de(200));
+
+        //when
+        lancamentoService.compactar();
+
+        //then
+        assertTrue(saldoSnapshotRepository.findById(NUMERO_CONTA).isEmpty());
+        assertEquals(Dinheiro.de(200), lancamentoService.calcularSaldo(NUMERO_CONTA));
+    }
+
+    //Lancamentos sao imutaveis pela entidade: a data e recuada direto no banco
+    private void envelhecerLancamentos() {
+        jdbcTemplate.update("update lancamento set data_hora = dateadd('HOUR', -1, data_hora)");
+    }
+
+}
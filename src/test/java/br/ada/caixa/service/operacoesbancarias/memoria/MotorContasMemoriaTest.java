@@ -0,0 +1,95 @@
+package br.ada.caixa.service.operacoesbancarias.memoria;
+
+import br.ada.caixa.entity.Cliente;
+import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.enums.StatusCliente;
+import br.ada.caixa.exceptions.ValidacaoException;
+import br.ada.caixa.respository.ClienteRepository;
+import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.service.operacoesbancarias.deposito.DepositoService;
+import br.ada.caixa.service.operacoesbancarias.saldo.SaldoService;
+import br.ada.caixa.service.operacoesbancarias.saque.SaqueService;
+import br.ada.caixa.service.operacoesbancarias.transferencia.TransferenciaService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "caixa.motor-memoria.habilitado=true",
+        "caixa.motor-memoria.intervalo-persistencia-ms=10"
+})
+class MotorContasMemoriaTest {
+
+    @Autowired
+    private DepositoService depositoService;
+    @Autowired
+    private SaqueService saqueService;
+    @Autowired
+    private TransferenciaService transferenciaService;
+    @Autowired
+    private SaldoService saldoService;
+    @Autowired
+    private ContaRepository contaRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @BeforeEach
+    void setUp() {
+        var clientePF = Cliente.builder()
+                .documento("11122233344")
+                .nome("Cliente PF")
+                .dataNascimento(LocalDate.now())
+                .status(StatusCliente.ATIVO)
+                .tipo(TipoCliente.PF)
+                .build();
+        var clientePJ = Cliente.builder()
+                .documento("11222333000144")
+                .nome("Cliente PJ")
+                .status(StatusCliente.ATIVO)
+                .tipo(TipoCliente.PJ)
+                .build();
+        clienteRepository.saveAllAndFlush(List.of(clientePF, clientePJ));
+        contaRepository.saveAllAndFlush(List.of(
+                Conta.builder().numero(7001L).saldo(Dinheiro.de(100)).tipo(TipoConta.CONTA_CORRENTE).cliente(clientePF).build(),
+                Conta.builder().numero(7002L).saldo(Dinheiro.de(100)).tipo(TipoConta.CONTA_CORRENTE).cliente(clientePJ).build()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        contaRepository.deleteAllInBatch();
+        clienteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Dadas operacoes no motor em memoria, aplicar as regras e persistir o saldo")
+    void operacoesEmMemoriaTest() throws InterruptedException {
+        //when
+        depositoService.depositar(7001L, Dinheiro.de(50));
+        saqueService.sacar(7002L, Dinheiro.de(10));
+        transferenciaService.transferir(7001L, 7002L, Dinheiro.de(20));
+
+        //then
+        assertEquals(Dinheiro.de(130), saldoService.consultarSaldo(7001L));
+        //PJ paga 0,5% de taxa no saque: 100 - 10,05 + 20
+        assertEquals(Dinheiro.de("109.95"), saldoService.consultarSaldo(7002L));
+        assertThrows(ValidacaoException.class, () -> saqueService.sacar(7001L, Dinheiro.de(1000)));
+        assertThrows(ValidacaoException.class, () -> depositoService.depositar(9999L, Dinheiro.de(1)));
+
+        Thread.sleep(200);
+        assertEquals(Dinheiro.de(130), contaRepository.findByNumero(7001L).get().getSaldo());
+        assertEquals(Dinheiro.de("109.95"), contaRepository.findByNumero(7002L).get().getSaldo());
+    }
+
+}
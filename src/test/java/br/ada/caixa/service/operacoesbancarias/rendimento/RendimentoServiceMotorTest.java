@@ -0,0 +1,104 @@
+package br.ada.caixa.service.operacoesbancarias.rendimento;
+
+import br.ada.caixa.entity.Cliente;
+import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.enums.StatusCliente;
+import br.ada.caixa.respository.ClienteRepository;
+import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.respository.ExecucaoRendimentoRepository;
+import br.ada.caixa.respository.LancamentoRepository;
+import br.ada.caixa.service.operacoesbancarias.lancamento.LancamentoService;
+import br.ada.caixa.service.operacoesbancarias.memoria.MotorContasMemoria;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+
+@SpringBootTest(properties = {
+        "caixa.motor-memoria.habilitado=true",
+        "caixa.rendimento.tamanho-bloco=2",
+        "caixa.rendimento.taxa-diaria.conta-poupanca=0.01"})
+class RendimentoServiceMotorTest {
+
+    private static final LocalDate DIA = LocalDate.of(2024, 1, 11);
+
+    @Autowired
+    private RendimentoService rendimentoService;
+    @Autowired
+    private MotorContasMemoria motorContasMemoria;
+    @Autowired
+    private ExecucaoRendimentoRepository execucaoRendimentoRepository;
+    @Autowired
+    private ContaRepository contaRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private LancamentoRepository lancamentoRepository;
+    @SpyBean
+    private LancamentoService lancamentoService;
+
+    @BeforeEach
+    void setUp() {
+        var cliente = clienteRepository.saveAndFlush(Cliente.builder()
+                .documento("55544433311")
+                .nome("Teste Rendimento Motor")
+                .status(StatusCliente.ATIVO)
+                .tipo(TipoCliente.PF)
+                .createdAt(LocalDate.now())
+                .build());
+        contaRepository.saveAllAndFlush(List.of(novaConta(7301, cliente), novaConta(7302, cliente)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        execucaoRendimentoRepository.deleteAllInBatch();
+        lancamentoRepository.deleteAllInBatch();
+        contaRepository.deleteAllInBatch();
+        clienteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Dada uma falha antes do commit do bloco, o motor nao fica com o credito e a retomada credita uma vez so")
+    void falhaNoBlocoComMotorTest() {
+        //given
+        doThrow(new IllegalStateException("Falha simulada nos lancamentos"))
+                .doCallRealMethod()
+                .when(lancamentoService).registrarTodos(anyList());
+
+        //when
+        assertThrows(IllegalStateException.class, () -> rendimentoService.processar(DIA));
+        var saldoAposFalha = motorContasMemoria.consultarSaldo(7301L);
+        rendimentoService.processar(DIA);
+
+        //then
+        assertEquals(Dinheiro.de(100), saldoAposFalha);
+        assertEquals(Dinheiro.de(101), motorContasMemoria.consultarSaldo(7301L));
+        assertEquals(Dinheiro.de(101), motorContasMemoria.consultarSaldo(7302L));
+    }
+
+    private static Conta novaConta(long numero, Cliente cliente) {
+        return Conta.builder()
+                .numero(numero)
+                .saldo(Dinheiro.de(100))
+                .tipo(TipoConta.CONTA_POUPANCA)
+                .cliente(cliente)
+                .createdAt(LocalDate.now())
+                .build();
+    }
+
+}
@@ -0,0 +1,130 @@
+package br.ada.caixa.service.operacoesbancarias.rendimento;
+
+import br.ada.caixa.entity.Cliente;
+import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.ExecucaoRendimento;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.enums.StatusCliente;
+import br.ada.caixa.respository.ClienteRepository;
+import br.ada.caixa.respository.ContaRepository;
+import br.ada.caixa.respository.ExecucaoRendimentoRepository;
+import br.ada.caixa.respository.LancamentoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "caixa.rendimento.tamanho-bloco=2",
+        "caixa.rendimento.taxa-diaria.conta-poupanca=0.01",
+        "caixa.rendimento.taxa-diaria.conta-investimento=0.02"})
+class RendimentoServiceTest {
+
+    private static final LocalDate DIA = LocalDate.of(2024, 1, 10);
+
+    @Autowired
+    private RendimentoService rendimentoService;
+    @Autowired
+    private ExecucaoRendimentoRepository execucaoRendimentoRepository;
+    @Autowired
+    private ContaRepository contaRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private LancamentoRepository lancamentoRepository;
+
+    @BeforeEach
+    void setUp() {
+        var cliente = clienteRepository.saveAndFlush(Cliente.builder()
+                .documento("55544433322")
+                .nome("Teste Rendimento")
+                .status(StatusCliente.ATIVO)
+                .tipo(TipoCliente.PF)
+                .createdAt(LocalDate.now())
+                .build());
+        List<Conta> contas = new ArrayList<>();
+        for (long numero = 7001; numero <= 7005; numero++) {
+            contas.add(novaConta(numero, TipoConta.CONTA_POUPANCA, cliente));
+        }
+        contas.add(novaConta(7101, TipoConta.CONTA_INVESTIMENTO, cliente));
+        contas.add(novaConta(7201, TipoConta.CONTA_CORRENTE, cliente));
+        contaRepository.saveAllAndFlush(contas);
+    }
+
+    @AfterEach
+    void tearDown() {
+        execucaoRendimentoRepository.deleteAllInBatch();
+        lancamentoRepository.deleteAllInBatch();
+        contaRepository.deleteAllInBatch();
+        clienteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Dado um dia sem execucao, creditar poupanca e investimento uma unica vez")
+    void processarTest() {
+        //when
+        var execucao = rendimentoService.processar(DIA);
+        rendimentoService.processar(DIA);
+
+        //then
+        assertTrue(execucao.isConcluida());
+        assertEquals(6, execucao.getContasProcessadas());
+        assertEquals(Dinheiro.de(7), execucao.getTotalCreditado());
+        assertEquals(Dinheiro.de(101), saldo(7001));
+        assertEquals(Dinheiro.de(102), saldo(7101));
+        assertEquals(Dinheiro.de(100), saldo(7201));
+        assertEquals(6, lancamentoRepository.count());
+    }
+
+    @Test
+    @DisplayName("Dado um checkpoint no meio das poupancas, retomar da proxima conta")
+    void retomarDoCheckpointTest() {
+        //given
+        execucaoRendimentoRepository.saveAndFlush(ExecucaoRendimento.builder()
+                .dataReferencia(DIA)
+                .tipoConta(TipoConta.CONTA_POUPANCA)
+                .ultimaConta(7003)
+                .contasProcessadas(3)
+                .totalCreditado(Dinheiro.de(3))
+                .atualizadoEm(LocalDateTime.now())
+                .build());
+
+        //when
+        rendimentoService.retomarPendentes();
+
+        //then
+        var execucao = execucaoRendimentoRepository.findById(DIA).orElseThrow();
+        assertTrue(execucao.isConcluida());
+        assertEquals(6, execucao.getContasProcessadas());
+        assertEquals(Dinheiro.de(100), saldo(7003));
+        assertEquals(Dinheiro.de(101), saldo(7004));
+        assertEquals(Dinheiro.de(102), saldo(7101));
+    }
+
+    private Dinheiro saldo(long numero) {
+        return contaRepository.findSaldoByNumero(numero).orElseThrow();
+    }
+
+    private static Conta novaConta(long numero, TipoConta tipo, Cliente cliente) {
+        return Conta.builder()
+                .numero(numero)
+                .saldo(Dinheiro.de(100))
+                .tipo(tipo)
+                .cliente(cliente)
+                .createdAt(LocalDate.now())
+                .build();
+    }
+
+}
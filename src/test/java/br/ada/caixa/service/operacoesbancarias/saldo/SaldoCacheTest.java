@@ -0,0 +1,47 @@
+package br.ada.caixa.service.operacoesbancarias.saldo;
+
+import br.ada.caixa.entity.Dinheiro;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SaldoCacheTest {
+
+    @Test
+    @DisplayName("Dada uma conta ja consultada, servir o saldo do cache ate ser invalidada")
+    void invalidarTest() {
+        //given
+        final var cache = new SaldoCache(new SimpleMeterRegistry(), true, 10, 30);
+        final var cargas = new AtomicInteger();
+
+        //when
+        cache.obter(1L, numero -> Dinheiro.de(cargas.incrementAndGet()));
+        cache.obter(1L, numero -> Dinheiro.de(cargas.incrementAndGet()));
+        cache.invalidar(1L);
+        var saldo = cache.obter(1L, numero -> Dinheiro.de(cargas.incrementAndGet()));
+
+        //then
+        assertEquals(2, cargas.get());
+        assertEquals(Dinheiro.de(2), saldo);
+    }
+
+    @Test
+    @DisplayName("Dado o cache desligado, sempre consultar a origem")
+    void desligadoTest() {
+        //given
+        final var cache = new SaldoCache(new SimpleMeterRegistry(), false, 10, 30);
+        final var cargas = new AtomicInteger();
+
+        //when
+        cache.obter(1L, numero -> Dinheiro.de(cargas.incrementAndGet()));
+        cache.obter(1L, numero -> Dinheiro.de(cargas.incrementAndGet()));
+
+        //then
+        assertEquals(2, cargas.get());
+    }
+
+}
@@ -0,0 +1,70 @@
+package br.ada.caixa.service.operacoesbancarias.saque;
+
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.exceptions.ValidacaoException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PipelineSaqueTest {
+
+    private final PipelineSaque pipeline = new PipelineSaque(new MockEnvironment()
+            .withProperty("caixa.saque.taxa.PJ", "1.005")
+            .withProperty("caixa.saque.limite.CONTA_POUPANCA", "500"));
+
+    @Test
+    @DisplayName("Cada tipo de cliente aplica a sua taxa configurada")
+    void taxaPorTipoClienteTest() {
+        //when
+        var debitoPF = pipeline.resolver(TipoCliente.PF, TipoConta.CONTA_CORRENTE).calcularValorDebito(Dinheiro.de(100));
+        var debitoPJ = pipeline.resolver(TipoCliente.PJ, TipoConta.CONTA_CORRENTE).calcularValorDebito(Dinheiro.de(100));
+
+        //then
+        assertEquals(Dinheiro.de(100), debitoPF);
+        assertEquals(Dinheiro.de("100.50"), debitoPJ);
+    }
+
+    @Test
+    @DisplayName("Sem propriedade PJ paga a taxa padrao de 0,5% e a propriedade so sobrescreve")
+    void taxaPadraoTest() {
+        //given
+        var padrao = new PipelineSaque(new MockEnvironment());
+        var sobrescrita = new PipelineSaque(new MockEnvironment().withProperty("caixa.saque.taxa.PJ", "1.01"));
+
+        //when
+        var debitoPadrao = padrao.resolver(TipoCliente.PJ, TipoConta.CONTA_CORRENTE).calcularValorDebito(Dinheiro.de(100));
+        var debitoSobrescrito = sobrescrita.resolver(TipoCliente.PJ, TipoConta.CONTA_CORRENTE).calcularValorDebito(Dinheiro.de(100));
+
+        //then
+        assertEquals(Dinheiro.de("100.50"), debitoPadrao);
+        assertEquals(Dinheiro.de(101), debitoSobrescrito);
+        assertEquals(Dinheiro.de(100), padrao.resolver(TipoCliente.PF, TipoConta.CONTA_CORRENTE).calcularValorDebito(Dinheiro.de(100)));
+    }
+
+    @Test
+    @DisplayName("Limite vale so para o tipo de conta configurado e valor nao positivo e recusado")
+    void limiteEValidacaoTest() {
+        //given
+        var poupanca = pipeline.resolver(TipoCliente.PF, TipoConta.CONTA_POUPANCA);
+        var corrente = pipeline.resolver(TipoCliente.PF, TipoConta.CONTA_CORRENTE);
+
+        //then
+        assertThrows(ValidacaoException.class, () -> poupanca.calcularValorDebito(Dinheiro.de(501)));
+        assertEquals(Dinheiro.de(501), corrente.calcularValorDebito(Dinheiro.de(501)));
+        assertThrows(ValidacaoException.class, () -> corrente.calcularValorDebito(Dinheiro.ZERO));
+    }
+
+    @Test
+    @DisplayName("A cadeia e montada uma vez e reutilizada a cada saque")
+    void cadeiaPreMontadaTest() {
+        assertSame(pipeline.resolver(TipoCliente.PJ, TipoConta.CONTA_CORRENTE),
+                pipeline.resolver(TipoCliente.PJ, TipoConta.CONTA_CORRENTE));
+    }
+
+}
@@ -0,0 +1,120 @@
+package br.ada.caixa.service.operacoesbancarias.transferencia;
+
+import br.ada.caixa.entity.Cliente;
+import br.ada.caixa.entity.Conta;
+import br.ada.caixa.entity.Dinheiro;
+import br.ada.caixa.entity.TipoCliente;
+import br.ada.caixa.entity.TipoConta;
+import br.ada.caixa.enums.StatusCliente;
+import br.ada.caixa.exceptions.ValidacaoException;
+import br.ada.caixa.respository.ClienteRepository;
+import br.ada.caixa.respository.ContaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class TransferenciaServiceConcorrenciaTest {
+
+    private static final int QUANTIDADE_CONTAS = 10;
+    private static final int QUANTIDADE_TRANSFERENCIAS = 4000;
+    private static final int QUANTIDADE_THREADS = 16;
+    private static final long PRIMEIRA_CONTA = 1001L;
+    private static final Dinheiro SALDO_INICIAL = Dinheiro.de(1000);
+
+    @Autowired
+    private TransferenciaService transferenciaService;
+    @Autowired
+    private ContaRepository contaRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @BeforeEach
+    void setUp() {
+        var cliente = Cliente.builder()
+                .documento("98765432100")
+                .nome("Teste Concorrencia")
+                .dataNascimento(LocalDate.now())
+                .status(StatusCliente.ATIVO)
+                .tipo(TipoCliente.PF)
+                .createdAt(LocalDate.now())
+                .build();
+        clienteRepository.saveAndFlush(cliente);
+
+        List<Conta> contas = new ArrayList<>();
+        for (int i = 0; i < QUANTIDADE_CONTAS; i++) {
+            contas.add(Conta.builder()
+                    .numero(PRIMEIRA_CONTA + i)
+                    .saldo(SALDO_INICIAL)
+                    .tipo(TipoConta.CONTA_CORRENTE)
+                    .cliente(cliente)
+                    .createdAt(LocalDate.now())
+                    .build());
+        }
+        contaRepository.saveAllAndFlush(contas);
+    }
+
+    @AfterEach
+    void tearDown() {
+        contaRepository.deleteAllInBatch();
+        clienteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Dadas transferencias paralelas em ambos os sentidos, o dinheiro total se conserva")
+    void transferenciasConcorrentesConservamSaldoTest() throws InterruptedException {
+        //given
+        final var total = Dinheiro.deCentavos(SALDO_INICIAL.getCentavos() * QUANTIDADE_CONTAS);
+        final var sucessos = new AtomicInteger();
+        final var recusadas = new AtomicInteger();
+        final var falhasInesperadas = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(QUANTIDADE_THREADS);
+
+        //when
+        for (int i = 0; i < QUANTIDADE_TRANSFERENCIAS; i++) {
+            executor.execute(() -> {
+                var random = ThreadLocalRandom.current();
+                long origem = PRIMEIRA_CONTA + random.nextInt(QUANTIDADE_CONTAS);
+                long destino = PRIMEIRA_CONTA + (origem - PRIMEIRA_CONTA + 1 + random.nextInt(QUANTIDADE_CONTAS - 1)) % QUANTIDADE_CONTAS;
+                try {
+                    transferenciaService.transferir(origem, destino, Dinheiro.de(1 + random.nextInt(50)));
+                    sucessos.incrementAndGet();
+                } catch (ValidacaoException | ConcurrencyFailureException e) {
+                    recusadas.incrementAndGet();
+                } catch (RuntimeException e) {
+                    falhasInesperadas.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+
+        //then
+        var contas = contaRepository.findAll();
+        var totalFinal = contas.stream()
+                .map(Conta::getSaldo)
+                .reduce(Dinheiro.ZERO, Dinheiro::somar);
+        assertEquals(0, falhasInesperadas.get());
+        assertEquals(QUANTIDADE_TRANSFERENCIAS, sucessos.get() + recusadas.get());
+        assertTrue(sucessos.get() > 0);
+        assertEquals(total, totalFinal);
+        contas.forEach(conta -> assertTrue(conta.getSaldo().signum() >= 0));
+    }
+
+}